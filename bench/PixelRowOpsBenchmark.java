@@ -0,0 +1,75 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+import model.IPixelRowOps;
+import model.PixelRowOps;
+
+/**
+ * JMH benchmark comparing the scalar and vector row operations on one row of pixels. The
+ * vector operations are only there when the classes built from src-vector are on the class
+ * path, so the forked JVMs are started with the jdk.incubator.vector module; with "vector"
+ * and no vector classes the benchmark fails in setup rather than measuring the scalar ones.
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class PixelRowOpsBenchmark {
+  @Param({"scalar", "vector"})
+  public String ops;
+
+  @Param({"256", "4096"})
+  public int length;
+
+  private IPixelRowOps rowOps;
+  private int[] pixels;
+  private int[] top;
+  private int[] acc;
+  private int[] dst;
+
+  /**
+   * Makes rows of random pixels, a quarter of them transparent and a quarter opaque.
+   */
+  @Setup
+  public void setup() {
+    this.rowOps = this.ops.equals("vector") ? PixelRowOps.vector() : PixelRowOps.scalar();
+    if (this.rowOps == null) {
+      throw new IllegalStateException("Vector row operations are not available.");
+    }
+    Random rand = new Random(25);
+    this.pixels = new int[this.length];
+    this.top = new int[this.length];
+    for (int i = 0; i < this.length; i++) {
+      this.pixels[i] = rand.nextInt();
+      int argb = rand.nextInt();
+      this.top[i] = i % 4 == 0 ? argb & 0xFFFFFF : i % 4 == 1 ? argb | 0xFF000000 : argb;
+    }
+    this.acc = new int[this.length];
+    this.dst = new int[this.length];
+  }
+
+  @Benchmark
+  public int[] blendRow() {
+    // every call blends onto the same pixels, so the copy is part of what is measured, as it
+    // is for the compositor
+    System.arraycopy(this.pixels, 0, this.acc, 0, this.length);
+    this.rowOps.blendRow(this.acc, 0, this.top, 0, this.length);
+    return this.acc;
+  }
+
+  @Benchmark
+  public int[] maskRow() {
+    this.rowOps.maskRow(this.pixels, this.dst, 0, this.length, 0xFFFF0000);
+    return this.dst;
+  }
+
+  @Benchmark
+  public int[] valueRow() {
+    this.rowOps.valueRow(this.pixels, this.dst, 0, this.length, 1);
+    return this.dst;
+  }
+}
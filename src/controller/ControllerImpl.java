@@ -1,10 +1,11 @@
 package controller;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
@@ -14,9 +15,10 @@ import controller.command.ICommand;
 import controller.command.SaveImageCmd;
 import controller.command.SaveProjectCmd;
 import controller.command.SetFilterCmd;
-import model.ILayer;
-import model.IPixel;
+import model.CollageFormat;
+import model.CollageTextFormat;
 import model.IProject;
+import model.ProjectJournal;
 import view.IView;
 
 /**
@@ -147,127 +149,43 @@ public class ControllerImpl implements CollageController {
       // did not send to a new class because we need to mutate the model field in the controller
       // making it the newly loaded project.
       case "load-project":
-        boolean lpFlag = true; // flag for while loop to get the file path
-        boolean lpFlag2 = true;// flag for while loop to get the name, height, and width of project.
-        Scanner sc2 = null; // set to null now, will either be set to path from user input.
-        String lpName = "";
-        int lpHeight = 0;
-        int lpWidth = 0;
-        int lpMaxValue = 0;
-
         // loads in the formatProject format.
         String lpPath = "";
 
         // gets the file path
-        while (lpFlag) {
-          if (sc.hasNext()) {
-            lpPath = sc.next();
-          }
+        if (sc.hasNext()) {
+          lpPath = sc.next();
+        }
 
+        // when the file path is invalid, we break out of this command and user will be
+        // prompted (done outside this command) to enter an instruction again. the loaders
+        // open the file themselves, so it is only checked here
+        if (!ControllerImpl.isReadableFile(lpPath)) {
           try {
-            sc2 = new Scanner(new FileInputStream(lpPath));
-            lpFlag = false;
-          } catch (FileNotFoundException e) {
-            try {
-              this.view.renderMessage("File " + lpPath + " is not found.");
-              break; // leave while loop without setting lpFlag to true
-            } catch (IOException ignore) {
-              throw new IllegalStateException("IOException thrown.");
-            }
+            this.view.renderMessage("File " + lpPath + " is not found.");
+          } catch (IOException ignore) {
+            throw new IllegalStateException("IOException thrown.");
           }
-        }
-
-        // this condition is true when the file path is invalid, so we break out of this command
-        // and user will be prompted (done outside this command) to enter an instruction again.
-        if (lpFlag) {
           break;
         }
 
-
-        // now we get the name, height, and width
-        List<String> inputs = new ArrayList<>();
-
-        while (lpFlag2) {
-          for (int a = 0; a < 4; a++) {
-            if (sc2.hasNext()) {
-              inputs.add(sc2.next());
-            }
+        try {
+          if (CollageFormat.isBinaryProject(lpPath)) {
+            // binary .collage projects are mapped into memory, and each layer's pixels are only
+            // loaded once the layer is used
+            ProjectJournal.load(lpPath, this.model, true);
+          } else {
+            // text projects are indexed by layer first, then the layers are decoded in parallel
+            CollageTextFormat.load(lpPath, this.model);
           }
-
-
-          lpName = inputs.remove(0);
-
-
+          this.view.renderMessage(
+                  "\n Project loaded: " + this.model.getName() + "\n");
+        } catch (IllegalArgumentException e) {
           try {
-
-            lpWidth = Integer.parseInt(inputs.remove(0));
-            lpHeight = Integer.parseInt(inputs.remove(0));
-            lpMaxValue = Integer.parseInt(inputs.remove(0));
-            lpFlag2 = false;
-          } catch (NumberFormatException e) {
-            // if caught, this means there is no integer in the string.
-            // So we catch and ask to try again and restart the loop
-            try {
-              this.view.renderMessage(
-                      "Invalid x or y position input. Start over enter layer name, " +
-                              "image name, xPos, and then yPos.\n");
-            } catch (IOException ignore) {
-              throw new IllegalStateException("IOException thrown.");
-            }
+            this.view.renderMessage("File " + lpPath + " is not a valid project.");
+          } catch (IOException ignore) {
+            throw new IllegalStateException("IOException thrown.");
           }
-        }
-
-
-        // now the rest of the string in the scanner is
-        // layerName, formatName, followed by Layer-content-format, repeated.
-
-
-        ArrayList<ILayer> listOfLayers = new ArrayList<>();
-
-        ILayer layer = null;
-
-        IPixel[][] lpPixels = this.model.doubleArrayRGB(lpHeight, lpWidth);
-
-
-        // this while loop will go until there are nothing in the read file.
-        // it will form pixels from the rgb values, then form layers, then add these layers
-        // to a list to be used in constructing the model (model = loaded project).
-        while (sc2.hasNext()) {
-
-          // getting all the pixels from one image into a list
-          for (int i = 0; i < lpHeight; i++) {
-            for (int j = 0; j < lpWidth; j++) {
-              int r = sc2.nextInt();
-              int g = sc2.nextInt();
-              int b = sc2.nextInt();
-
-              // makes pixel with these values then adds it to array
-              IPixel pixCurrent = this.model.createRGB(r, g, b, lpMaxValue);
-              lpPixels[i][j] = pixCurrent;
-            }
-          }
-
-          List<List<IPixel>> list = new ArrayList<>();
-
-          // loop to turn lpPixels[][] into a list of list of IPixel.
-          for (IPixel[] row : lpPixels) {
-            ArrayList<IPixel> rowList = new ArrayList<IPixel>();
-
-            rowList.addAll(Arrays.asList(row));
-
-            list.add(rowList);
-          }
-
-          // makes a layer from the pixels.
-          layer = this.model.createLayerImp(lpName, list, lpHeight, lpWidth);
-
-          // adds this layer to the list
-          listOfLayers.add(layer);
-        }
-        this.model.startProject(lpName, listOfLayers, lpHeight, lpWidth);
-        try {
-          this.view.renderMessage(
-                  "\n Project loaded: " + lpName + "\n");
         } catch (IOException ignore) {
           throw new IllegalStateException("IOException thrown.");
         }
@@ -333,4 +251,19 @@ public class ControllerImpl implements CollageController {
       throw new IllegalStateException("IOException thrown.");
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * This method determines if the given path is of a file which can be read.
+   *
+   * @param path the path of the file
+   * @return true if the file exists and can be read, false otherwise
+   */
+  private static boolean isReadableFile(String path) {
+    try {
+      Path file = Paths.get(path);
+      return Files.isRegularFile(file) && Files.isReadable(file);
+    } catch (InvalidPathException e) {
+      return false;
+    }
+  }
+}
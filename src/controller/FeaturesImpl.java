@@ -1,12 +1,10 @@
 package controller;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.StringReader;
-import java.util.ArrayList;
+import java.nio.file.NoSuchFileException;
 import java.util.List;
 import java.util.Scanner;
 
@@ -16,9 +14,14 @@ import controller.command.SaveImageCmd;
 import controller.command.SaveProjectCmd;
 import controller.command.SetFilterCmd;
 import controller.utilities.ImageUtil;
+import controller.utilities.ImportOptions;
+import controller.utilities.JpegAndPngUtil;
+import model.CollageFormat;
+import model.CollageTextFormat;
 import model.ILayer;
-import model.IPixel;
 import model.IProject;
+import model.IRaster;
+import model.ProjectJournal;
 import view.IView;
 
 /**
@@ -91,58 +94,20 @@ public class FeaturesImpl implements Features {
 
   @Override
   public void loadProj(File project) throws IOException {
-    // need to read this file, and to create a new model based on its text
-    Scanner scan = null;
     try {
-      scan = new Scanner(project);
-    } catch (FileNotFoundException e) {
-      try {
-        this.view.renderMessage("Provided file not found.");
-      } catch (IOException e1) {
-        this.view.renderMessage("Could not transmit to the view.");
-      }
-    }
-    // initiating the project's name, along with its height and width
-    String projName = scan.nextLine();
-    int height = scan.nextInt();
-    int width = scan.nextInt();
-    int maxVal = scan.nextInt();
-    this.model.startProject(projName, height, width);
-    // now, looping through the layers that the project has
-    while (scan.hasNext()) {
-      String layerName = scan.next();
-      String filt = scan.next();
-      List<List<IPixel>> layerPix = new ArrayList<>();
-      // while the scanner still has a pixel to process
-      while (scan.hasNextInt()) {
-        for (int heightIndex = 0; heightIndex < height; heightIndex++) {
-          List<IPixel> row = new ArrayList<>();
-          for (int widthIndex = 0; widthIndex < width; widthIndex++) {
-            int r = scan.nextInt();
-            int g = scan.nextInt();
-            int b = scan.nextInt();
-            int a = scan.nextInt();
-            IPixel newPixel = this.model.createRGBA(r, g, b, a);
-            row.add(newPixel);
-          }
-          layerPix.add(row);
-        }
-      }
-      if (!layerName.equals("background")) {
-        try {
-          this.model.addLayer(layerName);
-        } catch (IllegalArgumentException e2) {
-          this.view.renderMessage("Could not add a layer with that name. Please try again.");
-        }
+      if (CollageFormat.isBinaryProject(project.getPath())) {
+        // binary .collage projects are mapped into memory, and each layer's pixels are only
+        // loaded once the layer is used
+        ProjectJournal.load(project.getPath(), this.model, true);
+      } else {
+        // text projects are indexed by layer first, then the layers are decoded in parallel
+        CollageTextFormat.load(project.getPath(), this.model);
       }
-      this.model.addLayerImg(layerName, layerPix, 0, 0);
-
-      // creating inputs to apply the filter to the layer
-      Readable input = new StringReader(filt + " " + layerName);
-      // initializing the delegate to apply the filter to the given layer
-      this.delegate = new SetFilterCmd(new Scanner(input), this.model, this.view);
+    } catch (NoSuchFileException e) {
+      this.view.renderMessage("Provided file not found.");
+    } catch (IllegalArgumentException e) {
+      this.view.renderMessage("Provided file is not a valid project.");
     }
-    scan.close();
   }
 
   @Override
@@ -189,31 +154,28 @@ public class FeaturesImpl implements Features {
 
   @Override
   public BufferedImage projDisplay() {
-    ILayer finalLayer = this.model.compressToImage("current view");
-    int width = finalLayer.getWidth();
-    int height = finalLayer.getHeight();
-    BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-    // looping through the newly created image and setting each of its pixel values equal to
-    // the corresponding pixel
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-        String pixel = finalLayer.getPixel(row, col).toString();
-        String[] pixVals = pixel.split(" ");
-        int r = Integer.parseInt(pixVals[0]);
-        int g = Integer.parseInt(pixVals[1]);
-        int b = Integer.parseInt(pixVals[2]);
-        Color c = new Color(r, g, b);
-        img.setRGB(col, row, c.getRGB());
-      }
-    }
-    return img;
+    // the project is compressed straight into the image's pixels
+    return JpegAndPngUtil.render(this.model);
   }
 
   @Override
   public void addLoiImage(File ppm, int x, int y) {
-    List<List<IPixel>> pix = ImageUtil.readPPM(ppm.getPath());
+    ILayer layer = this.getLayers().get(this.loi);
     try {
-      this.model.addLayerImg(this.getLayers().get(this.loi).getName(), pix, x, y);
+      // images larger than the space left on the layer are subsampled while decoding to fit it
+      ImportOptions options = ImportOptions.NONE;
+      int maxHeight = layer.getHeight() - Math.max(x, 0);
+      int maxWidth = layer.getWidth() - Math.max(y, 0);
+      if (maxHeight > 0 && maxWidth > 0) {
+        options = options.withFit(maxHeight, maxWidth);
+      }
+      IRaster pix;
+      if (ppm.getName().toLowerCase().endsWith(".ppm")) {
+        pix = ImageUtil.readPPMRaster(ppm.getPath(), options);
+      } else {
+        pix = JpegAndPngUtil.readRaster(ppm.getPath(), options);
+      }
+      this.model.addLayerRaster(layer.getName(), pix, x, y);
     } catch (IllegalArgumentException e) {
       try {
         this.view.renderMessage("Invalid inputs, please try again.");
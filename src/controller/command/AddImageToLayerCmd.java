@@ -4,11 +4,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.regex.Pattern;
 
 import controller.utilities.ImageUtil;
+import controller.utilities.ImportOptions;
 import controller.utilities.JpegAndPngUtil;
-import model.IPixel;
 import model.IProject;
+import model.IRaster;
 import view.IView;
 
 /**
@@ -16,6 +18,9 @@ import view.IView;
  * layer within the collage project.
  */
 public class AddImageToLayerCmd implements ICommand {
+  // the import options which may follow the x and y positions
+  private static final Pattern OPTION = Pattern.compile("(crop|subsample|fit)=\\S*");
+
   Scanner sc;
   IProject project;
   IView view;
@@ -36,7 +41,9 @@ public class AddImageToLayerCmd implements ICommand {
   }
 
   /**
-   * Method adds an image to a layer, given layer and image name and x,y ints.
+   * Method adds an image to a layer, given layer and image name and x,y ints. These may be
+   * followed by import options crop=X,Y,WIDTH,HEIGHT, subsample=STEP and fit=HEIGHT,WIDTH,
+   * which decode only part of the image.
    */
   @Override
   public void execute() {
@@ -82,14 +89,23 @@ public class AddImageToLayerCmd implements ICommand {
     }
 
 
-    // use util file to read given image and add
-    List<List<IPixel>> img = null;
-
-
-    // now cases for which image type
+    // optional import options, which crop or subsample the image while it is decoded
+    ImportOptions options = ImportOptions.NONE;
+    while (sc.hasNext(OPTION)) {
+      try {
+        options = options.with(sc.next());
+      } catch (IllegalArgumentException e) {
+        try {
+          this.view.renderMessage(e.getMessage() + "\n");
+          return;
+        } catch (IOException ignore) {
+          throw new IllegalStateException("IOException thrown.");
+        }
+      }
+    }
 
     // To get the file type (png vs jpeg vs ppm), first reverse the path
-    String[] reversedPath = new StringBuilder(imageName).reverse().toString().split(".");
+    String[] reversedPath = new StringBuilder(imageName).reverse().toString().split("\\.");
 
     // then take characters before period and reverse it back to just get the extension
     String extension = new StringBuilder(reversedPath[0]).reverse().toString();
@@ -97,37 +113,18 @@ public class AddImageToLayerCmd implements ICommand {
 
     switch (extension) {
       case "ppm":
-        try {
-          img = ImageUtil.readPPM(imageName);
-        } catch (IllegalArgumentException e) {
-          // if IllegalArg, then there was no file w that name so we
-          // restart method and ask user to enter new instruction.
-          try {
-            this.view.renderMessage("Invalid file path.\n");
-            return;
-          } catch (IOException ignore) {
-            throw new IllegalStateException("IOException thrown.");
-          }
-        }
-
-        // now add the image to the layer
-        this.project.addLayerImg(layerName, img, xPos, yPos);
-        try {
-          this.view.renderMessage(
-                  "\nImage added to the layer: " + layerName);
-        } catch (IOException ignore) {
-          throw new IllegalStateException("IOException thrown.");
-        }
-
-        break;
-
       case "png":
       case "jpeg":
-
+      case "jpg":
+        IRaster raster;
         try {
-          img = JpegAndPngUtil.readImage(imageName);
-        }
-        catch (IllegalArgumentException e) {
+          // images are read straight into a raster, without making pixel objects
+          if (extension.equals("ppm")) {
+            raster = ImageUtil.readPPMRaster(imageName, options);
+          } else {
+            raster = JpegAndPngUtil.readRaster(imageName, options);
+          }
+        } catch (IllegalArgumentException e) {
           // if IllegalArg, then there was no file w that name so we
           // restart method and ask user to enter new instruction.
           try {
@@ -139,7 +136,7 @@ public class AddImageToLayerCmd implements ICommand {
         }
 
         // now add the image to the layer
-        this.project.addLayerImg(layerName, img, xPos, yPos);
+        this.project.addLayerRaster(layerName, raster, xPos, yPos);
         try {
           this.view.renderMessage(
                   "\nImage added to the layer: " + layerName);
@@ -1,12 +1,11 @@
 package controller.command;
 
 import java.awt.image.BufferedImage;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Scanner;
 
-import controller.FeaturesImpl;
 import controller.utilities.JpegAndPngUtil;
+import controller.utilities.PpmWriter;
 import view.IView;
 
 import model.ILayer;
@@ -59,21 +58,15 @@ public class SaveImageCmd implements ICommand {
 
     switch (extension) {
       case "ppm":
-        // convert image to a single layer ppm to be saved.
-        ILayer image = this.project.compressToImage("Project 1");
-        String imageSave = "";
-        try {
-          imageSave = image.getPPM();
-        } catch (IOException e) {
-          return;
+        // a binary ppm can be asked for by following the path with P6, the default is plain P3
+        boolean binary = false;
+        if (sc.hasNext("P[36]")) {
+          binary = sc.next().equals("P6");
         }
-
+        // convert image to a single layer ppm, which is streamed to the file row by row.
+        ILayer image = this.project.compressToImage("Project 1");
         try {
-          FileWriter fw = new FileWriter(path);
-
-          fw.write(imageSave);
-
-          fw.close();
+          PpmWriter.write(image, path, binary);
 
           try {
             this.view.renderMessage(
@@ -82,14 +75,16 @@ public class SaveImageCmd implements ICommand {
             throw new IllegalStateException("IOException thrown.");
           }
 
-        } catch (IOException e) {
+        } catch (IOException | IllegalArgumentException e) {
           throw new IllegalStateException("IO Exception thrown.");
         }
         break;
 
       case "png":
       case "jpeg":
-        BufferedImage b = new FeaturesImpl(project, this.view).projDisplay();
+      case "jpg":
+        // the project is compressed straight into the pixels of the image which is written
+        BufferedImage b = JpegAndPngUtil.render(this.project);
         try {
           JpegAndPngUtil.saveImage(path, b);
         }
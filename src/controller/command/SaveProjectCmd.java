@@ -1,7 +1,9 @@
 package controller.command;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.Scanner;
 
 import model.IProject;
@@ -47,10 +49,15 @@ public class SaveProjectCmd implements ICommand {
 
     try {
 
-      FileWriter fw = new FileWriter(path);
-
-      fw.write(project.formatProject());
-      fw.close();
+      if (path.endsWith(".collage")) {
+        // .collage projects are saved in the binary format. If the project was last saved to or
+        // loaded from the same file, only the edits since then are appended to its journal
+        project.getJournal().save(path, project);
+      } else {
+        try (Writer fw = new BufferedWriter(new FileWriter(path))) {
+          fw.write(project.formatProject());
+        }
+      }
 
 
       this.view.renderMessage("\nFile saved successfully to " + path);
@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.Scanner;
 
 import model.FilterOption;
+import model.Filters;
+import model.IFilterOption;
 import model.IProject;
 import view.IView;
 
@@ -42,7 +44,7 @@ public class SetFilterCmd implements ICommand {
 
     String layerName = "";
     String filterOptionStr = ""; // this is a string version of filterOption
-    FilterOption filterOption = FilterOption.NORM;
+    IFilterOption filterOption = FilterOption.NORM;
     boolean flag = true;
 
     while (flag) {
@@ -59,10 +61,11 @@ public class SetFilterCmd implements ICommand {
       layerName = inputs.remove(0);
       filterOptionStr = inputs.remove(0);
 
-      // this try block is for converting the string FilterOption to the enum
-      // throws exception if no FilterOption w the name exists.
+      // this try block is for converting the string FilterOption to the enum, or else to a
+      // parameterized adjustment like gamma-2.2.
+      // throws exception if no FilterOption or adjustment w the name exists.
       try {
-        filterOption = filterOption.fromString(filterOptionStr);
+        filterOption = Filters.parse(filterOptionStr);
         flag = false;
       } catch (IllegalArgumentException e) {
         try {
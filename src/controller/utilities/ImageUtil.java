@@ -2,99 +2,71 @@ package controller.utilities;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
-import java.io.FileNotFoundException;
-import java.io.FileInputStream;
+
+import model.ArgbUtil;
 import model.IPixel;
+import model.IRaster;
 import model.RGBPixel;
 
 
 /**
- * This class contains utility methods to read a PPM image from file and simply print its contents.
+ * This class contains utility methods to read a PPM image from file.
  * Feel free to change this method as required.
  */
 public class ImageUtil {
+  // PPM images have no alpha, so their pixels are given this one
+  private static final int PPM_ALPHA = 1;
 
   /**
-   * Read an image file in the PPM format and print the colors.
+   * Read an image file in the PPM format into rows of pixels.
    *
    * @param filename the path of the file.
+   * @return the rows of pixels of the image.
+   * @throws IllegalArgumentException if the file cannot be read or is not a valid PPM image.
    */
   public static List<List<IPixel>> readPPM(String filename) throws IllegalArgumentException {
-    Scanner sc = null;
-
-    try {
-      sc = new Scanner(new FileInputStream(filename));
-    } catch (FileNotFoundException e) {
-      System.out.println("File " + filename + " not found!");
-      throw new IllegalArgumentException("File name invalid");
-    }
-    StringBuilder builder = new StringBuilder();
-    //read the file line by line, and populate a string. This will throw away any comment lines
-    while (sc.hasNextLine()) {
-      String s = sc.nextLine();
-      if (s.charAt(0) != '#') {
-        builder.append(s + System.lineSeparator());
-      }
-    }
-
-    //now set up the scanner to read from the string we just built
-    sc = new Scanner(builder.toString());
-
-    String token;
-
-    token = sc.next();
-    if (!token.equals("P3")) {
-      System.out.println("Invalid PPM file: plain RAW file should begin with P3");
-    }
-    int width = sc.nextInt();
-    System.out.println("Width of image: " + width);
-    int height = sc.nextInt();
-    System.out.println("Height of image: " + height);
-    int maxValue = sc.nextInt();
-    System.out.println("Maximum value of a color in this file (usually 255): " + maxValue);
-
-
-    // makes array grid, list of rows
-    IPixel[][] arr = new RGBPixel[height][width];
-
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = sc.nextInt();
-        int g = sc.nextInt();
-        int b = sc.nextInt();
-
-        /*
-        make a new pixel here with these values and add to array
-         */
-        IPixel pCurrent = new RGBPixel(r, g, b, 1);
-
-
-        arr[i][j] = pCurrent;
-
-        //System.out.println("Color of pixel (" + j + "," + i + "): " + r + "," + g + "," + b);
-      }
-    }
-
-
-
+    IRaster raster = ImageUtil.readPPMRaster(filename);
+    int[] row = new int[raster.getWidth()];
     List<List<IPixel>> list = new ArrayList<>();
-
-    // loop to turn arr[][] into a list of list of IPixel.
-    for (IPixel[] row : arr) {
-      ArrayList<IPixel> rowList = new ArrayList<IPixel>();
-
-      for (IPixel col : row) {
-        rowList.add(col);
+    for (int i = 0; i < raster.getHeight(); i++) {
+      raster.readRow(i, row, 0);
+      List<IPixel> rowList = new ArrayList<>(row.length);
+      for (int argb : row) {
+        rowList.add(new RGBPixel(ArgbUtil.red(argb), ArgbUtil.green(argb), ArgbUtil.blue(argb),
+                PPM_ALPHA));
       }
-
       list.add(rowList);
     }
-
     return list;
   }
 
+  /**
+   * Read an image file in the PPM format, plain (P3) or binary (P6), straight into a packed
+   * raster without making any pixel objects.
+   *
+   * @param filename the path of the file.
+   * @return the raster holding the image.
+   * @throws IllegalArgumentException if the file cannot be read or is not a valid PPM image.
+   */
+  public static IRaster readPPMRaster(String filename) throws IllegalArgumentException {
+    return PpmReader.read(filename, PPM_ALPHA);
+  }
+
+  /**
+   * Read the part of an image file in the PPM format kept by the given options, cropped and
+   * subsampled while it is read, straight into a packed raster.
+   *
+   * @param filename the path of the file.
+   * @param options  the region and subsampling of the image which is kept.
+   * @return the raster holding the kept part of the image.
+   * @throws IllegalArgumentException if the file cannot be read or is not a valid PPM image,
+   *                                  or the options are invalid for it.
+   */
+  public static IRaster readPPMRaster(String filename, ImportOptions options)
+          throws IllegalArgumentException {
+    return PpmReader.read(filename, PPM_ALPHA, options);
+  }
+
   /**
    * Main method used to run the ImageUtil.
    * @param args array of string.
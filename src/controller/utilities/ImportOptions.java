@@ -0,0 +1,163 @@
+package controller.utilities;
+
+import java.awt.Rectangle;
+
+/**
+ * Options for decoding only part of an image when importing it: a region of the source image
+ * to crop to, a subsampling step which keeps every step-th pixel of every step-th row, and a
+ * size the image is subsampled to fit within. Pixels outside of the region, and pixels skipped
+ * by subsampling, are never stored, so a large photo placed on a small collage costs about as
+ * much as the part of it that is kept. Options are immutable, each with method gives back new
+ * options.
+ */
+public class ImportOptions {
+  // decodes the whole image at full size
+  public static final ImportOptions NONE = new ImportOptions(null, 1, 0, 0);
+
+  private final Rectangle region; // null for the whole image
+  private final int step;
+  private final int maxHeight; // 0 when there is no size to fit within
+  private final int maxWidth;
+
+  /**
+   * Private constructor, options are made from NONE with the with methods.
+   */
+  private ImportOptions(Rectangle region, int step, int maxHeight, int maxWidth) {
+    this.region = region;
+    this.step = step;
+    this.maxHeight = maxHeight;
+    this.maxWidth = maxWidth;
+  }
+
+  /**
+   * Gives back these options, cropping the image to the given region first. Like in
+   * ImageReadParam, x and y are the column and row of the region's top-left pixel.
+   *
+   * @param x      the column of the region's left-most pixels
+   * @param y      the row of the region's top pixels
+   * @param width  the width of the region
+   * @param height the height of the region
+   * @return the new options
+   * @throws IllegalArgumentException if x or y are negative or the width or height are not
+   *                                  positive
+   */
+  public ImportOptions withRegion(int x, int y, int width, int height)
+          throws IllegalArgumentException {
+    if (x < 0 || y < 0 || width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Crop region must have a positive size on the image.");
+    }
+    return new ImportOptions(new Rectangle(x, y, width, height), this.step, this.maxHeight,
+            this.maxWidth);
+  }
+
+  /**
+   * Gives back these options, keeping only every step-th pixel of every step-th row.
+   *
+   * @param step the subsampling step, 1 keeps every pixel
+   * @return the new options
+   * @throws IllegalArgumentException if the step is not positive
+   */
+  public ImportOptions withSubsampling(int step) throws IllegalArgumentException {
+    if (step <= 0) {
+      throw new IllegalArgumentException("Subsampling step must be positive.");
+    }
+    return new ImportOptions(this.region, step, this.maxHeight, this.maxWidth);
+  }
+
+  /**
+   * Gives back these options, subsampling the (cropped) image by the smallest step which makes
+   * it fit within the given size, if the subsampling step is not already larger.
+   *
+   * @param maxHeight the most rows the decoded image may have
+   * @param maxWidth  the most pixels each row of the decoded image may have
+   * @return the new options
+   * @throws IllegalArgumentException if the height or width are not positive
+   */
+  public ImportOptions withFit(int maxHeight, int maxWidth) throws IllegalArgumentException {
+    if (maxHeight <= 0 || maxWidth <= 0) {
+      throw new IllegalArgumentException("Cannot fit an image in a size that is not positive.");
+    }
+    return new ImportOptions(this.region, this.step, maxHeight, maxWidth);
+  }
+
+  /**
+   * Parses one import option given to add-image-to-layer: crop=X,Y,WIDTH,HEIGHT,
+   * subsample=STEP, or fit=HEIGHT,WIDTH. These options are given back with it added.
+   *
+   * @param option the option as typed
+   * @return the new options
+   * @throws IllegalArgumentException if the option is not one of these, or its numbers are
+   *                                  invalid
+   */
+  public ImportOptions with(String option) throws IllegalArgumentException {
+    if (option == null) {
+      throw new IllegalArgumentException("Import option with that name does not exist.");
+    }
+    try {
+      if (option.startsWith("crop=")) {
+        int[] n = numbers(option.substring(5), 4);
+        return this.withRegion(n[0], n[1], n[2], n[3]);
+      } else if (option.startsWith("subsample=")) {
+        return this.withSubsampling(Integer.parseInt(option.substring(10)));
+      } else if (option.startsWith("fit=")) {
+        int[] n = numbers(option.substring(4), 2);
+        return this.withFit(n[0], n[1]);
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Import option parameters must be numbers.");
+    }
+    throw new IllegalArgumentException("Import option with that name does not exist.");
+  }
+
+  /**
+   * Gets the region of the source image which is decoded, clipped to the image.
+   *
+   * @param height the height of the source image
+   * @param width  the width of the source image
+   * @return the region, as columns and rows of the source image
+   * @throws IllegalArgumentException if the region does not overlap the image
+   */
+  public Rectangle getRegion(int height, int width) throws IllegalArgumentException {
+    Rectangle whole = new Rectangle(0, 0, width, height);
+    if (this.region == null) {
+      return whole;
+    }
+    Rectangle clipped = this.region.intersection(whole);
+    if (clipped.isEmpty()) {
+      throw new IllegalArgumentException("Crop region is outside of the image.");
+    }
+    return clipped;
+  }
+
+  /**
+   * Gets the subsampling step used for a source region of the given size: the larger of the
+   * step given and the smallest step which makes it fit.
+   *
+   * @param height the height of the source region
+   * @param width  the width of the source region
+   * @return the subsampling step
+   */
+  public int getStep(int height, int width) {
+    int step = this.step;
+    if (this.maxHeight > 0) {
+      step = Math.max(step, (height + this.maxHeight - 1) / this.maxHeight);
+      step = Math.max(step, (width + this.maxWidth - 1) / this.maxWidth);
+    }
+    return step;
+  }
+
+  /**
+   * Private helper parsing the given number of comma-separated numbers.
+   */
+  private static int[] numbers(String str, int count) throws IllegalArgumentException {
+    String[] parts = str.split(",");
+    if (parts.length != count) {
+      throw new IllegalArgumentException("Import option needs " + count + " numbers.");
+    }
+    int[] n = new int[count];
+    for (int i = 0; i < count; i++) {
+      n[i] = Integer.parseInt(parts[i]);
+    }
+    return n;
+  }
+}
@@ -1,15 +1,30 @@
 package controller.utilities;
 
 
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.awt.image.IndexColorModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import javax.imageio.ImageIO;
-import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import model.ArgbUtil;
 import model.IPixel;
+import model.IProject;
+import model.IRaster;
+import model.PackedRaster;
 import model.RGBPixel;
 
 /**
@@ -27,48 +42,172 @@ public class JpegAndPngUtil {
    *                                  during reading, like if the path leads to a ppm image.
    */
   public static List<List<IPixel>> readImage(String path) throws IllegalArgumentException {
-    BufferedImage bufferedImage;
+    IRaster raster = JpegAndPngUtil.readRaster(path);
+    int[] row = new int[raster.getWidth()];
+    List<List<IPixel>> outer = new ArrayList<>();
+    for (int i = 0; i < raster.getHeight(); i++) {
+      // each list is a row of pixels
+      raster.readRow(i, row, 0);
+      List<IPixel> inner = new ArrayList<>(row.length);
+      for (int argb : row) {
+        inner.add(new RGBPixel(ArgbUtil.red(argb), ArgbUtil.green(argb), ArgbUtil.blue(argb),
+                ArgbUtil.alpha(argb)));
+      }
+      outer.add(inner);
+    }
+    return outer;
+  }
 
-    try {
-      bufferedImage = ImageIO.read(new FileImageInputStream(new File(path)));
+  /**
+   * This method reads in a Jpeg or Png image straight into a packed raster, without making any
+   * pixel objects. The decoded pixels are copied out a row at a time, straight from the image's
+   * data buffer for the usual integer and byte image types, and through getRGB otherwise.
+   *
+   * @param path File path as a string
+   * @return the raster holding the image.
+   * @throws IllegalArgumentException if the path leads to a not recognized file or error occurs
+   *                                  during reading, like if the path leads to a ppm image.
+   */
+  public static IRaster readRaster(String path) throws IllegalArgumentException {
+    return JpegAndPngUtil.readRaster(path, ImportOptions.NONE);
+  }
 
+  /**
+   * This method reads in the part of a Jpeg or Png image kept by the given options straight
+   * into a packed raster. The image reader is given the region and subsampling, so pixels
+   * which are not kept are never stored in the decoded image.
+   *
+   * @param path    File path as a string
+   * @param options the region and subsampling of the image which is kept
+   * @return the raster holding the kept part of the image.
+   * @throws IllegalArgumentException if the path leads to a not recognized file or error occurs
+   *                                  during reading, or the options are null or crop to a
+   *                                  region outside of the image.
+   */
+  public static IRaster readRaster(String path, ImportOptions options)
+          throws IllegalArgumentException {
+    if (path == null || options == null) {
+      throw new IllegalArgumentException("File name not recognized.");
+    }
+    File file = new File(path);
+    if (!file.canRead()) {
+      throw new IllegalArgumentException("File name not recognized.");
+    }
+    try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+      Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+      if (readers == null || !readers.hasNext()) {
+        // no reader can decode the file
+        throw new IllegalArgumentException("File name not recognized.");
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        // only the header is read to find the size
+        int height = reader.getHeight(0);
+        int width = reader.getWidth(0);
+        Rectangle region = options.getRegion(height, width);
+        int step = options.getStep(region.height, region.width);
+        ImageReadParam param = reader.getDefaultReadParam();
+        if (region.width != width || region.height != height) {
+          param.setSourceRegion(region);
+        }
+        if (step > 1) {
+          param.setSourceSubsampling(step, step, 0, 0);
+        }
+        return JpegAndPngUtil.toRaster(reader.read(0, param));
+      } finally {
+        reader.dispose();
+      }
     } catch (IOException e) {
       throw new IllegalArgumentException("File name not recognized.");
     }
+  }
 
-    // now get the list<list<IPixel>> from the buffered image
-    List<List<IPixel>> outer = new ArrayList<>();
-
-
-    for (int i = 0; i < bufferedImage.getHeight(); i++) {
-      // each list is a row of pixels
-      List<IPixel> inner = new ArrayList<>();
-
-      for (int j = 0; j < bufferedImage.getWidth(); j++) {
-        // now make pixels from .getRGB and add to
-        int rgb = bufferedImage.getRGB(i, j);
-        // get the individual r, g, b values
-        int r = (rgb >> 16) & 0x000000FF;
-        int g = (rgb >> 8) & 0x000000FF;
-        int b = (rgb) & 0x000000FF;
-
-
-        // get the alpha from the rgb pixel int
-        int a = new IndexColorModel(1, 1, null, null, null).getAlpha(rgb);
-
-
-        // make new rgb pixel
-        IPixel current = new RGBPixel(r, g, b, a);
+  /**
+   * Copies the pixels of a decoded image into a packed raster.
+   *
+   * @param image the decoded image
+   * @return the raster holding the image's pixels as packed ARGB values
+   * @throws IllegalArgumentException if the image is null
+   */
+  public static IRaster toRaster(BufferedImage image) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Cannot read pixels from a null image.");
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    IRaster raster = new PackedRaster(height, width);
+    int[] row = new int[width];
+    WritableRaster data = image.getRaster();
+    int type = image.getType();
+    boolean plain = data.getParent() == null && data.getSampleModelTranslateX() == 0
+            && data.getSampleModelTranslateY() == 0;
 
-        // now add pixel created to the inner list
-        inner.add(current);
+    if (plain && (type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)
+            && data.getDataBuffer() instanceof DataBufferInt) {
+      // the pixels are already packed ints, the rows just need copying
+      int[] ints = ((DataBufferInt) data.getDataBuffer()).getData();
+      int stride = ((SinglePixelPackedSampleModel) data.getSampleModel()).getScanlineStride();
+      int opaque = type == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0;
+      for (int i = 0; i < height; i++) {
+        System.arraycopy(ints, i * stride, row, 0, width);
+        if (opaque != 0) {
+          for (int j = 0; j < width; j++) {
+            row[j] |= opaque;
+          }
+        }
+        raster.writeRow(i, row, 0);
+      }
+    } else if (plain && (type == BufferedImage.TYPE_3BYTE_BGR
+            || type == BufferedImage.TYPE_4BYTE_ABGR)
+            && data.getDataBuffer() instanceof DataBufferByte) {
+      // interleaved bytes, in the order (alpha,) blue, green, red
+      byte[] bytes = ((DataBufferByte) data.getDataBuffer()).getData();
+      int channels = type == BufferedImage.TYPE_4BYTE_ABGR ? 4 : 3;
+      int stride = ((PixelInterleavedSampleModel) data.getSampleModel()).getScanlineStride();
+      for (int i = 0; i < height; i++) {
+        int k = i * stride;
+        for (int j = 0; j < width; j++) {
+          int a = channels == 4 ? bytes[k++] & 0xFF : 255;
+          int b = bytes[k++] & 0xFF;
+          int g = bytes[k++] & 0xFF;
+          int r = bytes[k++] & 0xFF;
+          row[j] = ArgbUtil.pack(r, g, b, a);
+        }
+        raster.writeRow(i, row, 0);
+      }
+    } else {
+      // any other type is converted to ARGB by the image, one row at a time
+      for (int i = 0; i < height; i++) {
+        image.getRGB(0, i, width, 1, row, 0, width);
+        raster.writeRow(i, row, 0);
       }
-
-      outer.add(inner);
-
     }
+    return raster;
+  }
 
-    return outer;
+  /**
+   * Renders the project's image into a new TYPE_INT_ARGB image. The project's layers are
+   * compressed straight into the int array behind the image's data buffer, so no layer or
+   * pixel objects are made for it. Every pixel is made opaque, as the image is shown and saved
+   * without the project's alpha values.
+   *
+   * @param project the project to render
+   * @return the image of the project
+   * @throws IllegalArgumentException if the project is null
+   */
+  public static BufferedImage render(IProject project) throws IllegalArgumentException {
+    if (project == null) {
+      throw new IllegalArgumentException("Cannot render a null project.");
+    }
+    BufferedImage image = new BufferedImage(project.getWidth(), project.getHeight(),
+            BufferedImage.TYPE_INT_ARGB);
+    int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    project.compressInto(data);
+    for (int i = 0; i < data.length; i++) {
+      data[i] |= 0xFF000000;
+    }
+    return image;
   }
 
   /**
@@ -85,6 +224,11 @@ public class JpegAndPngUtil {
     // then take characters before period and reverse it back to just get the extension
     String extension = new StringBuilder(reversedPath[0]).reverse().toString();
 
+    // jpeg has no alpha channel, so only the color of each pixel is written
+    if (!extension.equals("png") && b.getColorModel().hasAlpha()) {
+      b = JpegAndPngUtil.withoutAlpha(b);
+    }
+
     try {
       ImageIO.write(b, extension, new File(path));
 
@@ -95,7 +239,25 @@ public class JpegAndPngUtil {
 
   }
 
-
-
-
+  /**
+   * Private helper giving back an image of just the colors of the given one. A TYPE_INT_ARGB
+   * image shares its data buffer with the image given back, so nothing is copied.
+   */
+  private static BufferedImage withoutAlpha(BufferedImage image) {
+    WritableRaster data = image.getRaster();
+    if (image.getType() == BufferedImage.TYPE_INT_ARGB && data.getParent() == null
+            && data.getDataBuffer() instanceof DataBufferInt) {
+      DirectColorModel rgb = new DirectColorModel(24, 0xFF0000, 0xFF00, 0xFF);
+      int stride = ((SinglePixelPackedSampleModel) data.getSampleModel()).getScanlineStride();
+      WritableRaster shared = Raster.createPackedRaster(data.getDataBuffer(), image.getWidth(),
+              image.getHeight(), stride, rgb.getMasks(), null);
+      return new BufferedImage(rgb, shared, false, null);
+    }
+    BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(),
+            BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = rgb.createGraphics();
+    g.drawImage(image, 0, 0, null);
+    g.dispose();
+    return rgb;
+  }
 }
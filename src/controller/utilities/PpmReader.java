@@ -0,0 +1,304 @@
+package controller.utilities;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import model.IRaster;
+import model.PackedRaster;
+
+/**
+ * Reads plain (P3) and binary (P6) PPM images straight into a packed raster. The file is read
+ * through one reusable byte buffer and tokenized byte by byte, so no strings or pixel objects
+ * are made, and the only large allocation is the raster itself. Comments may appear anywhere
+ * whitespace may, and components are scaled from the file's max value to 0-255.
+ */
+public class PpmReader {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final ReadableByteChannel channel;
+  private final ByteBuffer buffer;
+  private int terminator; // the byte which ended the last number read
+
+  /**
+   * Private constructor, images are read with the static read methods.
+   */
+  private PpmReader(ReadableByteChannel channel) {
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    this.buffer.flip(); // starts out with nothing left to read
+  }
+
+  /**
+   * Reads the PPM image in the given file into a raster, giving every pixel the given alpha.
+   *
+   * @param filename the path of the file
+   * @param alpha    the alpha value given to every pixel, since PPM images have none
+   * @return the raster holding the image
+   * @throws IllegalArgumentException if the file cannot be read, is not a valid PPM image, or
+   *                                  the alpha is not from 0-255
+   */
+  public static IRaster read(String filename, int alpha) throws IllegalArgumentException {
+    return read(filename, alpha, ImportOptions.NONE);
+  }
+
+  /**
+   * Reads the part of the PPM image in the given file kept by the given options into a raster,
+   * giving every pixel the given alpha.
+   *
+   * @param filename the path of the file
+   * @param alpha    the alpha value given to every pixel, since PPM images have none
+   * @param options  the region and subsampling of the image which is kept
+   * @return the raster holding the kept part of the image
+   * @throws IllegalArgumentException if the file cannot be read, is not a valid PPM image, the
+   *                                  alpha is not from 0-255, or the options are null or crop
+   *                                  to a region outside of the image
+   */
+  public static IRaster read(String filename, int alpha, ImportOptions options)
+          throws IllegalArgumentException {
+    if (filename == null) {
+      throw new IllegalArgumentException("File name invalid");
+    }
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      return read(channel, alpha, options);
+    } catch (IOException | InvalidPathException e) {
+      throw new IllegalArgumentException("File name invalid");
+    }
+  }
+
+  /**
+   * Reads a PPM image from the given channel into a raster, giving every pixel the given alpha.
+   * The channel is read up to the end of the image and is not closed.
+   *
+   * @param channel the channel the image is read from
+   * @param alpha   the alpha value given to every pixel, since PPM images have none
+   * @return the raster holding the image
+   * @throws IOException              if the channel cannot be read
+   * @throws IllegalArgumentException if the channel is null, the image is not a valid PPM
+   *                                  image, or the alpha is not from 0-255
+   */
+  public static IRaster read(ReadableByteChannel channel, int alpha)
+          throws IOException, IllegalArgumentException {
+    return read(channel, alpha, ImportOptions.NONE);
+  }
+
+  /**
+   * Reads the part of a PPM image kept by the given options from the given channel into a
+   * raster, giving every pixel the given alpha. The channel is read up to the last row kept and
+   * is not closed.
+   *
+   * @param channel the channel the image is read from
+   * @param alpha   the alpha value given to every pixel, since PPM images have none
+   * @param options the region and subsampling of the image which is kept
+   * @return the raster holding the kept part of the image
+   * @throws IOException              if the channel cannot be read
+   * @throws IllegalArgumentException if the channel or options are null, the image is not a
+   *                                  valid PPM image, the alpha is not from 0-255, or the
+   *                                  options crop to a region outside of the image
+   */
+  public static IRaster read(ReadableByteChannel channel, int alpha, ImportOptions options)
+          throws IOException, IllegalArgumentException {
+    if (options == null) {
+      throw new IllegalArgumentException("Cannot read an image with null options.");
+    }
+    if (channel == null) {
+      throw new IllegalArgumentException("Cannot read an image from a null channel.");
+    }
+    if (alpha < 0 || alpha > 255) {
+      throw new IllegalArgumentException("Alpha must be from 0-255.");
+    }
+    return new PpmReader(channel).readImage(alpha, options);
+  }
+
+  /**
+   * Private helper reading the header and then every pixel of the image.
+   */
+  private IRaster readImage(int alpha, ImportOptions options)
+          throws IOException, IllegalArgumentException {
+    int p = this.next();
+    int kind = this.next();
+    if (p != 'P' || (kind != '3' && kind != '6')) {
+      throw new IllegalArgumentException("Invalid PPM file: should begin with P3 or P6.");
+    }
+    boolean binary = kind == '6';
+    int width = this.nextInt();
+    int height = this.nextInt();
+    int maxValue = this.nextInt();
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid PPM file: width and height must be positive.");
+    }
+    if (maxValue <= 0 || maxValue > 65535) {
+      throw new IllegalArgumentException("Invalid PPM file: max value must be from 1-65535.");
+    }
+    if (binary && !isWhitespace(this.terminator)) {
+      // the binary pixels start right after one whitespace byte
+      throw new IllegalArgumentException("Invalid PPM file: no whitespace before the pixels.");
+    }
+
+    // components are scaled to 0-255 through a table, which is skipped for the usual 255
+    int[] scale = null;
+    if (maxValue != 255) {
+      scale = new int[maxValue + 1];
+      for (int i = 0; i <= maxValue; i++) {
+        scale[i] = (int) ((i * 255L + maxValue / 2) / maxValue);
+      }
+    }
+
+    // only the rows and columns kept by the options are stored
+    Rectangle region = options.getRegion(height, width);
+    int step = options.getStep(region.height, region.width);
+    int outHeight = (region.height + step - 1) / step;
+    int outWidth = (region.width + step - 1) / step;
+    IRaster raster = new PackedRaster(outHeight, outWidth);
+    int[] row = new int[outWidth];
+    int bytesPerSample = maxValue < 256 ? 1 : 2;
+    byte[] rowBytes = binary ? new byte[width * 3 * bytesPerSample] : null;
+    int a = alpha << 24;
+    int lastRow = region.y + (outHeight - 1) * step;
+    // the rows after the last one kept are never read
+    for (int i = 0; i <= lastRow; i++) {
+      boolean keepRow = i >= region.y && (i - region.y) % step == 0;
+      if (binary) {
+        this.readFully(rowBytes);
+        if (!keepRow) {
+          continue;
+        }
+      }
+      for (int j = 0; j < width; j++) {
+        boolean keep = keepRow && j >= region.x && j < region.x + region.width
+                && (j - region.x) % step == 0;
+        int r;
+        int g;
+        int b;
+        if (!binary) {
+          // plain pixels have to be parsed to be skipped
+          r = this.nextInt();
+          g = this.nextInt();
+          b = this.nextInt();
+        } else if (!keep) {
+          continue;
+        } else if (bytesPerSample == 1) {
+          int k = j * 3;
+          r = rowBytes[k] & 0xFF;
+          g = rowBytes[k + 1] & 0xFF;
+          b = rowBytes[k + 2] & 0xFF;
+        } else {
+          // two byte samples are big-endian
+          int k = j * 6;
+          r = ((rowBytes[k] & 0xFF) << 8) | (rowBytes[k + 1] & 0xFF);
+          g = ((rowBytes[k + 2] & 0xFF) << 8) | (rowBytes[k + 3] & 0xFF);
+          b = ((rowBytes[k + 4] & 0xFF) << 8) | (rowBytes[k + 5] & 0xFF);
+        }
+        if (r > maxValue || g > maxValue || b > maxValue) {
+          throw new IllegalArgumentException("Invalid PPM file: component above max value.");
+        }
+        if (!keep) {
+          continue;
+        }
+        if (scale != null) {
+          r = scale[r];
+          g = scale[g];
+          b = scale[b];
+        }
+        row[(j - region.x) / step] = a | (r << 16) | (g << 8) | b;
+      }
+      if (keepRow) {
+        raster.writeRow((i - region.y) / step, row, 0);
+      }
+    }
+    return raster;
+  }
+
+  /**
+   * Private helper reading the next byte, or -1 at the end of the channel.
+   */
+  private int next() throws IOException {
+    if (!this.buffer.hasRemaining() && !this.fill()) {
+      return -1;
+    }
+    return this.buffer.get() & 0xFF;
+  }
+
+  /**
+   * Private helper refilling the buffer from the channel, returning false at its end.
+   */
+  private boolean fill() throws IOException {
+    this.buffer.clear();
+    int n = 0;
+    while (n == 0) {
+      n = this.channel.read(this.buffer);
+    }
+    this.buffer.flip();
+    return n > 0;
+  }
+
+  /**
+   * Private helper filling the given array with the next bytes.
+   */
+  private void readFully(byte[] dst) throws IOException {
+    int done = 0;
+    while (done < dst.length) {
+      if (!this.buffer.hasRemaining() && !this.fill()) {
+        throw new IllegalArgumentException("Invalid PPM file: ended before all pixels.");
+      }
+      int n = Math.min(this.buffer.remaining(), dst.length - done);
+      this.buffer.get(dst, done, n);
+      done += n;
+    }
+  }
+
+  /**
+   * Private helper reading the next non-negative number, skipping any whitespace and comments
+   * before it. The byte after the number is kept in terminator.
+   */
+  private int nextInt() throws IOException {
+    int c = this.next();
+    while (isWhitespace(c) || c == '#') {
+      if (c == '#') {
+        this.skipComment();
+      }
+      c = this.next();
+    }
+    if (c < '0' || c > '9') {
+      throw new IllegalArgumentException(c < 0 ? "Invalid PPM file: ended before all pixels."
+              : "Invalid PPM file: expected a number.");
+    }
+    int n = 0;
+    while (c >= '0' && c <= '9') {
+      n = n * 10 + (c - '0');
+      if (n > 1_000_000_000) {
+        throw new IllegalArgumentException("Invalid PPM file: number is too large.");
+      }
+      c = this.next();
+    }
+    this.terminator = c;
+    if (c == '#') {
+      this.skipComment();
+    } else if (c >= 0 && !isWhitespace(c)) {
+      throw new IllegalArgumentException("Invalid PPM file: expected a number.");
+    }
+    return n;
+  }
+
+  /**
+   * Private helper skipping the rest of a comment, up to and including the end of its line.
+   */
+  private void skipComment() throws IOException {
+    int c = this.next();
+    while (c >= 0 && c != '\n' && c != '\r') {
+      c = this.next();
+    }
+  }
+
+  /**
+   * Private helper determining if a byte is whitespace in a PPM header.
+   */
+  private static boolean isWhitespace(int c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B;
+  }
+}
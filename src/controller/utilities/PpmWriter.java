@@ -0,0 +1,152 @@
+package controller.utilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import model.ArgbUtil;
+import model.ILayer;
+
+/**
+ * Writes a layer out as a PPM image, plain (P3) or binary (P6), one row at a time. The rows
+ * are encoded into one reusable byte buffer which is written to a channel whenever it fills
+ * up, so the memory used does not depend on the size of the image. The plain format is
+ * byte for byte the same as ILayer.getPPM.
+ */
+public class PpmWriter {
+  private static final int BUFFER_SIZE = 1 << 16;
+  // the text of every component, so numbers are never formatted while writing
+  private static final byte[][] DIGITS = new byte[256][];
+
+  static {
+    for (int i = 0; i < 256; i++) {
+      DIGITS[i] = String.valueOf(i).getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer;
+
+  /**
+   * Private constructor, images are written with the static write methods.
+   */
+  private PpmWriter(WritableByteChannel channel) {
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+  }
+
+  /**
+   * Writes the current pixels of the given layer to the file at the given path as a PPM image,
+   * replacing the file if it exists.
+   *
+   * @param image  the layer which is written
+   * @param path   the path of the file
+   * @param binary true for a binary (P6) image, false for a plain (P3) one
+   * @throws IllegalArgumentException if the image or path are null, or the path is invalid
+   * @throws IOException              if the file cannot be written
+   */
+  public static void write(ILayer image, String path, boolean binary)
+          throws IllegalArgumentException, IOException {
+    if (image == null || path == null) {
+      throw new IllegalArgumentException("Cannot write a null image or to a null path.");
+    }
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      write(image, channel, binary);
+    } catch (InvalidPathException e) {
+      throw new IllegalArgumentException("Invalid path to write the image to.");
+    }
+  }
+
+  /**
+   * Writes the current pixels of the given layer to the given channel as a PPM image. The
+   * channel is not closed.
+   *
+   * @param image   the layer which is written
+   * @param channel the channel the image is written to
+   * @param binary  true for a binary (P6) image, false for a plain (P3) one
+   * @throws IllegalArgumentException if the image or channel are null
+   * @throws IOException              if the channel cannot be written to
+   */
+  public static void write(ILayer image, WritableByteChannel channel, boolean binary)
+          throws IllegalArgumentException, IOException {
+    if (image == null || channel == null) {
+      throw new IllegalArgumentException("Cannot write a null image or to a null channel.");
+    }
+    new PpmWriter(channel).writeImage(image, binary);
+  }
+
+  /**
+   * Private helper writing the header and then every row of the image.
+   */
+  private void writeImage(ILayer image, boolean binary) throws IOException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    String header = (binary ? "P6" : "P3") + "\n# " + image.getName() + ".ppm\n"
+            + width + " " + height + "\n255\n";
+    this.put(header.getBytes(StandardCharsets.UTF_8));
+
+    int[] row = new int[width];
+    for (int i = 0; i < height; i++) {
+      image.readRow(i, row, 0);
+      for (int j = 0; j < width; j++) {
+        int argb = row[j];
+        if (binary) {
+          this.reserve(3);
+          this.buffer.put((byte) ArgbUtil.red(argb));
+          this.buffer.put((byte) ArgbUtil.green(argb));
+          this.buffer.put((byte) ArgbUtil.blue(argb));
+        } else {
+          // at most three components of three digits and their separators
+          this.reserve(12);
+          this.buffer.put(DIGITS[ArgbUtil.red(argb)]).put((byte) ' ');
+          this.buffer.put(DIGITS[ArgbUtil.green(argb)]).put((byte) ' ');
+          this.buffer.put(DIGITS[ArgbUtil.blue(argb)]);
+          // the last pixel in a row ends the line
+          this.buffer.put((byte) (j == width - 1 ? '\n' : ' '));
+        }
+      }
+    }
+    this.flush();
+  }
+
+  /**
+   * Private helper adding the given bytes to the buffer, writing it out as it fills up.
+   */
+  private void put(byte[] bytes) throws IOException {
+    int done = 0;
+    while (done < bytes.length) {
+      if (!this.buffer.hasRemaining()) {
+        this.flush();
+      }
+      int n = Math.min(this.buffer.remaining(), bytes.length - done);
+      this.buffer.put(bytes, done, n);
+      done += n;
+    }
+  }
+
+  /**
+   * Private helper making sure the buffer has room for the given number of bytes.
+   */
+  private void reserve(int bytes) throws IOException {
+    if (this.buffer.remaining() < bytes) {
+      this.flush();
+    }
+  }
+
+  /**
+   * Private helper writing everything in the buffer to the channel and emptying it.
+   */
+  private void flush() throws IOException {
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer);
+    }
+    this.buffer.clear();
+  }
+}
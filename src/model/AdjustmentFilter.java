@@ -0,0 +1,183 @@
+package model;
+
+/**
+ * Represents a parameterized adjustment which can be applied to layers like a FilterOption.
+ * Every adjustment maps each color component on its own, so it compiles into a
+ * LookupTableKernel and costs the same per pixel as the component filters. The description of
+ * an adjustment holds its parameters, so it can be saved with a project and read back in with
+ * fromString:
+ * <ul>
+ * <li> levels-BLACK-WHITE, stretching BLACK to 0 and WHITE to 255</li>
+ * <li> gamma-GAMMA, raising each component (from 0-1) to the power 1 / GAMMA</li>
+ * <li> curves-X:Y,X:Y,..., mapping each X to Y and the components in between linearly</li>
+ * </ul>
+ */
+public class AdjustmentFilter implements IFilterOption {
+  private final String descriptor;
+  private final IFilterKernel kernel;
+
+  /**
+   * Private constructor, adjustments are made with the static factory methods.
+   */
+  private AdjustmentFilter(String descriptor, int[] table) {
+    this.descriptor = descriptor;
+    this.kernel = new LookupTableKernel(table);
+  }
+
+  /**
+   * Creates a levels adjustment, which maps components at or below black to 0, at or above
+   * white to 255, and stretches the components in between over 0-255.
+   *
+   * @param black the component which becomes 0
+   * @param white the component which becomes 255
+   * @return the levels adjustment
+   * @throws IllegalArgumentException if black and white are not from 0-255, or if black is
+   *                                  not less than white
+   */
+  public static AdjustmentFilter levels(int black, int white) throws IllegalArgumentException {
+    if (black < 0 || white > 255 || black >= white) {
+      throw new IllegalArgumentException("Levels must have 0 <= black < white <= 255.");
+    }
+    int[] table = new int[256];
+    for (int i = 0; i < 256; i++) {
+      int n = (int) Math.round((i - black) * 255.0 / (white - black));
+      table[i] = Math.max(0, Math.min(255, n));
+    }
+    return new AdjustmentFilter("levels-" + black + "-" + white, table);
+  }
+
+  /**
+   * Creates a gamma adjustment. A gamma above 1 brightens the mid-tones, and a gamma below 1
+   * darkens them, while 0 and 255 are left unchanged.
+   *
+   * @param gamma the gamma of the adjustment
+   * @return the gamma adjustment
+   * @throws IllegalArgumentException if gamma is not a positive number
+   */
+  public static AdjustmentFilter gamma(double gamma) throws IllegalArgumentException {
+    if (!(gamma > 0) || Double.isInfinite(gamma)) {
+      throw new IllegalArgumentException("Gamma must be a positive number.");
+    }
+    int[] table = new int[256];
+    for (int i = 0; i < 256; i++) {
+      table[i] = (int) Math.round(255 * Math.pow(i / 255.0, 1 / gamma));
+    }
+    return new AdjustmentFilter("gamma-" + gamma, table);
+  }
+
+  /**
+   * Creates a curves adjustment from control points, where the component xs[i] becomes ys[i].
+   * Components between two control points are mapped along the line between them, and
+   * components before the first or after the last control point are mapped like it.
+   *
+   * @param xs the components of the control points, in increasing order
+   * @param ys the new values of the components of the control points
+   * @return the curves adjustment
+   * @throws IllegalArgumentException if xs or ys are null, empty, or of different lengths,
+   *                                  if any value is not from 0-255, or if xs is not
+   *                                  strictly increasing
+   */
+  public static AdjustmentFilter curves(int[] xs, int[] ys) throws IllegalArgumentException {
+    if (xs == null || ys == null || xs.length == 0 || xs.length != ys.length) {
+      throw new IllegalArgumentException("Curves need the same number of xs and ys.");
+    }
+    StringBuilder descriptor = new StringBuilder("curves-");
+    for (int i = 0; i < xs.length; i++) {
+      if (xs[i] < 0 || xs[i] > 255 || ys[i] < 0 || ys[i] > 255) {
+        throw new IllegalArgumentException("Curve control points must be from 0-255.");
+      }
+      if (i > 0 && xs[i] <= xs[i - 1]) {
+        throw new IllegalArgumentException("Curve control points must be in increasing order.");
+      }
+      if (i > 0) {
+        descriptor.append(",");
+      }
+      descriptor.append(xs[i]).append(":").append(ys[i]);
+    }
+    int[] table = new int[256];
+    int point = 0;
+    for (int i = 0; i < 256; i++) {
+      while (point < xs.length && xs[point] < i) {
+        point++;
+      }
+      if (point == 0) {
+        table[i] = ys[0];
+      } else if (point == xs.length) {
+        table[i] = ys[xs.length - 1];
+      } else {
+        // between control points point - 1 and point
+        double t = (i - xs[point - 1]) * 1.0 / (xs[point] - xs[point - 1]);
+        table[i] = (int) Math.round(ys[point - 1] + t * (ys[point] - ys[point - 1]));
+      }
+    }
+    return new AdjustmentFilter(descriptor.toString(), table);
+  }
+
+  /**
+   * ToString method converting this adjustment into a string, which includes its parameters.
+   *
+   * @return the descriptor of this AdjustmentFilter
+   */
+  @Override
+  public String toString() {
+    return this.descriptor;
+  }
+
+  /**
+   * From string method converts the description of an adjustment back into an adjustment.
+   * @param str the String which describes the adjustment.
+   * @return the AdjustmentFilter described by the string.
+   * @throws IllegalArgumentException if the string does not describe a valid adjustment.
+   */
+  @Override
+  public AdjustmentFilter fromString(String str) throws IllegalArgumentException {
+    return parse(str);
+  }
+
+  /**
+   * Converts the description of an adjustment, like "gamma-2.2", into that adjustment.
+   * @param str the String which describes the adjustment.
+   * @return the AdjustmentFilter described by the string.
+   * @throws IllegalArgumentException if the string does not describe a valid adjustment.
+   */
+  public static AdjustmentFilter parse(String str) throws IllegalArgumentException {
+    if (str == null) {
+      throw new IllegalArgumentException("Adjustment with that name does not exist.");
+    }
+    try {
+      if (str.startsWith("levels-")) {
+        String[] parts = str.substring(7).split("-");
+        if (parts.length == 2) {
+          return levels(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        }
+      } else if (str.startsWith("gamma-")) {
+        return gamma(Double.parseDouble(str.substring(6)));
+      } else if (str.startsWith("curves-")) {
+        String[] points = str.substring(7).split(",");
+        int[] xs = new int[points.length];
+        int[] ys = new int[points.length];
+        for (int i = 0; i < points.length; i++) {
+          String[] point = points[i].split(":");
+          if (point.length != 2) {
+            throw new IllegalArgumentException("Curve control points must be X:Y.");
+          }
+          xs[i] = Integer.parseInt(point[0]);
+          ys[i] = Integer.parseInt(point[1]);
+        }
+        return curves(xs, ys);
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Adjustment parameters must be numbers.");
+    }
+    throw new IllegalArgumentException("Adjustment with that name does not exist.");
+  }
+
+  /**
+   * Compiles this adjustment into the lookup table kernel which applies it.
+   * @return the kernel for this adjustment.
+   */
+  @Override
+  public IFilterKernel compile() {
+    return this.kernel;
+  }
+}
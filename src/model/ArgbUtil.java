@@ -0,0 +1,151 @@
+package model;
+
+/**
+ * This class contains utility methods for packing the components of a pixel into a single ARGB
+ * integer and back, as used by IRaster, and for converting between packed values and IPixels.
+ * Every packed component is in the range 0-255.
+ */
+public class ArgbUtil {
+  // the components of merge(pix, bgPix) when bgPix is fully transparent, which depend only on
+  // the component and alpha value of pix, indexed by alpha * 256 + component
+  private static final byte[] CLEAR_MERGE = clearMergeTable();
+
+  /**
+   * Packs the given components into a single ARGB integer.
+   *
+   * @param r the red component, from 0-255
+   * @param g the green component, from 0-255
+   * @param b the blue component, from 0-255
+   * @param a the alpha value, from 0-255
+   * @return the packed ARGB value
+   */
+  public static int pack(int r, int g, int b, int a) {
+    return (a << 24) | (r << 16) | (g << 8) | b;
+  }
+
+  /**
+   * Gets the alpha value of a packed ARGB integer.
+   *
+   * @param argb the packed ARGB value
+   * @return the alpha value, from 0-255
+   */
+  public static int alpha(int argb) {
+    return argb >>> 24;
+  }
+
+  /**
+   * Gets the red component of a packed ARGB integer.
+   *
+   * @param argb the packed ARGB value
+   * @return the red component, from 0-255
+   */
+  public static int red(int argb) {
+    return (argb >> 16) & 0xFF;
+  }
+
+  /**
+   * Gets the green component of a packed ARGB integer.
+   *
+   * @param argb the packed ARGB value
+   * @return the green component, from 0-255
+   */
+  public static int green(int argb) {
+    return (argb >> 8) & 0xFF;
+  }
+
+  /**
+   * Gets the blue component of a packed ARGB integer.
+   *
+   * @param argb the packed ARGB value
+   * @return the blue component, from 0-255
+   */
+  public static int blue(int argb) {
+    return argb & 0xFF;
+  }
+
+  /**
+   * Creates an RGB pixel with the components of the given packed ARGB integer.
+   *
+   * @param argb  the packed ARGB value
+   * @param below the pixel which will be below the created pixel, may be null
+   * @return the new RGB pixel
+   */
+  public static IPixel toPixel(int argb, IPixel below) {
+    return new RGBPixel(red(argb), green(argb), blue(argb), alpha(argb), 255, below);
+  }
+
+  /**
+   * Packs the components of the given pixel into a single ARGB integer, the same as
+   * {@code pix.getARGB()}. HSL pixels are converted to RGB, and any component outside of 0-255
+   * is clamped into that range.
+   *
+   * @param pix the pixel to be packed
+   * @return the packed ARGB value of the pixel
+   */
+  public static int fromPixel(IPixel pix) {
+    return pix.getARGB();
+  }
+
+  /**
+   * Merges two packed pixels with exactly the formula used by RGBPixel.merge, as if
+   * {@code pix.merge(bgPix)} was called on RGB pixels with a max value of 255.
+   *
+   * @param pix   the packed pixel which merge is called on
+   * @param bgPix the packed pixel given to merge
+   * @return the packed result of the merge
+   */
+  public static int merge(int pix, int bgPix) {
+    double dA = alpha(bgPix);
+    double aDouble = alpha(pix);
+
+    double aPercent = ((dA / 255) + ((aDouble / 255) * (1 - (dA / 255))));
+
+    int newA = (int) (aPercent * 255);
+    int newR = (int) ((dA / 255) * red(bgPix)
+            + red(pix) * 1.0 * (aDouble / 255) * (1 - (dA / 255)) * (1 / aPercent));
+    int newG = (int) ((dA / 255) * green(bgPix)
+            + green(pix) * 1.0 * (aDouble / 255) * (1 - (dA / 255)) * (1 / aPercent));
+    int newB = (int) ((dA / 255) * blue(bgPix)
+            + blue(pix) * 1.0 * (aDouble / 255) * (1 - (dA / 255)) * (1 / aPercent));
+
+    return pack(newR, newG, newB, newA);
+  }
+
+  /**
+   * Merges a packed pixel with a fully-transparent one, giving exactly what
+   * {@code merge(pix, bgPix)} gives for any bgPix with an alpha value of 0, but through a table
+   * rather than floating-point math. The result does not depend on the color of bgPix.
+   *
+   * @param pix the packed pixel which merge is called on
+   * @return the packed result of the merge
+   */
+  public static int mergeClear(int pix) {
+    int a = alpha(pix);
+    if (a == 0) {
+      // the formula divides by zero, which gives transparent black
+      return merge(pix, 0);
+    }
+    int row = a << 8;
+    return pack(CLEAR_MERGE[row + red(pix)] & 0xFF, CLEAR_MERGE[row + green(pix)] & 0xFF,
+            CLEAR_MERGE[row + blue(pix)] & 0xFF, a);
+  }
+
+  /**
+   * Private helper building the table used by mergeClear with merge itself, so the two always
+   * agree. Each component is merged on its own, and merging with a transparent pixel does not
+   * change the alpha value, unless it is 0.
+   */
+  private static byte[] clearMergeTable() {
+    byte[] table = new byte[256 * 256];
+    for (int a = 1; a < 256; a++) {
+      for (int c = 0; c < 256; c++) {
+        int merged = merge(pack(c, c, c, a), 0);
+        if (alpha(merged) != a || green(merged) != red(merged) || blue(merged) != red(merged)) {
+          throw new IllegalStateException("Merging with a transparent pixel is not per component.");
+        }
+        table[(a << 8) + c] = (byte) red(merged);
+      }
+    }
+    return table;
+  }
+}
@@ -0,0 +1,150 @@
+package model;
+
+/**
+ * This class contains the engines the compositor can blend layers with.
+ * <ul>
+ * <li> exact: blends with ArgbUtil.merge, so every pixel is exactly what merging the layers
+ *      with RGBPixel.merge gives.</li>
+ * <li> fixed-point: keeps each pixel premultiplied by its alpha value, with 16 bits for each
+ *      component, and blends with integer multiplications and shifts only. The one division
+ *      per pixel is made when the result is stored. A single blend is within 1 of merge in
+ *      every component, and blending an opaque pixel is exact. Across a stack of layers merge
+ *      rounds the alpha value and colors down at every step while this engine keeps them, so
+ *      the differences add up: over stacks of up to 64 layers with random alpha values every
+ *      component stays within FIXED_POINT_TOLERANCE (at most 6 was seen, and less than 1 on
+ *      average). Stacks made only of faint layers, with alpha values below about 32, lose much
+ *      of each layer to rounding in merge, and can differ by several times that.</li>
+ * </ul>
+ */
+public class BlendEngines {
+  // the most any component of a pixel blended by the fixed-point engine may differ from merge,
+  // over a stack of layers which are not all faint
+  public static final int FIXED_POINT_TOLERANCE = 8;
+
+  private static final IBlendEngine EXACT = new ExactEngine();
+  private static final IBlendEngine FIXED_POINT = new FixedPointEngine();
+
+  /**
+   * Gets the engine which blends exactly as RGBPixel.merge does.
+   *
+   * @return the exact engine
+   */
+  public static IBlendEngine exact() {
+    return EXACT;
+  }
+
+  /**
+   * Gets the engine which blends premultiplied pixels with fixed-point integer math, within
+   * FIXED_POINT_TOLERANCE of RGBPixel.merge.
+   *
+   * @return the fixed-point engine
+   */
+  public static IBlendEngine fixedPoint() {
+    return FIXED_POINT;
+  }
+
+  /**
+   * Engine whose accumulator is the packed ARGB pixel itself, blended with ArgbUtil.merge.
+   */
+  private static class ExactEngine implements IBlendEngine {
+
+    @Override
+    public long load(int argb) {
+      return argb;
+    }
+
+    @Override
+    public long blend(long acc, int top) {
+      return ArgbUtil.merge((int) acc, top);
+    }
+
+    @Override
+    public long blendClear(long acc) {
+      return ArgbUtil.mergeClear((int) acc);
+    }
+
+    @Override
+    public int store(long acc) {
+      return (int) acc;
+    }
+  }
+
+  /**
+   * Engine whose accumulator holds the alpha value and the premultiplied components of a pixel
+   * in 16 bits each, from the top bits down, all scaled so 65025 (255 * 255) is full. Like
+   * merge, the color of the pixel on top is weighted by its own alpha value and by the alpha
+   * value of the result, and the color below by its alpha value and what the top lets through:
+   * in premultiplied terms, acc = top * alpha(result) + acc * (255 - alpha(top)) / 255. The
+   * divisions by 255 are multiplications and shifts. A fully-transparent accumulator keeps the
+   * components of the pixel it was loaded from, so a lone transparent pixel is stored as it was.
+   */
+  private static class FixedPointEngine implements IBlendEngine {
+
+    @Override
+    public long load(int argb) {
+      long a = ArgbUtil.alpha(argb);
+      if (a == 0) {
+        return argb & 0xFFFFFFL;
+      }
+      return (a * 255) << 48 | (ArgbUtil.red(argb) * a) << 32
+              | (ArgbUtil.green(argb) * a) << 16 | ArgbUtil.blue(argb) * a;
+    }
+
+    @Override
+    public long blend(long acc, int top) {
+      int a = ArgbUtil.alpha(top);
+      if (a == 255) {
+        return this.load(top);
+      }
+      if (a == 0) {
+        return this.blendClear(acc);
+      }
+      long k = 255 - a;
+      long alpha = a * 255 + div255(((acc >>> 48) & 0xFFFF) * k);
+      if ((acc >>> 48) == 0) {
+        // the components of a transparent accumulator are not premultiplied, and count for 0
+        acc = 0;
+      }
+      long r = div65025(ArgbUtil.red(top) * a * alpha) + div255(((acc >>> 32) & 0xFFFF) * k);
+      long g = div65025(ArgbUtil.green(top) * a * alpha) + div255(((acc >>> 16) & 0xFFFF) * k);
+      long b = div65025(ArgbUtil.blue(top) * a * alpha) + div255((acc & 0xFFFF) * k);
+      return alpha << 48 | r << 32 | g << 16 | b;
+    }
+
+    @Override
+    public long blendClear(long acc) {
+      // nothing is added and nothing below is covered, but like merge, a transparent pixel
+      // under a transparent pixel is transparent black
+      return (acc >>> 48) == 0 ? 0 : acc;
+    }
+
+    @Override
+    public int store(long acc) {
+      long alpha = acc >>> 48;
+      if (alpha == 0) {
+        return (int) acc;
+      }
+      // each component is its premultiplied value * 255 / alpha, rounded down. alpha is never
+      // below 255 here, as blending only adds to it in steps of at least that
+      long recip = ((255L << 32) + alpha - 1) / alpha;
+      int r = (int) Math.min(255, (((acc >>> 32) & 0xFFFF) * recip) >>> 32);
+      int g = (int) Math.min(255, (((acc >>> 16) & 0xFFFF) * recip) >>> 32);
+      int b = (int) Math.min(255, ((acc & 0xFFFF) * recip) >>> 32);
+      return ArgbUtil.pack(r, g, b, (int) div255(alpha));
+    }
+
+    /**
+     * Private helper dividing a value below 2^24 by 255, rounding down, without dividing.
+     */
+    private static long div255(long x) {
+      return (x * 0x10101L + 0x10101L) >>> 24;
+    }
+
+    /**
+     * Private helper dividing a value below 2^32 by 65025, rounding down, without dividing.
+     */
+    private static long div65025(long x) {
+      return div255((x * 0x80808081L) >>> 39);
+    }
+  }
+}
@@ -0,0 +1,415 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reads and writes the binary .collage project format. All numbers are big-endian.
+ * <ul>
+ * <li> header: the bytes "COLLAGE\0", then the int format version, project height, width,
+ *      max value and number of layers, then the project's name</li>
+ * <li> layer table: for each layer, bottom-most first, its name, its filter's description,
+ *      its int height and width, and the long offset in the file of its pixels</li>
+ * <li> pixels: for each layer, its original (unfiltered) pixels as packed ARGB ints, row by
+ *      row</li>
+ * </ul>
+ * Strings are an int number of bytes followed by that many bytes of UTF-8. Since the pixels are
+ * stored exactly as rasters hold them, loading a layer maps its part of the file into memory
+ * and copies it straight into the layer's raster, with no parsing. Projects can also be loaded
+ * lazily, where only the header and layer table are read, and each layer's pixels are copied
+ * out of the mapping the first time the layer is used.
+ */
+public class CollageFormat {
+  // the current version of the format, files with a later version are not read
+  public static final int VERSION = 1;
+
+  private static final byte[] MAGIC = {'C', 'O', 'L', 'L', 'A', 'G', 'E', 0};
+  // the most bytes of pixels mapped into memory at once
+  private static final long MAX_MAPPING = 1L << 30;
+
+  /**
+   * Determines if the file at the given path is a binary collage project, by its first bytes.
+   *
+   * @param path the path of the file
+   * @return a boolean which answers the question, "is this file a binary collage project?".
+   *         False if the file cannot be read.
+   */
+  public static boolean isBinaryProject(String path) {
+    if (path == null) {
+      return false;
+    }
+    try (InputStream in = Files.newInputStream(Paths.get(path))) {
+      byte[] start = new byte[MAGIC.length];
+      int read = 0;
+      while (read < start.length) {
+        int n = in.read(start, read, start.length - read);
+        if (n < 0) {
+          return false;
+        }
+        read += n;
+      }
+      return Arrays.equals(start, MAGIC);
+    } catch (IOException | InvalidPathException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Writes a project in the binary format to the given channel. Each layer's original pixels
+   * are written a row at a time, so no copies of the layers are made. The channel is not
+   * closed.
+   *
+   * @param name     the name of the project
+   * @param layers   the layers of the project, bottom-most first
+   * @param maxValue the max value of the project
+   * @param out      the channel the project is written to
+   * @throws IllegalArgumentException if any argument is null or there are no layers
+   * @throws IOException              if the channel cannot be written to
+   */
+  public static void write(String name, List<ILayer> layers, int maxValue,
+                           WritableByteChannel out) throws IllegalArgumentException, IOException {
+    if (name == null || layers == null || out == null || layers.isEmpty()) {
+      throw new IllegalArgumentException("Cannot write a project without a name or layers.");
+    }
+    ILayer bottom = layers.get(0);
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    byte[][] layerNames = new byte[layers.size()][];
+    byte[][] filters = new byte[layers.size()][];
+    long headerSize = MAGIC.length + 5 * 4 + 4 + nameBytes.length;
+    for (int i = 0; i < layers.size(); i++) {
+      layerNames[i] = layers.get(i).getName().getBytes(StandardCharsets.UTF_8);
+      filters[i] = layers.get(i).getFilter().toString().getBytes(StandardCharsets.UTF_8);
+      headerSize += 4 + layerNames[i].length + 4 + filters[i].length + 4 + 4 + 8;
+    }
+    if (headerSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Project has too many layers to be written.");
+    }
+
+    ByteBuffer header = ByteBuffer.allocate((int) headerSize);
+    header.put(MAGIC);
+    header.putInt(VERSION).putInt(bottom.getHeight()).putInt(bottom.getWidth())
+            .putInt(maxValue).putInt(layers.size());
+    header.putInt(nameBytes.length).put(nameBytes);
+    long offset = headerSize;
+    for (int i = 0; i < layers.size(); i++) {
+      ILayer layer = layers.get(i);
+      header.putInt(layerNames[i].length).put(layerNames[i]);
+      header.putInt(filters[i].length).put(filters[i]);
+      header.putInt(layer.getHeight()).putInt(layer.getWidth()).putLong(offset);
+      offset += 4L * layer.getHeight() * layer.getWidth();
+    }
+    header.flip();
+    writeFully(out, header);
+
+    for (ILayer layer : layers) {
+      int[] row = new int[layer.getWidth()];
+      ByteBuffer rowBytes = ByteBuffer.allocate(4 * layer.getWidth());
+      IntBuffer rowInts = rowBytes.asIntBuffer();
+      for (int i = 0; i < layer.getHeight(); i++) {
+        layer.readOriginalRow(i, row, 0);
+        rowInts.clear();
+        rowInts.put(row);
+        rowBytes.clear();
+        writeFully(out, rowBytes);
+      }
+    }
+  }
+
+  /**
+   * Writes a project in the binary format to the file at the given path, replacing the file if
+   * it exists.
+   *
+   * @param name     the name of the project
+   * @param layers   the layers of the project, bottom-most first
+   * @param maxValue the max value of the project
+   * @param path     the path of the file
+   * @throws IllegalArgumentException if any argument is null, there are no layers, or the path
+   *                                  is invalid
+   * @throws IOException              if the file cannot be written
+   */
+  public static void write(String name, List<ILayer> layers, int maxValue, String path)
+          throws IllegalArgumentException, IOException {
+    if (path == null) {
+      throw new IllegalArgumentException("Cannot write a project to a null path.");
+    }
+    Path target;
+    try {
+      target = Paths.get(path).toAbsolutePath();
+    } catch (InvalidPathException e) {
+      throw new IllegalArgumentException("Invalid path to write the project to.");
+    }
+    replaceFile(target, out -> write(name, layers, maxValue, out));
+  }
+
+  /**
+   * Replaces the file at the given path with what the given writer writes. The writer writes
+   * to a new file next to it, which is then moved over the old one, so layers lazily loaded
+   * from the old file can still be read while it is being replaced, and a failed save leaves
+   * the old file as it was.
+   *
+   * @param target the path of the file to be replaced
+   * @param writer writes the new contents of the file
+   * @throws IllegalArgumentException if either argument is null
+   * @throws IOException              if the file cannot be written
+   */
+  public static void replaceFile(Path target, IChannelWriter writer)
+          throws IllegalArgumentException, IOException {
+    if (target == null || writer == null) {
+      throw new IllegalArgumentException("Cannot replace a null file or with a null writer.");
+    }
+    Path dir = target.toAbsolutePath().getParent();
+    Path temp = null;
+    try {
+      FileChannel channel = null;
+      while (channel == null) {
+        // made like any new file, so it gets the default permissions rather than owner-only
+        temp = dir.resolve(target.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+          channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+                  StandardOpenOption.WRITE);
+        } catch (FileAlreadyExistsException e) {
+          temp = null;
+        }
+      }
+      try {
+        writer.write(channel);
+      } finally {
+        channel.close();
+      }
+      if (Files.exists(target)) {
+        // the file keeps the permissions it had
+        PosixFileAttributeView view = Files.getFileAttributeView(target,
+                PosixFileAttributeView.class);
+        if (view != null) {
+          Files.setPosixFilePermissions(temp, view.readAttributes().permissions());
+        }
+      }
+      try {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      if (temp != null) {
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+
+  /**
+   * Loads the binary project in the file at the given path into the given model. Its layers
+   * are made with the model's createLayerImp, given their saved filters, and the model is
+   * started with them through startProject.
+   *
+   * @param path  the path of the file
+   * @param model the model the project is loaded into
+   * @throws IllegalArgumentException if the path or model are null, or the file is not a valid
+   *                                  binary collage project of a version this can read
+   * @throws IOException              if the file cannot be read
+   */
+  public static void load(String path, IProject model)
+          throws IllegalArgumentException, IOException {
+    load(path, model, false);
+  }
+
+  /**
+   * Loads the binary project in the file at the given path into the given model, like
+   * load(path, model). When lazy, only the header and layer table are read now: each layer's
+   * pixels are mapped into memory but not copied into a raster until the layer is first
+   * filtered, composited or exported, so layers which are never used are never loaded.
+   *
+   * @param path  the path of the file
+   * @param model the model the project is loaded into
+   * @param lazy  true to load each layer's pixels the first time they are used, false to load
+   *              them all now
+   * @throws IllegalArgumentException if the path or model are null, or the file is not a valid
+   *                                  binary collage project of a version this can read
+   * @throws IOException              if the file cannot be read
+   */
+  public static void load(String path, IProject model, boolean lazy)
+          throws IllegalArgumentException, IOException {
+    if (path == null || model == null) {
+      throw new IllegalArgumentException("Cannot load a project from a null path or into null.");
+    }
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+      load(channel, model, lazy);
+    } catch (InvalidPathException e) {
+      throw new IllegalArgumentException("Invalid path to load a project from.");
+    }
+  }
+
+  /**
+   * Private helper reading the header and layer table with a buffered stream, and then mapping
+   * each layer's pixels into memory.
+   */
+  private static void load(FileChannel channel, IProject model, boolean lazy)
+          throws IOException {
+    long size = channel.size();
+    DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Channels.newInputStream(channel.position(0))));
+    try {
+      byte[] magic = new byte[MAGIC.length];
+      in.readFully(magic);
+      if (!Arrays.equals(magic, MAGIC)) {
+        throw new IllegalArgumentException("File is not a binary collage project.");
+      }
+      int version = in.readInt();
+      if (version < 1 || version > VERSION) {
+        throw new IllegalArgumentException("Unsupported collage project version " + version
+                + ".");
+      }
+      int height = in.readInt();
+      int width = in.readInt();
+      in.readInt(); // the max value, which is always 255 for packed pixels
+      int count = in.readInt();
+      if (height <= 0 || width <= 0 || count <= 0) {
+        throw new IllegalArgumentException("Invalid collage project: bad size or no layers.");
+      }
+      String name = readString(in, size);
+
+      String[] names = new String[count];
+      IFilterOption[] filters = new IFilterOption[count];
+      long[] offsets = new long[count];
+      for (int i = 0; i < count; i++) {
+        names[i] = readString(in, size);
+        filters[i] = Filters.parse(readString(in, size));
+        int layerHeight = in.readInt();
+        int layerWidth = in.readInt();
+        offsets[i] = in.readLong();
+        if (layerHeight != height || layerWidth != width) {
+          throw new IllegalArgumentException("Invalid collage project: layer " + names[i]
+                  + " does not match the size of the project.");
+        }
+        if (offsets[i] < 0 || offsets[i] + 4L * height * width > size) {
+          throw new IllegalArgumentException("Invalid collage project: layer " + names[i]
+                  + " is past the end of the file.");
+        }
+      }
+
+      MappedPixels[] pixels = new MappedPixels[count];
+      IRaster[] rasters = new IRaster[count];
+      for (int i = 0; i < count; i++) {
+        // a mapping stays valid after its channel is closed, and is only read when copied from
+        pixels[i] = new MappedPixels(channel, offsets[i], height, width);
+        rasters[i] = lazy ? new LazyRaster(height, width, pixels[i])
+                : model.createRaster(height, width);
+      }
+      if (!lazy) {
+        // every layer has its own mapping and raster, so they are copied in parallel
+        FilterExecutor.getDefault().forEachBand(count, height * width, (from, to) -> {
+          for (int i = from; i < to; i++) {
+            pixels[i].copyInto(rasters[i]);
+          }
+        });
+      }
+
+      List<ILayer> layers = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        ILayer layer = model.createLayerImp(names[i], rasters[i]);
+        layer.setFilter(filters[i]);
+        layers.add(layer);
+      }
+      model.startProject(name, layers, height, width);
+    } catch (EOFException e) {
+      throw new IllegalArgumentException("Invalid collage project: file ended early.");
+    }
+  }
+
+  /**
+   * Private helper reading a string, making sure its length fits in the file.
+   */
+  private static String readString(DataInputStream in, long fileSize) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > fileSize) {
+      throw new IllegalArgumentException("Invalid collage project: bad string length.");
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Private helper writing everything left in the buffer to the channel.
+   */
+  private static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+  }
+
+  /**
+   * One layer's pixels mapped into memory, a band of whole rows per mapping, which copies them
+   * into a raster when asked to.
+   */
+  private static class MappedPixels implements IRasterLoader {
+    private final MappedByteBuffer[] bands;
+    private final int bandRows;
+    private final int height;
+    private final int width;
+
+    /**
+     * Maps the pixels of a layer of the given size starting at the given offset in the file.
+     */
+    MappedPixels(FileChannel channel, long offset, int height, int width) throws IOException {
+      long rowBytes = 4L * width;
+      this.bandRows = (int) Math.max(1, Math.min(height, MAX_MAPPING / rowBytes));
+      this.bands = new MappedByteBuffer[(height + this.bandRows - 1) / this.bandRows];
+      this.height = height;
+      this.width = width;
+      for (int i = 0; i < this.bands.length; i++) {
+        long top = (long) i * this.bandRows;
+        long rows = Math.min(this.bandRows, height - top);
+        this.bands[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + top * rowBytes,
+                rows * rowBytes);
+      }
+    }
+
+    /**
+     * Copies the mapped pixels into the given raster, a row at a time.
+     */
+    void copyInto(IRaster raster) {
+      int[] row = new int[this.width];
+      for (int i = 0; i < this.bands.length; i++) {
+        // a view of the band, so copying from several threads does not share a position
+        IntBuffer ints = this.bands[i].duplicate().asIntBuffer();
+        int rows = Math.min(this.bandRows, this.height - i * this.bandRows);
+        for (int r = 0; r < rows; r++) {
+          ints.get(row);
+          raster.writeRow(i * this.bandRows + r, row, 0);
+        }
+      }
+    }
+
+    @Override
+    public IRaster load() {
+      IRaster raster = new PackedRaster(this.height, this.width);
+      this.copyInto(raster);
+      return raster;
+    }
+  }
+}
@@ -19,6 +19,7 @@ public class CollageLayer implements ILayer {
   private IFilterOption filter;
   private final List<List<List<IPixel>>> originalImgs;
   private final List<int[]> coordImgs;
+  private long version; // goes up whenever the original pixels are changed by this layer
 
   /**
    * Constructs a layer for a collage project.
@@ -170,10 +171,9 @@ public class CollageLayer implements ILayer {
       for (int row = 0; row < this.height; row++) {
         for (int col = 0; col < this.width; col++) {
           IPixel current = this.getPixel(row, col);
-          String[] pixSplit = current.toString().split(" ");
-          textPPM.append(pixSplit[0]).append(" ");
-          textPPM.append(pixSplit[1]).append(" ");
-          textPPM.append(pixSplit[2]);
+          textPPM.append(String.valueOf(current.getRed())).append(" ");
+          textPPM.append(String.valueOf(current.getGreen())).append(" ");
+          textPPM.append(String.valueOf(current.getBlue()));
           if (col == this.width - 1) {
             // the case where the pixel is the last in the row
             textPPM.append("\n");
@@ -203,6 +203,66 @@ public class CollageLayer implements ILayer {
     return this.originalPix.get(row).get(col);
   }
 
+  @Override
+  public void readRow(int row, int[] dst, int offset) throws IllegalArgumentException {
+    this.readRow(row, 0, dst, offset, this.width);
+  }
+
+  @Override
+  public void readRow(int row, int col, int[] dst, int offset, int length)
+          throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || length < 0 || col > this.width - length) {
+      throw new IllegalArgumentException("Part of a row is out-of-bounds for this layer.");
+    }
+    if (dst == null || offset < 0 || dst.length - offset < length) {
+      throw new IllegalArgumentException("Array cannot hold the pixels at the given offset.");
+    }
+    List<IPixel> current = this.currentPix.get(row);
+    for (int i = 0; i < length; i++) {
+      dst[offset + i] = current.get(col + i).getARGB();
+    }
+  }
+  /**
+   * Every pixel of a collage layer is stored.
+   */
+  @Override
+  public boolean isEmpty(int row, int col, int length) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || length < 0 || col > this.width - length) {
+      throw new IllegalArgumentException("Part of a row is out-of-bounds for this layer.");
+    }
+    return false;
+  }
+
+  @Override
+  public boolean isOpaque(int row, int col, int length) throws IllegalArgumentException {
+    return this.isEmpty(row, col, length);
+  }
+
+  @Override
+  public boolean isClear(int row, int col, int length) throws IllegalArgumentException {
+    return this.isEmpty(row, col, length);
+  }
+
+  @Override
+  public int getFillValue() {
+    return 0;
+  }
+
+  @Override
+  public void readOriginalRow(int row, int[] dst, int offset) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height) {
+      throw new IllegalArgumentException("Row value is out-of-bounds for this layer.");
+    }
+    if (dst == null || offset < 0 || dst.length - offset < this.width) {
+      throw new IllegalArgumentException("Array cannot hold a full row at the given offset.");
+    }
+    List<IPixel> original = this.originalPix.get(row);
+    for (int col = 0; col < this.width; col++) {
+      dst[offset + col] = original.get(col).getARGB();
+    }
+  }
+
+
   @Override
   public int getHeight() {
     return this.height;
@@ -230,26 +290,43 @@ public class CollageLayer implements ILayer {
       }
     }
     // the case where the user wants to see some altered version of the original pixels
-    // assigning the currently displayed pixels to a new ArrayList
-    this.currentPix = new ArrayList<>();
+    // filters which only look at the pixel itself are compiled once and run from their tables
+    IFilterKernel kernel = f.compile();
+    boolean pixelLocal = !kernel.readsBelow();
+    // each filtered row only reads the original pixels, so bands of rows are filtered in
+    // parallel and put back together in order
+    List<List<IPixel>> newRows = new ArrayList<>();
     for (int row = 0; row < this.height; row++) {
-      // creating the new row to be added to the currently displayed pixels
-      List<IPixel> newRow = new ArrayList<>();
-      //the row of the original pixels which corresponds to the row index
-      List<IPixel> origRow = this.originalPix.get(row);
-      for (int col = 0; col < this.width; col++) {
-        // creating a copy of the original pixel at the column index, then applying the
-        // given filter to it
-        IPixel newPix = origRow.get(col).copy();
-        newPix.apply(f);
-        // adding the filtered copy of the original pixel to the new row of currently
-        // displayed pixels
-        newRow.add(newPix);
-      }
-      // adding the row of newly filtered original pixels to the 2d list of currently
-      // displayed pixels
-      currentPix.add(newRow);
+      newRows.add(null);
     }
+    FilterExecutor.getDefault().forEachBand(this.height, this.width, (fromRow, toRow) -> {
+      for (int row = fromRow; row < toRow; row++) {
+        // creating the new row to be added to the currently displayed pixels
+        List<IPixel> newRow = new ArrayList<>();
+        //the row of the original pixels which corresponds to the row index
+        List<IPixel> origRow = this.originalPix.get(row);
+        for (int col = 0; col < this.width; col++) {
+          IPixel origPix = origRow.get(col);
+          IPixel newPix;
+          if (pixelLocal && origPix.isRGB() && origPix.getMaxValue() == 255) {
+            newPix = ArgbUtil.toPixel(kernel.apply(origPix.getARGB(), 0),
+                    origPix.getPixelBelow());
+          } else {
+            // creating a copy of the original pixel at the column index, then applying the
+            // given filter to it
+            newPix = origPix.copy();
+            newPix.apply(f);
+          }
+          // adding the filtered copy of the original pixel to the new row of currently
+          // displayed pixels
+          newRow.add(newPix);
+        }
+        // each band only sets its own rows
+        newRows.set(row, newRow);
+      }
+    });
+    // assigning the rows of newly filtered original pixels as the currently displayed pixels
+    this.currentPix = newRows;
   }
 
   @Override
@@ -266,6 +343,33 @@ public class CollageLayer implements ILayer {
     return this.currentPix.get(row).get(col);
   }
 
+  @Override
+  public long getVersion() {
+    return this.version;
+  }
+
+  /**
+   * The original pixels of this layer are shared with whoever calls getOriginalPixel, so they
+   * can change without the layer knowing, and filtering is never skipped.
+   */
+  @Override
+  public boolean isFiltered(IFilterOption f) {
+    return false;
+  }
+
+  /**
+   * For the same reason, all of the pixels of this layer are always reported as changed.
+   */
+  @Override
+  public PixelRect drainChangedRegion() {
+    return PixelRect.of(this.height, this.width);
+  }
+
+  @Override
+  public PixelRect getContentBounds() {
+    return PixelRect.of(this.height, this.width);
+  }
+
   @Override
   public IFilterOption getFilter() {
     return this.filter;
@@ -273,19 +377,18 @@ public class CollageLayer implements ILayer {
 
   @Override
   public String toString() {
-    String str = this.name + " " + this.filter.toString() + "\n";
+    StringBuilder str = new StringBuilder();
+    str.append(this.name).append(" ").append(this.filter.toString()).append("\n");
 
     for (List<IPixel> pix : currentPix) {
-
-
       for (IPixel pix2 : pix) {
-        str = str + pix2.toString();
+        str.append(pix2.toString());
       }
-
     }
-    return str;
+    return str.toString();
   }
 
+
   @Override
   public List<List<IPixel>> getPixelArrayCopy() {
     List<List<IPixel>> list = new ArrayList<>();
@@ -299,6 +402,17 @@ public class CollageLayer implements ILayer {
     return list;
   }
 
+  @Override
+  public IRaster getRasterCopy() {
+    IRaster raster = new PackedRaster(this.height, this.width);
+    for (int i = 0; i < this.height; i++) {
+      for (int k = 0; k < this.width; k++) {
+        raster.setPixel(i, k, ArgbUtil.fromPixel(this.getOriginalPixel(i, k)));
+      }
+    }
+    return raster;
+  }
+
 
   @Override
   public void addImg(List<List<IPixel>> img, int x, int y) throws IllegalArgumentException {
@@ -312,6 +426,8 @@ public class CollageLayer implements ILayer {
               + " and within the layer.");
     }
 
+    // counted before merging, since a failed image can still change some pixels
+    this.version++;
     try {
       for (int i = 0; i < img.size(); i++) {
 
@@ -330,6 +446,23 @@ public class CollageLayer implements ILayer {
     }
   }
 
+  @Override
+  public void addRasterImg(IRaster img, int x, int y) throws IllegalArgumentException {
+    if (img == null) {
+      throw new IllegalArgumentException("Cannot use null as an image.");
+    }
+    // turn the raster into rows of pixels so it can be merged like any other image
+    List<List<IPixel>> rows = new ArrayList<>();
+    for (int i = 0; i < img.getHeight(); i++) {
+      List<IPixel> row = new ArrayList<>();
+      for (int k = 0; k < img.getWidth(); k++) {
+        row.add(ArgbUtil.toPixel(img.getPixel(i, k), null));
+      }
+      rows.add(row);
+    }
+    this.addImg(rows, x, y);
+  }
+
   @Override
   public void setFilter(IFilterOption f) {
     this.filter = f;
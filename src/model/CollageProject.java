@@ -1,5 +1,7 @@
 package model;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -17,6 +19,15 @@ public class CollageProject implements IProject {
   private int width;
   private int maxPixel;
   private boolean started;
+  private final LayerCompositor compositor = new LayerCompositor();
+  private long filterCacheHits;
+  private long filterCacheMisses;
+  private int[] composited; // the last image made by compressToImage, or null
+  private List<ILayer> compositedLayers; // the layers composited was made from
+  private int[] below; // the layers under index belowTop blended together, or null
+  private int belowTop; // the index of the lowest layer not blended into below
+  private int lastEdited; // the lowest layer which changed in the last update of composited
+  private final ProjectJournal journal; // the edits made since the project was last saved
 
   /**
    * Main constructor for Collage Project. Creates a collage project with the
@@ -38,6 +49,7 @@ public class CollageProject implements IProject {
       throw new IllegalArgumentException("Name cannot be null.");
     }
     this.started = false;
+    this.journal = new ProjectJournal();
   }
 
   /**
@@ -61,6 +73,7 @@ public class CollageProject implements IProject {
       throw new IllegalArgumentException("Name cannot be null.");
     }
     this.started = false;
+    this.journal = new ProjectJournal();
   }
 
   /**
@@ -81,6 +94,7 @@ public class CollageProject implements IProject {
     this.width = width;
     this.maxPixel = 255; // max ppm pixel amount
     this.started = false;
+    this.journal = new ProjectJournal();
   }
 
 
@@ -97,10 +111,9 @@ public class CollageProject implements IProject {
 
       String name = this.layers.get(i).getName();
       IFilterOption filter = this.layers.get(i).getFilter();
-      List<List<IPixel>> pixels = this.layers.get(i).getPixelArrayCopy();
+      IRaster pixels = this.layers.get(i).getRasterCopy();
 
-      ILayer current = new CollageLayer(name, pixels, filter,
-              this.layers.get(i).getHeight(), this.layers.get(i).getWidth());
+      ILayer current = new RasterLayer(name, pixels, filter);
 
 
       list.add(current);
@@ -120,17 +133,25 @@ public class CollageProject implements IProject {
    * @return this collage project as a text format, represented as a String.
    */
   public String formatProject() {
-    String format = this.name + "\n" + this.width + " " + this.height + "\n"
-            + this.maxPixel + "\n";
+    StringBuilder format = new StringBuilder();
+    format.append(this.name).append("\n").append(this.width).append(" ").append(this.height)
+            .append("\n").append(this.maxPixel).append("\n");
 
     for (ILayer layer : this.layers) {
-
-      format = format + layer.toString();
-
+      format.append(layer.toString());
     }
 
-    return format;
+    return format.toString();
+  }
 
+  @Override
+  public void writeProject(WritableByteChannel out) throws IOException {
+    CollageFormat.write(this.name, this.layers, this.maxPixel, out);
+  }
+
+  @Override
+  public ProjectJournal getJournal() {
+    return this.journal;
   }
 
   @Override
@@ -140,15 +161,10 @@ public class CollageProject implements IProject {
         throw new IllegalArgumentException("A layer with the given name already exists.");
       }
     }
-    List<List<IPixel>> newLayerPix = new ArrayList<>();
-    for (int row = 0; row < this.height; row++) {
-      List<IPixel> newRow = new ArrayList<>();
-      for (int col = 0; col < this.width; col++) {
-        newRow.add(new RGBPixel(255, 255, 255, 0));
-      }
-      newLayerPix.add(newRow);
-    }
-    this.layers.add(new CollageLayer(name, newLayerPix, this.height, this.width));
+    IRaster newLayerPix = new SolidRaster(this.height, this.width,
+            ArgbUtil.pack(255, 255, 255, 0));
+    this.layers.add(new RasterLayer(name, newLayerPix, FilterOption.NORM));
+    this.journal.addLayer(name);
   }
 
 
@@ -160,6 +176,56 @@ public class CollageProject implements IProject {
     }
     // img height can be tracked
     int imgHeight = img.size();
+    // the case where the image's rows do not all have the same width
+    int imgWidth = img.get(0).size();
+    for (int i = 1; i < imgHeight; i++) {
+      if (img.get(i).size() != imgWidth) {
+        throw new IllegalArgumentException("Image rows do not have the same amount of pixels.");
+      }
+    }
+    ILayer addTo = this.findPlacementLayer(layerName, imgHeight, imgWidth, x, y);
+    // add that image to the given layer
+    addTo.addImg(img, x, y);
+    if (!this.journal.isRecording()) {
+      // the journal would not keep the image, so it is not copied
+      return;
+    }
+    IRaster placed = new PackedRaster(imgHeight, imgWidth);
+    for (int i = 0; i < imgHeight; i++) {
+      for (int j = 0; j < imgWidth; j++) {
+        placed.setPixel(i, j, ArgbUtil.fromPixel(img.get(i).get(j)));
+      }
+    }
+    this.journal.placeImage(layerName, placed, x, y);
+  }
+
+  @Override
+  public void addLayerRaster(String layerName, IRaster img, int x, int y)
+          throws IllegalArgumentException {
+    if (layerName == null || img == null) {
+      throw new IllegalArgumentException("Cannot have a null layer name or image.");
+    }
+    ILayer addTo = this.findPlacementLayer(layerName, img.getHeight(), img.getWidth(), x, y);
+    // add that image to the given layer
+    addTo.addRasterImg(img, x, y);
+    this.journal.placeImage(layerName, img, x, y);
+  }
+
+  /**
+   * Finds the layer with the given name, making sure that an image of the given size can be
+   * placed on it at the given coordinate.
+   *
+   * @param layerName the name of the layer which the image is being added to
+   * @param imgHeight the height of the image
+   * @param imgWidth  the width of the image
+   * @param x the x-coordinate within the layer, of the image's top-left corner location
+   * @param y the y-coordinate within the layer, of the image's top-left corner location
+   * @return the layer which the image can be added to
+   * @throws IllegalArgumentException if no layer has the given name, or if the image cannot
+   *                                  be placed on the layer at the given coordinate
+   */
+  private ILayer findPlacementLayer(String layerName, int imgHeight, int imgWidth, int x, int y)
+          throws IllegalArgumentException {
     // layer of interest is initialized to the bottom-most layer
     ILayer addTo = this.layers.get(0);
     boolean match = false;
@@ -178,13 +244,6 @@ public class CollageProject implements IProject {
     if (x > addTo.getWidth() || y > addTo.getHeight()) {
       throw new IllegalArgumentException("Provided x/y coordinate is not on the layer.");
     }
-    // the case where the image's rows do not all have the same width
-    int imgWidth = img.get(0).size();
-    for (int i = 1; i < imgHeight; i++) {
-      if (img.get(i).size() != imgWidth) {
-        throw new IllegalArgumentException("Image rows do not have the same amount of pixels.");
-      }
-    }
     // the case where the image is bigger than the layer
     if (imgHeight * imgWidth > addTo.getHeight() * addTo.getWidth()) {
       throw new IllegalArgumentException("Layer is not big enough to support this image.");
@@ -195,8 +254,7 @@ public class CollageProject implements IProject {
       throw new IllegalArgumentException("Image must be placed in a different location to fit it "
               + " onto the layer.");
     }
-    // add that image to the given layer
-    addTo.addImg(img, x, y);
+    return addTo;
   }
 
 
@@ -209,54 +267,150 @@ public class CollageProject implements IProject {
    * @return the ILayer background
    */
   private ILayer makeBackgroundLayer(int height, int width) {
-
-    List<List<IPixel>> list = new ArrayList<>();
-
-    RGBPixel whitePix = new RGBPixel(255, 255, 255, 1);
-
-    for (int i = 0; i < height; i++) {
-
-      ArrayList<IPixel> inner = new ArrayList();
-
-      for (int j = 0; j < width; j++) {
-        inner.add(whitePix.copy());
-      }
-      list.add(inner);
-    }
-    return new CollageLayer("background", list, height, width);
+    IRaster white = new SolidRaster(height, width, ArgbUtil.pack(255, 255, 255, 1));
+    return new RasterLayer("background", white, FilterOption.NORM);
   }
 
   @Override
   public ILayer compressToImage(String name) {
-    // apply each layer's filter to each layer in the Project's list
-    for (ILayer layer : this.layers) {
-      layer.applyFilter(layer.getFilter());
+    if (this.layers.size() == 1) {
+      this.filterLayers();
+      this.layers.get(0).drainChangedRegion();
+      return this.layers.get(0);
+    }
+    else {
+      this.updateComposite();
+      // the returned image is a copy so later updates do not change it
+      ILayer bottom = this.layers.get(1);
+      return new RasterLayer("final image", new PackedRaster(bottom.getHeight(),
+              bottom.getWidth(), this.composited.clone()), FilterOption.NORM);
     }
 
+  }
+
+  @Override
+  public void compressInto(int[] out) throws IllegalArgumentException {
+    ILayer bottom = this.layers.get(this.layers.size() == 1 ? 0 : 1);
+    int h = bottom.getHeight();
+    int w = bottom.getWidth();
+    if (out == null || out.length < (long) h * w) {
+      throw new IllegalArgumentException("Array is too small to hold the project's image.");
+    }
     if (this.layers.size() == 1) {
-      return this.layers.get(0);
+      this.filterLayers();
+      this.layers.get(0).drainChangedRegion();
+      for (int row = 0; row < h; row++) {
+        bottom.readRow(row, out, row * w);
+      }
     }
     else {
+      this.updateComposite();
+      System.arraycopy(this.composited, 0, out, 0, h * w);
+    }
+  }
 
-      ILayer finalImg = new CollageLayer("final image",
-              this.layers.get(1).getPixelArrayCopy(), this.height, this.width);
-      // get at layers at index 1 since we don't want background, so we start at index 1.
+  @Override
+  public int getHeight() {
+    return this.layers.get(0).getHeight();
+  }
 
+  @Override
+  public int getWidth() {
+    return this.layers.get(0).getWidth();
+  }
 
-      // now we combine the bottom two layers recursively until all layers have been combined.
+  /**
+   * Private helper applying each layer's filter to it, unless the layer is already filtered
+   * with it and has not changed since.
+   */
+  private void filterLayers() {
+    for (ILayer layer : this.layers) {
+      if (layer.isFiltered(layer.getFilter())) {
+        this.filterCacheHits++;
+      } else {
+        layer.applyFilter(layer.getFilter());
+        this.filterCacheMisses++;
+        // images placed on the layer from now on are merged with the pixels filtered here, so
+        // replaying the journal has to filter them at the same point
+        this.journal.applyFilter(layer.getName(), layer.getFilter());
+      }
+    }
+  }
 
-      // start i at 1 since finalImg is a layer with the 1st layer already
-      for (int i = 2; i < this.layers.size(); i++) {
-        // mergeLayers will merge from bottom up with the layer it is called on being the bottom one
-        finalImg = finalImg.mergeLayers(this.layers.get(i));
+  /**
+   * Private helper bringing the composited image of every layer but the background up to date,
+   * blending again only the pixels which changed unless the stack of layers itself changed.
+   * The layers under the one being edited, which is usually the layer-of-interest, are kept
+   * blended together, so an edit only blends the layers from the edited one up over them.
+   */
+  private void updateComposite() {
+    this.filterLayers();
+    // the parts of the layers which changed, and the lowest layer which changed
+    PixelRect dirty = PixelRect.EMPTY;
+    int edited = this.layers.size();
+    for (int i = 0; i < this.layers.size(); i++) {
+      PixelRect changed = this.layers.get(i).drainChangedRegion();
+      if (!changed.isEmpty()) {
+        dirty = dirty.union(changed);
+        edited = Math.min(edited, Math.max(i, 1));
       }
+    }
 
-      return finalImg;
+    // start at index 1 since we don't want background in the image.
+    // every layer from there up is blended into one buffer in a single pass.
+    ILayer bottom = this.layers.get(1);
+    int h = bottom.getHeight();
+    int w = bottom.getWidth();
+    if (this.composited == null || this.composited.length != h * w
+            || !this.layers.equals(this.compositedLayers)) {
+      // the stack of layers itself changed, so the whole image is made again
+      this.composited = new int[h * w];
+      this.compositor.composite(this.layers, 1, h, w, this.composited);
+      this.compositedLayers = new ArrayList<>(this.layers);
+      this.below = null;
+      this.lastEdited = 0;
+      return;
+    }
+    if (dirty.isEmpty()) {
+      return;
     }
 
+    // only the pixels which changed in some layer are blended again
+    PixelRect region = dirty.clip(h, w);
+    if (this.below != null && edited < this.belowTop) {
+      // a layer under the blended ones changed, so they are blended again where it changed
+      this.compositor.composite(this.layers, 1, this.belowTop, h, w, this.below, region, null);
+    }
+    if (edited >= 2 && edited == this.lastEdited && edited != this.belowTop) {
+      // the same layer was edited twice in a row, so the layers under it are blended once
+      // to be reused by its next edits
+      if (this.below == null) {
+        this.below = new int[h * w];
+      }
+      this.compositor.composite(this.layers, 1, edited, h, w, this.below,
+              PixelRect.of(h, w), null);
+      this.belowTop = edited;
+    }
+    this.lastEdited = edited;
+    if (this.below != null) {
+      this.compositor.composite(this.layers, this.belowTop, this.layers.size(), h, w,
+              this.composited, region, this.below);
+    } else {
+      this.compositor.composite(this.layers, 1, h, w, this.composited, region);
+    }
   }
 
 
+  @Override
+  public long getFilterCacheHits() {
+    return this.filterCacheHits;
+  }
+
+  @Override
+  public long getFilterCacheMisses() {
+    return this.filterCacheMisses;
+  }
+
   @Override
   public void applyFilterToCertainLayer(IFilterOption f, String s) throws IllegalArgumentException {
 
@@ -277,6 +431,7 @@ public class CollageProject implements IProject {
 
     // finally, we apply the given filter to the layer.
     layer.applyFilter(f);
+    this.journal.applyFilter(s, f);
   }
 
   @Override
@@ -297,43 +452,41 @@ public class CollageProject implements IProject {
     }
     // finally, we apply the given filter to the layer.
     layer.setFilter(f);
+    this.journal.setFilter(s, f);
   }
 
   @Override
   public void startProject(String name, int height, int width)
           throws IllegalStateException, IllegalArgumentException {
-    if (!this.started) {
-      throw new IllegalStateException("Cannot start a project which has already been started.");
-    }
-    if (name == null) {
-      throw new IllegalArgumentException("Cannot start a project with a null name.");
-    }
     if (height <= 0 || width <= 0) {
       throw new IllegalArgumentException("Height and width must be positive to start a project.");
     }
-    this.started = true;
-    this.name = name;
-    this.height = height;
-    this.width = width;
+    // a new project starts with only a background layer of its own size
+    this.startProject(name, new ArrayList<>(Arrays.asList(this.makeBackgroundLayer(height,
+            width))), height, width);
   }
 
   @Override
   public void startProject(String name, List<ILayer> layers, int height, int width)
           throws IllegalStateException, IllegalArgumentException {
-    if (!this.started) {
-      throw new IllegalStateException("Cannot start a project which has already been started.");
-    }
     if (name == null) {
       throw new IllegalArgumentException("Cannot start a project with a null name.");
     }
     if (height <= 0 || width <= 0) {
       throw new IllegalArgumentException("Height and width must be positive to start a project.");
     }
+    // the project started before, if any, is replaced, along with everything made from it
     this.started = true;
+    this.journal.reset();
     this.name = name;
     this.layers = layers;
     this.height = height;
     this.width = width;
+    this.composited = null;
+    this.compositedLayers = null;
+    this.below = null;
+    this.belowTop = 0;
+    this.lastEdited = 0;
   }
 
   @Override
@@ -349,13 +502,23 @@ public class CollageProject implements IProject {
   @Override
   public ILayer createLayerImp(String name, List<List<IPixel>> pix, int height, int width)
           throws IllegalArgumentException {
-    return new CollageLayer(name, pix, height, width);
+    return new RasterLayer(name, pix, height, width);
   }
 
   @Override
   public IPixel createRGBA(int r, int g, int b, int a) {
     return new RGBPixel(r, g, b, a);
   }
+
+  @Override
+  public IRaster createRaster(int height, int width) throws IllegalArgumentException {
+    return new TiledRaster(height, width);
+  }
+
+  @Override
+  public ILayer createLayerImp(String name, IRaster pix) throws IllegalArgumentException {
+    return new RasterLayer(name, pix, FilterOption.NORM);
+  }
 }
 
 
@@ -0,0 +1,308 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Loads projects saved in the text format of CollageProject.formatProject: the project's name
+ * on its own line, its width and height, its max value, and then for each layer its name and
+ * filter on one line followed by one line of "r g b a" for each of its pixels. Every layer
+ * takes the same number of lines, so the file is first scanned for the start of each layer,
+ * without parsing anything, and then the layers are decoded at the same time on the
+ * FilterExecutor's pool. Each decoding layer reads its part of the file through its own small
+ * buffer, so besides the layers themselves the memory used is a buffer per worker thread.
+ */
+public class CollageTextFormat {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Loads the text project in the file at the given path into the given model. Its layers are
+   * made with the model's createLayerImp, given their saved filters, and the model is started
+   * with them, in the order they were saved, through startProject.
+   *
+   * @param path  the path of the file
+   * @param model the model the project is loaded into
+   * @throws IllegalArgumentException if the path or model are null, or the file is not a valid
+   *                                  text collage project
+   * @throws IOException              if the file cannot be read
+   */
+  public static void load(String path, IProject model)
+          throws IllegalArgumentException, IOException {
+    if (path == null || model == null) {
+      throw new IllegalArgumentException("Cannot load a project from a null path or into null.");
+    }
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+      load(channel, model);
+    } catch (InvalidPathException e) {
+      throw new IllegalArgumentException("Invalid path to load a project from.");
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Private helper reading the header, finding where each layer starts, and decoding the
+   * layers in parallel.
+   */
+  private static void load(FileChannel channel, IProject model) throws IOException {
+    long size = channel.size();
+    RangeReader header = new RangeReader(channel, 0, size);
+    String name = header.nextLine();
+    int width = header.nextInt();
+    int height = header.nextInt();
+    header.nextInt(); // the max value, which is always 255 for packed pixels
+    header.finishLine();
+    if (name.isEmpty() || height <= 0 || width <= 0) {
+      throw new IllegalArgumentException("Invalid collage project: bad name or size.");
+    }
+
+    long[] starts = index(channel, header.position(), size, 1 + (long) height * width);
+    int count = starts.length - 1;
+    if (count == 0) {
+      throw new IllegalArgumentException("Invalid collage project: no layers.");
+    }
+
+    ILayer[] layers = new ILayer[count];
+    FilterExecutor.getDefault().forEachBand(count, height * width, (from, to) -> {
+      for (int k = from; k < to; k++) {
+        try {
+          layers[k] = decode(new RangeReader(channel, starts[k], starts[k + 1]), model,
+                  height, width);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    });
+    model.startProject(name, new ArrayList<>(Arrays.asList(layers)), height, width);
+  }
+
+  /**
+   * Private helper scanning the file from the given position for the start of each layer,
+   * which is every given number of lines. The last entry is the end of the file.
+   */
+  private static long[] index(FileChannel channel, long from, long size, long linesPerLayer)
+          throws IOException {
+    List<Long> starts = new ArrayList<>();
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    long position = from;
+    long lines = 0;
+    boolean blank = true; // whether the current layer has only whitespace so far
+    long layerStart = from;
+    while (position < size) {
+      buffer.clear();
+      int n = channel.read(buffer, position);
+      if (n < 0) {
+        break;
+      }
+      byte[] bytes = buffer.array();
+      for (int i = 0; i < n; i++) {
+        byte c = bytes[i];
+        if (c == '\n') {
+          lines++;
+          if (lines == linesPerLayer) {
+            starts.add(layerStart);
+            layerStart = position + i + 1;
+            lines = 0;
+            blank = true;
+          }
+        } else if (blank && !isWhitespace(c)) {
+          blank = false;
+        }
+      }
+      position += n;
+    }
+    if (!blank) {
+      // a layer with no newline after its last pixel
+      if (lines != linesPerLayer - 1) {
+        throw new IllegalArgumentException("Invalid collage project: a layer is missing pixels.");
+      }
+      starts.add(layerStart);
+      layerStart = size;
+    }
+    long[] result = new long[starts.size() + 1];
+    for (int i = 0; i < starts.size(); i++) {
+      result[i] = starts.get(i);
+    }
+    result[starts.size()] = layerStart;
+    return result;
+  }
+
+  /**
+   * Private helper decoding one layer: its name and filter, and then its pixels.
+   */
+  private static ILayer decode(RangeReader in, IProject model, int height, int width)
+          throws IOException {
+    String layerName = in.nextToken();
+    String filter = in.nextToken();
+    IRaster pixels = model.createRaster(height, width);
+    int[] row = new int[width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        int r = in.nextInt();
+        int g = in.nextInt();
+        int b = in.nextInt();
+        int a = in.nextInt();
+        if (r > 255 || g > 255 || b > 255 || a > 255) {
+          throw new IllegalArgumentException("Invalid collage project: component above 255.");
+        }
+        row[j] = ArgbUtil.pack(r, g, b, a);
+      }
+      pixels.writeRow(i, row, 0);
+    }
+    ILayer layer = model.createLayerImp(layerName, pixels);
+    layer.setFilter(Filters.parse(filter));
+    return layer;
+  }
+
+  /**
+   * Private helper determining if a byte is whitespace.
+   */
+  private static boolean isWhitespace(int c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+  }
+
+  /**
+   * Reads tokens out of one range of the file through its own buffer, using positional reads
+   * so several can read the same channel at once.
+   */
+  private static class RangeReader {
+    private final FileChannel channel;
+    private final long end;
+    private final ByteBuffer buffer;
+    private long position; // the position in the file of the end of the buffer
+    private int terminator; // the byte which ended the last number read
+
+    /**
+     * Constructs a reader of the bytes of the file from start up to, but not including, end.
+     */
+    RangeReader(FileChannel channel, long start, long end) {
+      this.channel = channel;
+      this.end = end;
+      this.position = start;
+      this.buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(1, end - start)));
+      this.buffer.flip(); // starts out with nothing left to read
+    }
+
+    /**
+     * Gets the position in the file of the next byte to be read.
+     */
+    long position() {
+      return this.position - this.buffer.remaining();
+    }
+
+    /**
+     * Reads the next byte, or -1 at the end of the range.
+     */
+    int next() throws IOException {
+      if (!this.buffer.hasRemaining()) {
+        if (this.position >= this.end) {
+          return -1;
+        }
+        this.buffer.clear();
+        this.buffer.limit((int) Math.min(this.buffer.capacity(), this.end - this.position));
+        int n = 0;
+        while (this.buffer.hasRemaining() && n >= 0) {
+          n = this.channel.read(this.buffer, this.position + this.buffer.position());
+        }
+        this.buffer.flip();
+        this.position += this.buffer.remaining();
+        if (!this.buffer.hasRemaining()) {
+          return -1;
+        }
+      }
+      return this.buffer.get() & 0xFF;
+    }
+
+    /**
+     * Reads the rest of the current line, without the line break.
+     */
+    String nextLine() throws IOException {
+      byte[] bytes = new byte[64];
+      int length = 0;
+      int c = this.next();
+      while (c >= 0 && c != '\n') {
+        if (length == bytes.length) {
+          bytes = Arrays.copyOf(bytes, length * 2);
+        }
+        bytes[length++] = (byte) c;
+        c = this.next();
+      }
+      if (length > 0 && bytes[length - 1] == '\r') {
+        length--;
+      }
+      return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips the rest of the current line, unless the last number read ended it.
+     */
+    void finishLine() throws IOException {
+      if (this.terminator == '\n') {
+        return;
+      }
+      int c = this.next();
+      while (c >= 0 && c != '\n') {
+        c = this.next();
+      }
+    }
+
+    /**
+     * Reads the next token, skipping any whitespace before it.
+     */
+    String nextToken() throws IOException {
+      int c = this.next();
+      while (isWhitespace(c)) {
+        c = this.next();
+      }
+      if (c < 0) {
+        throw new IllegalArgumentException("Invalid collage project: ended too early.");
+      }
+      byte[] bytes = new byte[32];
+      int length = 0;
+      while (c >= 0 && !isWhitespace(c)) {
+        if (length == bytes.length) {
+          bytes = Arrays.copyOf(bytes, length * 2);
+        }
+        bytes[length++] = (byte) c;
+        c = this.next();
+      }
+      return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the next non-negative number, skipping any whitespace before it.
+     */
+    int nextInt() throws IOException {
+      int c = this.next();
+      while (isWhitespace(c)) {
+        c = this.next();
+      }
+      if (c < '0' || c > '9') {
+        throw new IllegalArgumentException(c < 0 ? "Invalid collage project: ended too early."
+                : "Invalid collage project: expected a number.");
+      }
+      int n = 0;
+      while (c >= '0' && c <= '9') {
+        n = n * 10 + (c - '0');
+        if (n > 1_000_000_000) {
+          throw new IllegalArgumentException("Invalid collage project: number is too large.");
+        }
+        c = this.next();
+      }
+      if (c >= 0 && !isWhitespace(c)) {
+        throw new IllegalArgumentException("Invalid collage project: expected a number.");
+      }
+      this.terminator = c;
+      return n;
+    }
+  }
+}
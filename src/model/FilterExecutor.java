@@ -0,0 +1,224 @@
+package model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs filters over layers by splitting them into bands of rows on a ForkJoinPool. Every
+ * filtered pixel only depends on the original pixels, so the bands can be filtered in any
+ * order and the result is exactly the same as filtering the rows one after another. Layers
+ * with no more pixels than the threshold are filtered on the calling thread, since splitting
+ * them up costs more than it saves.
+ */
+public class FilterExecutor {
+  // layers up to this many pixels are filtered sequentially by default
+  public static final int DEFAULT_THRESHOLD = 1 << 16;
+
+  private static volatile FilterExecutor defaultExecutor =
+          new FilterExecutor(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+
+  private final ForkJoinPool pool; // null when everything runs on the calling thread
+  private final int threshold;
+
+  /**
+   * Constructs an executor which splits work larger than the threshold into row bands on the
+   * given pool.
+   *
+   * @param pool      the pool the row bands are run on
+   * @param threshold the most pixels a band can have before it is split in two
+   * @throws IllegalArgumentException if the pool is null or the threshold is not positive
+   */
+  public FilterExecutor(ForkJoinPool pool, int threshold) throws IllegalArgumentException {
+    if (pool == null || threshold <= 0) {
+      throw new IllegalArgumentException("Executor needs a pool and a positive threshold.");
+    }
+    this.pool = pool;
+    this.threshold = threshold;
+  }
+
+  /**
+   * Private constructor for the sequential executor.
+   */
+  private FilterExecutor() {
+    this.pool = null;
+    this.threshold = Integer.MAX_VALUE;
+  }
+
+  /**
+   * Creates an executor which runs all of its work on the calling thread.
+   *
+   * @return the sequential executor
+   */
+  public static FilterExecutor sequential() {
+    return new FilterExecutor();
+  }
+
+  /**
+   * Gets the executor layers use to apply their filters. Unless it is changed, this splits
+   * layers larger than DEFAULT_THRESHOLD pixels over the common ForkJoinPool.
+   *
+   * @return the default executor
+   */
+  public static FilterExecutor getDefault() {
+    return defaultExecutor;
+  }
+
+  /**
+   * Sets the executor layers use to apply their filters, for example to give filtering its own
+   * pool or to make it sequential.
+   *
+   * @param executor the new default executor
+   * @throws IllegalArgumentException if the executor is null
+   */
+  public static void setDefault(FilterExecutor executor) throws IllegalArgumentException {
+    if (executor == null) {
+      throw new IllegalArgumentException("Default executor cannot be null.");
+    }
+    defaultExecutor = executor;
+  }
+
+  /**
+   * Runs the given work over all rows of a layer, split into bands of at most threshold pixels
+   * (but at least one row) which are run in parallel. Returns once every band is done.
+   *
+   * @param height the number of rows of the layer
+   * @param width  the number of pixels in each row
+   * @param band   the work to run on each band
+   * @throws IllegalArgumentException if band is null or height or width are not positive
+   */
+  public void forEachBand(int height, int width, IRowBand band) throws IllegalArgumentException {
+    if (band == null || height <= 0 || width <= 0) {
+      throw new IllegalArgumentException("Cannot run null work or work on an empty layer.");
+    }
+    int bandRows = Math.max(1, this.threshold / width);
+    if (this.pool == null || bandRows >= height) {
+      band.run(0, height);
+    } else {
+      this.pool.invoke(new BandTask(band, 0, height, bandRows));
+    }
+  }
+
+  /**
+   * Filters every pixel of src with the kernel and writes the result into dst. A kernel which
+   * reads the pixel below gets the pixel in the same column of the next row of src, and leaves
+   * the bottom row unchanged.
+   *
+   * @param src    the pixels being filtered, which are not changed
+   * @param dst    the raster the filtered pixels are written into, the same size as src
+   * @param kernel the filter applied to each pixel
+   * @throws IllegalArgumentException if any argument is null or the rasters differ in size
+   */
+  public void filter(IRaster src, IRaster dst, IFilterKernel kernel)
+          throws IllegalArgumentException {
+    if (src == null) {
+      throw new IllegalArgumentException("Cannot filter with null rasters or kernel.");
+    }
+    this.filter(src, dst, kernel, PixelRect.of(src.getHeight(), src.getWidth()));
+  }
+
+  /**
+   * Filters only the pixels of src in the given rectangle with the kernel, and writes them into
+   * the same rectangle of dst. The pixels of dst outside of the rectangle are not changed.
+   *
+   * @param src    the pixels being filtered, which are not changed
+   * @param dst    the raster the filtered pixels are written into, the same size as src
+   * @param kernel the filter applied to each pixel
+   * @param region the rectangle of pixels which are filtered
+   * @throws IllegalArgumentException if any argument is null, the rasters differ in size, or
+   *                                  the region is not within the rasters
+   */
+  public void filter(IRaster src, IRaster dst, IFilterKernel kernel, PixelRect region)
+          throws IllegalArgumentException {
+    if (src == null || dst == null || kernel == null || region == null) {
+      throw new IllegalArgumentException("Cannot filter with null rasters or kernel.");
+    }
+    if (src.getHeight() != dst.getHeight() || src.getWidth() != dst.getWidth()) {
+      throw new IllegalArgumentException("Rasters must be the same size to filter.");
+    }
+    if (region.getBottom() > src.getHeight() || region.getRight() > src.getWidth()) {
+      throw new IllegalArgumentException("Region to filter is not within the rasters.");
+    }
+    if (region.isEmpty()) {
+      return;
+    }
+    int top = region.getTop();
+    this.forEachBand(region.getHeight(), region.getWidth(),
+        (fromRow, toRow) -> filterRows(src, dst, kernel, top + fromRow, top + toRow,
+                region.getLeft(), region.getWidth()));
+  }
+
+  /**
+   * Filters the pixels from column left of the rows fromRow up to toRow of src into dst with
+   * reusable row buffers. Each row is handled in tile-sized chunks, and a chunk is not written
+   * when src stores none of the pixels it reads and dst already holds, without storing them,
+   * the value they filter to.
+   */
+  private static void filterRows(IRaster src, IRaster dst, IFilterKernel kernel,
+                                 int fromRow, int toRow, int left, int width) {
+    int height = src.getHeight();
+    int[] row = new int[width];
+    int[] below = new int[width];
+    int[] out = new int[width];
+    int fill = src.getFillValue();
+    int filteredFill = kernel.apply(fill, fill);
+    src.readRow(fromRow, left, row, 0, width);
+    for (int r = fromRow; r < toRow; r++) {
+      // the pixel below is the original pixel in the next row, the bottom row has none
+      boolean hasBelow = r < height - 1;
+      if (hasBelow) {
+        src.readRow(r + 1, left, below, 0, width);
+      }
+      boolean filters = hasBelow || !kernel.readsBelow();
+      int emptyValue = filters ? filteredFill : fill;
+      int chunk;
+      for (int start = 0; start < width; start += chunk) {
+        int col = left + start;
+        chunk = Math.min(width - start, TiledRaster.TILE_SIZE - col % TiledRaster.TILE_SIZE);
+        if (dst.getFillValue() == emptyValue && dst.isEmpty(r, col, chunk)
+                && src.isEmpty(r, col, chunk)
+                && !(hasBelow && kernel.readsBelow() && !src.isEmpty(r + 1, col, chunk))) {
+          continue;
+        }
+        if (filters) {
+          kernel.applyRow(row, below, out, start, chunk);
+          dst.writeRow(r, col, out, start, chunk);
+        } else {
+          dst.writeRow(r, col, row, start, chunk);
+        }
+      }
+      // the row below becomes the next row to be filtered
+      int[] temp = row;
+      row = below;
+      below = temp;
+    }
+  }
+
+  /**
+   * Task which splits its rows in half until they fit in one band, then runs the band.
+   */
+  private static class BandTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final IRowBand band;
+    private final int fromRow;
+    private final int toRow;
+    private final int bandRows;
+
+    BandTask(IRowBand band, int fromRow, int toRow, int bandRows) {
+      this.band = band;
+      this.fromRow = fromRow;
+      this.toRow = toRow;
+      this.bandRows = bandRows;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.toRow - this.fromRow <= this.bandRows) {
+        this.band.run(this.fromRow, this.toRow);
+      } else {
+        int mid = (this.fromRow + this.toRow) >>> 1;
+        invokeAll(new BandTask(this.band, this.fromRow, mid, this.bandRows),
+                new BandTask(this.band, mid, this.toRow, this.bandRows));
+      }
+    }
+  }
+}
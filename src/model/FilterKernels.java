@@ -0,0 +1,291 @@
+package model;
+
+import controller.utilities.RepresentationConverter;
+
+/**
+ * This class contains the kernels for the filters in FilterOption. Each kernel gives exactly
+ * the same result as RGBPixel.apply for a pixel with a max value of 255, followed by
+ * RGBPixel.getARGB, so any component that a filter pushes outside of 0-255 is clamped.
+ * The brighten and darken kernels work from precomputed tables, so they do no clamping
+ * branches or division per pixel. The component and value kernels filter whole rows with
+ * PixelRowOps, many pixels at a time when the vector operations are available.
+ */
+public class FilterKernels {
+  // a brightened or darkened component is from -255 to 510, CLAMP[n + 255] is n clamped to 0-255
+  private static final int[] CLAMP = new int[766];
+  // INTENSITY[r + g + b] is the intensity of a pixel, using integer division like RGBPixel
+  private static final int[] INTENSITY = new int[766];
+  // each component's share of the luma of a pixel, added up in the same order as RGBPixel
+  private static final double[] LUMA_RED = new double[256];
+  private static final double[] LUMA_GREEN = new double[256];
+  private static final double[] LUMA_BLUE = new double[256];
+
+  static {
+    for (int i = 0; i < CLAMP.length; i++) {
+      CLAMP[i] = Math.max(0, Math.min(255, i - 255));
+      INTENSITY[i] = i / 3;
+    }
+    for (int i = 0; i < 256; i++) {
+      LUMA_RED[i] = 0.2126 * i;
+      LUMA_GREEN[i] = 0.7152 * i;
+      LUMA_BLUE[i] = 0.0722 * i;
+    }
+  }
+
+  /**
+   * Creates the kernel for the normal filter, which leaves every pixel unchanged.
+   *
+   * @return the identity kernel
+   */
+  public static IFilterKernel identity() {
+    return new MaskKernel(0xFFFFFFFF);
+  }
+
+  /**
+   * Creates a kernel which keeps only the given bits of each pixel, which is how the
+   * red/green/blue-component filters work.
+   *
+   * @param keep the bits of each packed pixel which are kept, the others are set to 0
+   * @return the masking kernel
+   */
+  public static IFilterKernel mask(int keep) {
+    return new MaskKernel(keep);
+  }
+
+  /**
+   * Creates the kernel for the brighten-value (sign 1) or darken-value (sign -1) filter.
+   *
+   * @param sign 1 to brighten, -1 to darken
+   * @return the value kernel
+   */
+  public static IFilterKernel value(int sign) {
+    return new ValueKernel(sign);
+  }
+
+  /**
+   * Creates the kernel for the brighten-luma (sign 1) or darken-luma (sign -1) filter.
+   *
+   * @param sign 1 to brighten, -1 to darken
+   * @return the luma kernel
+   */
+  public static IFilterKernel luma(int sign) {
+    return new LumaKernel(sign);
+  }
+
+  /**
+   * Creates the kernel for the brighten-intensity (sign 1) or darken-intensity (sign -1) filter.
+   *
+   * @param sign 1 to brighten, -1 to darken
+   * @return the intensity kernel
+   */
+  public static IFilterKernel intensity(int sign) {
+    return new IntensityKernel(sign);
+  }
+
+  /**
+   * Creates the kernel for the difference filter.
+   *
+   * @return the difference kernel
+   */
+  public static IFilterKernel difference() {
+    return new DifferenceKernel();
+  }
+
+  /**
+   * Creates the kernel for the multiply (screen false) or screen (screen true) filter.
+   *
+   * @param screen whether the kernel is for the screen filter
+   * @return the lightness kernel
+   */
+  public static IFilterKernel lightness(boolean screen) {
+    return new LightnessKernel(screen);
+  }
+
+  /**
+   * Helper which clamps a component into the range 0-255 and puts it at the given position of
+   * a packed pixel.
+   */
+  static int clampTo(int n, int shift) {
+    return Math.max(0, Math.min(255, n)) << shift;
+  }
+
+  /**
+   * Kernel which filters a row one pixel at a time, with apply.
+   */
+  private abstract static class PixelKernel implements IFilterKernel {
+
+    @Override
+    public void applyRow(int[] src, int[] below, int[] dst, int offset, int length) {
+      for (int i = offset; i < offset + length; i++) {
+        dst[i] = this.apply(src[i], below[i]);
+      }
+    }
+  }
+
+  /**
+   * Kernel which keeps only some of the bits of each pixel. This is the component filters'
+   * lookup table, where the kept components map to themselves and the others map to 0, done
+   * with a single AND.
+   */
+  private static class MaskKernel implements IFilterKernel {
+    private final int keep;
+
+    MaskKernel(int keep) {
+      this.keep = keep;
+    }
+
+    @Override
+    public int apply(int argb, int below) {
+      return argb & this.keep;
+    }
+
+    @Override
+    public void applyRow(int[] src, int[] below, int[] dst, int offset, int length) {
+      PixelRowOps.getDefault().maskRow(src, dst, offset, length, this.keep);
+    }
+
+    @Override
+    public boolean readsBelow() {
+      return false;
+    }
+  }
+
+  /**
+   * Kernel which adds or subtracts the largest component of each pixel to all of its components.
+   */
+  private static class ValueKernel implements IFilterKernel {
+    private final int sign;
+
+    ValueKernel(int sign) {
+      this.sign = sign;
+    }
+
+    @Override
+    public int apply(int argb, int below) {
+      int r = ArgbUtil.red(argb);
+      int g = ArgbUtil.green(argb);
+      int b = ArgbUtil.blue(argb);
+      int value = this.sign * Math.max(Math.max(r, g), b) + 255;
+      return (argb & 0xFF000000) | (CLAMP[r + value] << 16) | (CLAMP[g + value] << 8)
+              | CLAMP[b + value];
+    }
+
+    @Override
+    public void applyRow(int[] src, int[] below, int[] dst, int offset, int length) {
+      PixelRowOps.getDefault().valueRow(src, dst, offset, length, this.sign);
+    }
+
+    @Override
+    public boolean readsBelow() {
+      return false;
+    }
+  }
+
+  /**
+   * Kernel which adds or subtracts the luma of each pixel to all of its components.
+   */
+  private static class LumaKernel extends PixelKernel {
+    private final int sign;
+
+    LumaKernel(int sign) {
+      this.sign = sign;
+    }
+
+    @Override
+    public int apply(int argb, int below) {
+      int r = ArgbUtil.red(argb);
+      int g = ArgbUtil.green(argb);
+      int b = ArgbUtil.blue(argb);
+      double luma = this.sign * (LUMA_RED[r] + LUMA_GREEN[g] + LUMA_BLUE[b]);
+      return (argb & 0xFF000000) | (CLAMP[(int) (r + luma) + 255] << 16)
+              | (CLAMP[(int) (g + luma) + 255] << 8) | CLAMP[(int) (b + luma) + 255];
+    }
+
+    @Override
+    public boolean readsBelow() {
+      return false;
+    }
+  }
+
+  /**
+   * Kernel which adds or subtracts the intensity of each pixel to all of its components.
+   */
+  private static class IntensityKernel extends PixelKernel {
+    private final int sign;
+
+    IntensityKernel(int sign) {
+      this.sign = sign;
+    }
+
+    @Override
+    public int apply(int argb, int below) {
+      int r = ArgbUtil.red(argb);
+      int g = ArgbUtil.green(argb);
+      int b = ArgbUtil.blue(argb);
+      int intensity = this.sign * INTENSITY[r + g + b] + 255;
+      return (argb & 0xFF000000) | (CLAMP[r + intensity] << 16) | (CLAMP[g + intensity] << 8)
+              | CLAMP[b + intensity];
+    }
+
+    @Override
+    public boolean readsBelow() {
+      return false;
+    }
+  }
+
+  /**
+   * Kernel which takes the absolute difference between each pixel and the pixel below it.
+   */
+  private static class DifferenceKernel extends PixelKernel {
+
+    @Override
+    public int apply(int argb, int below) {
+      return (argb & 0xFF000000)
+              | (Math.abs(ArgbUtil.red(argb) - ArgbUtil.red(below)) << 16)
+              | (Math.abs(ArgbUtil.green(argb) - ArgbUtil.green(below)) << 8)
+              | Math.abs(ArgbUtil.blue(argb) - ArgbUtil.blue(below));
+    }
+
+    @Override
+    public boolean readsBelow() {
+      return true;
+    }
+  }
+
+  /**
+   * Kernel for the multiply and screen filters, which change the lightness of each pixel
+   * based on the lightness of the pixel below it. Like RGBPixel.apply, this goes through
+   * RepresentationConverter so the rounding is the same.
+   */
+  private static class LightnessKernel extends PixelKernel {
+    private final boolean screen;
+
+    LightnessKernel(boolean screen) {
+      this.screen = screen;
+    }
+
+    @Override
+    public int apply(int argb, int below) {
+      int a = ArgbUtil.alpha(argb);
+      IPixel hsl = RepresentationConverter.convertRGBtoHSL(ArgbUtil.red(argb),
+              ArgbUtil.green(argb), ArgbUtil.blue(argb), a, null);
+      double lPrime = RepresentationConverter.convertRGBtoHSL(ArgbUtil.red(below),
+              ArgbUtil.green(below), ArgbUtil.blue(below), 255, null).getLightness();
+      double l = hsl.getLightness();
+      if (this.screen) {
+        l = 1 - ((1 - l) * (1 - lPrime));
+      } else {
+        l = l * lPrime;
+      }
+      IPixel back = RepresentationConverter.convertHSLtoRGB(hsl.getHue(), hsl.getSaturation(),
+              l, a, null);
+      return (argb & 0xFF000000) | clampTo(back.getRed(), 16) | clampTo(back.getGreen(), 8)
+              | clampTo(back.getBlue(), 0);
+    }
+
+    @Override
+    public boolean readsBelow() {
+      return true;
+    }
+  }
+}
@@ -91,4 +91,43 @@ public enum FilterOption implements IFilterOption {
         throw new IllegalArgumentException("Filter option with that name does not exist.");
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Compiles this FilterOption into the kernel which applies it to one packed ARGB pixel.
+   * @return the kernel for this FilterOption.
+   * @throws IllegalArgumentException if this FilterOption is not a supported filter.
+   */
+  @Override
+  public IFilterKernel compile() throws IllegalArgumentException {
+    switch (this) {
+      case NORM:
+        return FilterKernels.identity();
+      case RED:
+        return FilterKernels.mask(0xFFFF0000);
+      case GREEN:
+        return FilterKernels.mask(0xFF00FF00);
+      case BLUE:
+        return FilterKernels.mask(0xFF0000FF);
+      case BRIGHTV:
+        return FilterKernels.value(1);
+      case DARKV:
+        return FilterKernels.value(-1);
+      case BRIGHTI:
+        return FilterKernels.intensity(1);
+      case DARKI:
+        return FilterKernels.intensity(-1);
+      case BRIGHTL:
+        return FilterKernels.luma(1);
+      case DARKL:
+        return FilterKernels.luma(-1);
+      case DIFFERENCE:
+        return FilterKernels.difference();
+      case MULTIPLY:
+        return FilterKernels.lightness(false);
+      case SCREEN:
+        return FilterKernels.lightness(true);
+      default:
+        throw new IllegalArgumentException("No filter with that name exists.");
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package model;
+
+/**
+ * Utility for turning the description of any filter a layer can have back into that filter.
+ */
+public class Filters {
+
+  /**
+   * Converts a string into the FilterOption it describes, or else into the adjustment it
+   * describes, like "gamma-2.2".
+   *
+   * @param str the String which describes the filter.
+   * @return the filter described by the string.
+   * @throws IllegalArgumentException if the string does not describe a supported filter.
+   */
+  public static IFilterOption parse(String str) throws IllegalArgumentException {
+    if (str == null) {
+      throw new IllegalArgumentException("Filter option with that name does not exist.");
+    }
+    try {
+      return FilterOption.NORM.fromString(str);
+    } catch (IllegalArgumentException e) {
+      return AdjustmentFilter.parse(str);
+    }
+  }
+}
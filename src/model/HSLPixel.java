@@ -86,17 +86,13 @@ public class HSLPixel implements IPixel {
     if (this.pixelBelow != null) {
 
       if (this.pixelBelow.isRGB()) {
-        String[] str = this.pixelBelow.toString().split(" ", -1);
-        int r = Integer.parseInt(str[0]);
-        int g = Integer.parseInt(str[1]);
-        int b = Integer.parseInt(str[2]);
-        this.pixelBelow = RepresentationConverter.convertRGBtoHSL(r, g, b, 255,
+        this.pixelBelow = RepresentationConverter.convertRGBtoHSL(this.pixelBelow.getRed(),
+                this.pixelBelow.getGreen(), this.pixelBelow.getBlue(), 255,
                 this.pixelBelow.getPixelBelow());
       }
 
       // getting the l value of the pixel below this pixel, used in multiply and screen filters.
-      String[] stringForL = this.pixelBelow.toString().split(" ", -1);
-      lPrime = Double.parseDouble(stringForL[2]);
+      lPrime = this.pixelBelow.getLightness();
 
     }
     switch (f.toString()) {
@@ -130,28 +126,16 @@ public class HSLPixel implements IPixel {
                 this.h, this.s, this.l, this.a, this.pixelBelow);
         filteredPixel.apply(f);
 
-        // get r, g, b values for filtered pixel so we can convert back
-        String[] str = filteredPixel.toString().split(" ", -1);
-        int filteredR = Integer.parseInt(str[0]);
-        int filteredG = Integer.parseInt(str[1]);
-        int filteredB = Integer.parseInt(str[2]);
-
-
         // now convert back
         IPixel convertedBack =
-                RepresentationConverter.convertRGBtoHSL(filteredR, filteredG, filteredB,
+                RepresentationConverter.convertRGBtoHSL(filteredPixel.getRed(),
+                        filteredPixel.getGreen(), filteredPixel.getBlue(),
                         this.a, this.pixelBelow);
 
-
-        // get h, s, l values for convertedBack pixel so we can mutate this pixel to its values.
-        String[] str2 = convertedBack.toString().split(" ", -1);
-        int convertedH = Integer.parseInt(str2[0]);
-        double convertedS = Double.parseDouble(str2[1]);
-        double convertedL = Double.parseDouble(str2[2]);
-
-        this.h = convertedH;
-        this.s = convertedS;
-        this.l = convertedL;
+        // mutate this pixel to the values of the converted back pixel.
+        this.h = convertedBack.getHue();
+        this.s = convertedBack.getSaturation();
+        this.l = convertedBack.getLightness();
 
         break;
       case "multiply":
@@ -184,11 +168,8 @@ public class HSLPixel implements IPixel {
 
     // converting given to RGB if it is HSL
     if (bgPix.isHSL()) {
-      String[] bgPixStr = bgPix.toString().split(" ", -1);
-      int dH = Integer.parseInt(bgPixStr[0]);
-      double dS = Double.parseDouble(bgPixStr[1]);
-      double dL = Double.parseDouble(bgPixStr[2]);
-      bgPix = RepresentationConverter.convertHSLtoRGB(dH, dS, dL, this.a, this.pixelBelow);
+      bgPix = RepresentationConverter.convertHSLtoRGB(bgPix.getHue(), bgPix.getSaturation(),
+              bgPix.getLightness(), this.a, this.pixelBelow);
     }
 
     return RepresentationConverter.convertHSLtoRGB(
@@ -214,6 +195,50 @@ public class HSLPixel implements IPixel {
   }
 
 
+  @Override
+  public int getRed() {
+    return RepresentationConverter.convertHSLtoRGB(this.h, this.s, this.l, this.a, null).getRed();
+  }
+
+  @Override
+  public int getGreen() {
+    return RepresentationConverter.convertHSLtoRGB(
+            this.h, this.s, this.l, this.a, null).getGreen();
+  }
+
+  @Override
+  public int getBlue() {
+    return RepresentationConverter.convertHSLtoRGB(this.h, this.s, this.l, this.a, null).getBlue();
+  }
+
+  @Override
+  public int getAlpha() {
+    return this.a;
+  }
+
+  @Override
+  public int getHue() {
+    return this.h;
+  }
+
+  @Override
+  public double getSaturation() {
+    return this.s;
+  }
+
+  @Override
+  public double getLightness() {
+    return this.l;
+  }
+
+  @Override
+  public int getARGB() {
+    // the rgb components come from the converted pixel, but the alpha is this pixel's own
+    int rgb = RepresentationConverter.convertHSLtoRGB(
+            this.h, this.s, this.l, this.a, null).getARGB();
+    return (Math.max(0, Math.min(255, this.a)) << 24) | (rgb & 0xFFFFFF);
+  }
+
   @Override
   public int getMaxValue() {
     return this.maxValue;
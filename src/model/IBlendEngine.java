@@ -0,0 +1,45 @@
+package model;
+
+/**
+ * The arithmetic the compositor blends a stack of layers with. A pixel is loaded into the
+ * engine's own form, an accumulator held in a long, each layer above it is blended onto the
+ * accumulator in turn, and the result is stored back as a packed ARGB value. Engines are
+ * made by BlendEngines, and only differ in how closely and how fast they follow the formula of
+ * RGBPixel.merge.
+ */
+public interface IBlendEngine {
+
+  /**
+   * Loads a packed ARGB pixel into an accumulator, as the bottom of a stack of layers.
+   *
+   * @param argb the packed ARGB value of the pixel
+   * @return the accumulator holding the pixel
+   */
+  long load(int argb);
+
+  /**
+   * Blends a packed ARGB pixel on top of an accumulator, as {@code merge(pix, top)} does when
+   * the accumulator holds pix. Blending a fully-opaque pixel gives exactly that pixel.
+   *
+   * @param acc the accumulator of the layers below
+   * @param top the packed ARGB value of the pixel on top
+   * @return the accumulator with the pixel blended onto it
+   */
+  long blend(long acc, int top);
+
+  /**
+   * Blends a fully-transparent pixel, of any color, on top of an accumulator.
+   *
+   * @param acc the accumulator of the layers below
+   * @return the accumulator with the pixel blended onto it
+   */
+  long blendClear(long acc);
+
+  /**
+   * Stores an accumulator back as a packed ARGB pixel.
+   *
+   * @param acc the accumulator of a stack of layers
+   * @return the packed ARGB value of the blended pixel
+   */
+  int store(long acc);
+}
@@ -0,0 +1,18 @@
+package model;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes something, like a project, to a channel. See CollageFormat.replaceFile.
+ */
+public interface IChannelWriter {
+
+  /**
+   * Writes to the given channel, without closing it.
+   *
+   * @param out the channel which is written to
+   * @throws IOException if the channel cannot be written to
+   */
+  void write(WritableByteChannel out) throws IOException;
+}
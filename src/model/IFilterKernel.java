@@ -0,0 +1,39 @@
+package model;
+
+/**
+ * A filter which has been resolved ahead of time into the per-pixel operation it performs on
+ * packed ARGB pixels. A layer gets its kernel once from IFilterOption.compile, and then runs
+ * it over every pixel without looking up the filter again.
+ */
+public interface IFilterKernel {
+
+  /**
+   * Filters one packed ARGB pixel.
+   *
+   * @param argb  the packed ARGB value of the pixel being filtered
+   * @param below the packed ARGB value of the pixel below it, in the same column of the next row.
+   *              Only used by kernels which read the pixel below.
+   * @return the packed ARGB value of the filtered pixel
+   */
+  int apply(int argb, int below);
+
+  /**
+   * Filters part of a row of packed ARGB pixels, exactly as apply does for each of them.
+   * Kernels which can filter many pixels at once do so here.
+   *
+   * @param src    the row of pixels being filtered
+   * @param below  the row below it, only used by kernels which read the pixel below
+   * @param dst    the row the filtered pixels are written into
+   * @param offset the index in all three rows of the first pixel
+   * @param length the number of pixels
+   */
+  void applyRow(int[] src, int[] below, int[] dst, int offset, int length);
+
+  /**
+   * Determines if this kernel uses the pixel below the one being filtered. Pixels in the
+   * bottom row of a layer have no pixel below, and are left unchanged by these kernels.
+   *
+   * @return a boolean which answers the question, "does this kernel read the pixel below?".
+   */
+  boolean readsBelow();
+}
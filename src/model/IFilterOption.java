@@ -19,4 +19,12 @@ public interface IFilterOption {
    *                                  supported IFilterOption.
    */
   public IFilterOption fromString(String s) throws IllegalArgumentException;
+
+  /**
+   * Compiles this IFilterOption into a kernel which filters packed ARGB pixels, so a layer can
+   * be filtered in a tight loop without dispatching on the name of the filter for every pixel.
+   * @return the kernel which applies this filter to one pixel.
+   * @throws IllegalArgumentException if this IFilterOption is not a supported filter.
+   */
+  public IFilterKernel compile() throws IllegalArgumentException;
 }
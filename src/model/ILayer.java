@@ -44,6 +44,90 @@ public interface ILayer {
    */
   IPixel getPixel(int row, int col) throws IllegalArgumentException;
 
+  /**
+   * Copies one row FROM CURRENT LAYER into the given array as packed ARGB values, starting at
+   * the given offset. This lets a whole row be read without creating any pixel objects.
+   *
+   * @param row the number of the row to be read
+   * @param dst the array which the row is copied into
+   * @param offset the index in dst at which the first pixel of the row is placed
+   * @throws IllegalArgumentException if the row is out of bounds for this layer,
+   *                                  or if dst cannot hold the row at the given offset
+   */
+  void readRow(int row, int[] dst, int offset) throws IllegalArgumentException;
+
+  /**
+   * Copies part of one row of this layer's current (filtered) pixels into the given array as
+   * packed ARGB values, starting at the given offset.
+   *
+   * @param row    the number of the row to be read
+   * @param col    the column of the first pixel to be read
+   * @param dst    the array which the pixels are copied into
+   * @param offset the index in dst at which the first pixel is placed
+   * @param length the number of pixels to be read
+   * @throws IllegalArgumentException if the pixels are out of bounds for this layer,
+   *                                  or if dst cannot hold them at the given offset
+   */
+  void readRow(int row, int col, int[] dst, int offset, int length)
+          throws IllegalArgumentException;
+
+  /**
+   * Determines if none of the given part of a row of this layer's current (filtered) pixels
+   * are stored, because they all have the fill value of the layer's current pixels. The
+   * compositor skips reading those pixels.
+   *
+   * @param row    the number of the row
+   * @param col    the column of the first pixel
+   * @param length the number of pixels
+   * @return a boolean which answers the question, "are none of these pixels stored?"
+   * @throws IllegalArgumentException if the pixels are out of bounds for this layer
+   */
+  boolean isEmpty(int row, int col, int length) throws IllegalArgumentException;
+
+  /**
+   * Determines if every one of the given part of a row of this layer's current (filtered)
+   * pixels is known to be fully opaque, so the compositor need not blend the layers below it.
+   *
+   * @param row    the number of the row
+   * @param col    the column of the first pixel
+   * @param length the number of pixels
+   * @return a boolean which answers the question, "are these pixels known to be opaque?"
+   * @throws IllegalArgumentException if the pixels are out of bounds for this layer
+   */
+  boolean isOpaque(int row, int col, int length) throws IllegalArgumentException;
+
+  /**
+   * Determines if every one of the given part of a row of this layer's current (filtered)
+   * pixels is known to be fully transparent, so the compositor need not read them.
+   *
+   * @param row    the number of the row
+   * @param col    the column of the first pixel
+   * @param length the number of pixels
+   * @return a boolean which answers the question, "are these pixels known to be transparent?"
+   * @throws IllegalArgumentException if the pixels are out of bounds for this layer
+   */
+  boolean isClear(int row, int col, int length) throws IllegalArgumentException;
+
+  /**
+   * Gets the packed ARGB value of every current (filtered) pixel of this layer which is not
+   * stored.
+   *
+   * @return the packed ARGB value of the pixels which are not stored
+   */
+  int getFillValue();
+
+  /**
+   * Copies one whole row of this layer's original (unfiltered) pixels into the given array as
+   * packed ARGB values, starting at the given offset.
+   *
+   * @param row    the number of the row to be read
+   * @param dst    the array which the row is copied into
+   * @param offset the index in dst at which the first pixel of the row is placed
+   * @throws IllegalArgumentException if the row is out of bounds for this layer,
+   *                                  or if dst cannot hold the row at the given offset
+   */
+  void readOriginalRow(int row, int[] dst, int offset) throws IllegalArgumentException;
+
   /**
    * Gets the height of this layer.
    *
@@ -65,6 +149,44 @@ public interface ILayer {
    */
   void applyFilter(IFilterOption f);
 
+  /**
+   * Gets the version of this layer's original pixels, which goes up every time they are
+   * changed, for example by adding an image to the layer.
+   *
+   * @return the version of this layer's original pixels
+   */
+  long getVersion();
+
+  /**
+   * Determines if this layer's current pixels are already its original pixels, at their current
+   * version, with the given filter applied. If so, applying the filter again would not change
+   * anything.
+   *
+   * @param f the filter which is checked
+   * @return a boolean which answers the question, "are the current pixels already filtered
+   *         with f?".
+   */
+  boolean isFiltered(IFilterOption f);
+
+  /**
+   * Gets the rectangle holding every current (filtered) pixel of this layer which changed since
+   * the last time this method was called, and starts tracking changes again from nothing. A
+   * layer which was just made reports all of its pixels as changed.
+   *
+   * @return the rectangle of current pixels changed since the last call
+   */
+  PixelRect drainChangedRegion();
+
+  /**
+   * Gets a rectangle outside of which every current (filtered) pixel of this layer has the
+   * layer's fill value, such as the part of a new layer which images were placed on. A layer
+   * with no content gives back an empty rectangle, and one which does not keep track of its
+   * content gives back the whole layer.
+   *
+   * @return the rectangle holding the content of this layer
+   */
+  PixelRect getContentBounds();
+
   /**
    * Gets the filter being applied to the layer.
    * @return the string for this filter.
@@ -84,6 +206,12 @@ public interface ILayer {
    */
   List<List<IPixel>> getPixelArrayCopy();
 
+  /**
+   * Make a copy of the original pixels of this layer as a packed raster.
+   * @return the copied raster of original pixels.
+   */
+  IRaster getRasterCopy();
+
   /**
    * Adds an image to this layer, with the desired x/y coordinate representing the location of
    * the image's top-left corner within the layer.
@@ -95,6 +223,18 @@ public interface ILayer {
    */
   void addImg(List<List<IPixel>> img, int x, int y) throws IllegalArgumentException;
 
+  /**
+   * Adds an image, given as a packed raster, to this layer, with the desired x/y coordinate
+   * representing the location of the image's top-left corner within the layer.
+   *
+   * @param img the image to be added to the layer
+   * @param x the x coordinate of the location of the image's top-left corner
+   * @param y the y coordinate of the location of the image's top-left corner
+   * @throws IllegalArgumentException if img is null, if the coordinate is not on the layer,
+   *                                  or if the image does not fit at the coordinate
+   */
+  void addRasterImg(IRaster img, int x, int y) throws IllegalArgumentException;
+
   /**
    * Sets the layer's filter to the given filterOption.
    * @param f the filter which will be set as this layer's filter.
@@ -57,6 +57,63 @@ public interface IPixel {
    */
   double getIntensity();
 
+  /**
+   * Gets the red component of this pixel. HSL pixels are converted to RGB to find it.
+   *
+   * @return the red component of this pixel.
+   */
+  int getRed();
+
+  /**
+   * Gets the green component of this pixel. HSL pixels are converted to RGB to find it.
+   *
+   * @return the green component of this pixel.
+   */
+  int getGreen();
+
+  /**
+   * Gets the blue component of this pixel. HSL pixels are converted to RGB to find it.
+   *
+   * @return the blue component of this pixel.
+   */
+  int getBlue();
+
+  /**
+   * Gets the alpha value of this pixel.
+   *
+   * @return the alpha value of this pixel.
+   */
+  int getAlpha();
+
+  /**
+   * Gets the hue of this pixel. RGB pixels are converted to HSL to find it.
+   *
+   * @return the hue of this pixel, from 0-360.
+   */
+  int getHue();
+
+  /**
+   * Gets the saturation of this pixel. RGB pixels are converted to HSL to find it.
+   *
+   * @return the saturation of this pixel, from 0-1.
+   */
+  double getSaturation();
+
+  /**
+   * Gets the lightness of this pixel. RGB pixels are converted to HSL to find it.
+   *
+   * @return the lightness of this pixel, from 0-1.
+   */
+  double getLightness();
+
+  /**
+   * Gets this pixel as a single packed ARGB integer, alpha in the highest byte followed by
+   * red, green and blue. Each component is clamped into the range 0-255.
+   *
+   * @return the packed ARGB value of this pixel.
+   */
+  int getARGB();
+
   /**
    * Gets the max value of the pixel.
    *
@@ -0,0 +1,46 @@
+package model;
+
+/**
+ * Operations on whole rows of packed ARGB pixels, for the work which is the same for every
+ * pixel and so can be done on many pixels at once: blending a row of pixels onto another, and
+ * the component mask and brighten/darken-value filters. Every implementation gives exactly the
+ * same pixels as the scalar one, which does one pixel at a time with ArgbUtil.merge and the
+ * kernels in FilterKernels. Implementations are got from PixelRowOps.
+ */
+public interface IPixelRowOps {
+
+  /**
+   * Blends each pixel of a row on top of the pixel at the same place in another row, exactly
+   * as {@code acc[i] = ArgbUtil.merge(acc[i], top[i])}.
+   *
+   * @param acc       the row blended onto, which is overwritten with the result
+   * @param accOffset the index in acc of the first pixel
+   * @param top       the row blended on top
+   * @param topOffset the index in top of the first pixel
+   * @param length    the number of pixels
+   */
+  void blendRow(int[] acc, int accOffset, int[] top, int topOffset, int length);
+
+  /**
+   * Keeps only the given bits of each pixel of a row, as the component filters do.
+   *
+   * @param src    the row being filtered
+   * @param dst    the row the filtered pixels are written into
+   * @param offset the index in both rows of the first pixel
+   * @param length the number of pixels
+   * @param keep   the bits of each pixel which are kept
+   */
+  void maskRow(int[] src, int[] dst, int offset, int length, int keep);
+
+  /**
+   * Adds the largest component of each pixel of a row to all of its components, or subtracts
+   * it, clamping them to 0-255, as the brighten-value and darken-value filters do.
+   *
+   * @param src    the row being filtered
+   * @param dst    the row the filtered pixels are written into
+   * @param offset the index in both rows of the first pixel
+   * @param length the number of pixels
+   * @param sign   1 to brighten, -1 to darken
+   */
+  void valueRow(int[] src, int[] dst, int offset, int length, int sign);
+}
@@ -1,5 +1,7 @@
 package model;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
 /**
@@ -24,6 +26,24 @@ public interface IProject {
    */
   public String formatProject();
 
+  /**
+   * This method writes the project in the binary .collage format, which stores each layer's
+   * original pixels as they are held in memory so the project can be loaded without parsing.
+   * See CollageFormat.
+   *
+   * @param out the channel the project is written to, which is not closed
+   * @throws IOException if the channel cannot be written to
+   */
+  public void writeProject(WritableByteChannel out) throws IOException;
+
+  /**
+   * Gets the journal of this project, which keeps the edits made since the project was last
+   * saved to or loaded from a binary .collage file, so saving it again only appends them.
+   *
+   * @return the journal of this project
+   */
+  public ProjectJournal getJournal();
+
   /**
    * Adds a fully-transparent, white layer to the top of this project.
    *
@@ -50,6 +70,24 @@ public interface IProject {
   public void addLayerImg(String layerName, List<List<IPixel>> img, int x, int y) throws
           IllegalArgumentException;
 
+  /**
+   * Adds an image, given as a packed raster, to the layer with the given name, with the
+   * provided coordinate being the location within the layer of the image's top-left corner.
+   *
+   * @param layerName the name of the layer which the image is being added to
+   * @param img the actual image to be added to the layer
+   * @param x the x-coordinate within the layer, of the image's top-left corner location
+   * @param y the y-coordinate within the layer, of the image's top-left corner location
+   * @throws IllegalArgumentException if layerName is null, if img is null,
+   *                                  if layerName is not the name of a layer which exists,
+   *                                  if the provided x or y coordinates are negative,
+   *                                  if the provided coordinate is not on the layer,
+   *                                  or if part of the image would be off of the layer, given its
+   *                                  size and desired location
+   */
+  public void addLayerRaster(String layerName, IRaster img, int x, int y) throws
+          IllegalArgumentException;
+
   /**
    * Compresses the project's layers to one, making an image.
    *
@@ -58,6 +96,45 @@ public interface IProject {
    */
   public ILayer compressToImage(String name);
 
+  /**
+   * Compresses the project's layers into the given array, which holds the packed ARGB values of
+   * the image row by row. It is the same image compressToImage makes, but written straight
+   * into the array without making a layer or any pixels for it.
+   *
+   * @param out the array the image is written into, of at least getHeight() * getWidth() values
+   * @throws IllegalArgumentException if out is null or too small to hold the image
+   */
+  public void compressInto(int[] out) throws IllegalArgumentException;
+
+  /**
+   * Gets the height of this IProject's layers, and so of the image it compresses to.
+   *
+   * @return the height in pixels
+   */
+  public int getHeight();
+
+  /**
+   * Gets the width of this IProject's layers, and so of the image it compresses to.
+   *
+   * @return the width in pixels
+   */
+  public int getWidth();
+
+  /**
+   * Gets the number of times compressToImage reused a layer's filtered pixels, because neither
+   * the layer's pixels nor its filter had changed since they were last filtered.
+   *
+   * @return the number of filter cache hits
+   */
+  public long getFilterCacheHits();
+
+  /**
+   * Gets the number of times compressToImage had to filter a layer's pixels.
+   *
+   * @return the number of filter cache misses
+   */
+  public long getFilterCacheMisses();
+
   /**
    * Gets the name of this IProject.
    * @return the String representing the name of the Project.
@@ -84,12 +161,13 @@ public interface IProject {
   public void setFilterToCertainLayers(IFilterOption f, String s) throws IllegalArgumentException;
 
   /**
-   * Starts this project with the given attributes.
+   * Starts this project with the given attributes and only a background layer, replacing the
+   * project which was started before, if any.
    *
    * @param name the name to be given to this collage project
    * @param height the height to be given to this collage project
    * @param width the width to be given to this collage project
-   * @throws IllegalStateException if this collage project has already been started
+   * @throws IllegalStateException if this collage project cannot be started
    * @throws IllegalArgumentException if a null String is given for the name
    *                                  OR if the given height/width are invalid
    */
@@ -97,13 +175,14 @@ public interface IProject {
           throws IllegalStateException, IllegalArgumentException;
 
   /**
-   * Starts this project with the given attributes.
+   * Starts this project with the given attributes, replacing the project which was started or
+   * loaded before, if any.
    *
    * @param name the name to be given to this collage project
    * @param layers the layers to be given to this collage project
    * @param height the height to be given to this collage project
    * @param width the width to be given to this collage project
-   * @throws IllegalStateException if this collage project has already been started
+   * @throws IllegalStateException if this collage project cannot be started
    * @throws IllegalArgumentException if a null String is given for the name
    *                                 OR if an empty list of layers is given
    *                                 OR if the given height/width are invalid
@@ -166,4 +245,26 @@ public interface IProject {
    * @throws IllegalArgumentException if invalid values are given for the pixel components
    */
   IPixel createRGBA(int r, int g, int b, int a);
+
+  /**
+   * Creates a fully-transparent raster of the implementation used by this project, which
+   * image readers can fill before handing it to the project.
+   *
+   * @param height the height of the raster to be created
+   * @param width the width of the raster to be created
+   * @return a raster with the given height and width
+   * @throws IllegalArgumentException if the given height or width are <= 0
+   */
+  IRaster createRaster(int height, int width) throws IllegalArgumentException;
+
+  /**
+   * Creates an object of the layer implementation used by this project, which uses the given
+   * raster as its pixels.
+   *
+   * @param name the name of the layer object to be created
+   * @param pix the raster of pixels which the layer object will have
+   * @return an object of the layer implementation used by this project, with the given attributes
+   * @throws IllegalArgumentException if the given name or raster is null
+   */
+  ILayer createLayerImp(String name, IRaster pix) throws IllegalArgumentException;
 }
@@ -0,0 +1,156 @@
+package model;
+
+/**
+ * Represents a rectangular grid of pixels for a collage project, where every pixel is stored
+ * as a single packed ARGB integer (alpha in the highest byte, then red, green and blue) rather
+ * than as an IPixel object. The top left pixel has the coordinate value (0, 0), with
+ * row/column values increasing down/right, respectively.
+ */
+public interface IRaster {
+
+  /**
+   * Gets the height of this raster.
+   *
+   * @return the number of rows in this raster
+   */
+  int getHeight();
+
+  /**
+   * Gets the width of this raster.
+   *
+   * @return the number of pixels in each row of this raster
+   */
+  int getWidth();
+
+  /**
+   * Gets the packed ARGB value of the pixel at the given row and column.
+   *
+   * @param row the number of the pixel's row
+   * @param col the position of the pixel within its row
+   * @return the packed ARGB value of the pixel
+   * @throws IllegalArgumentException if the row or column is out of bounds for this raster
+   */
+  int getPixel(int row, int col) throws IllegalArgumentException;
+
+  /**
+   * Sets the pixel at the given row and column to the given packed ARGB value.
+   *
+   * @param row  the number of the pixel's row
+   * @param col  the position of the pixel within its row
+   * @param argb the packed ARGB value for the pixel
+   * @throws IllegalArgumentException if the row or column is out of bounds for this raster
+   */
+  void setPixel(int row, int col, int argb) throws IllegalArgumentException;
+
+  /**
+   * Copies one whole row of this raster into the given array, starting at the given offset.
+   *
+   * @param row    the number of the row to be read
+   * @param dst    the array which the row's packed ARGB values are copied into
+   * @param offset the index in dst at which the first pixel of the row is placed
+   * @throws IllegalArgumentException if the row is out of bounds for this raster,
+   *                                  or if dst cannot hold the row at the given offset
+   */
+  void readRow(int row, int[] dst, int offset) throws IllegalArgumentException;
+
+  /**
+   * Overwrites one whole row of this raster with the values in the given array,
+   * starting at the given offset.
+   *
+   * @param row    the number of the row to be written
+   * @param src    the array which holds the packed ARGB values for the row
+   * @param offset the index in src of the first pixel of the row
+   * @throws IllegalArgumentException if the row is out of bounds for this raster,
+   *                                  or if src does not hold a full row at the given offset
+   */
+  void writeRow(int row, int[] src, int offset) throws IllegalArgumentException;
+
+  /**
+   * Copies part of one row of this raster into the given array, starting at the given offset.
+   *
+   * @param row    the number of the row to be read
+   * @param col    the column of the first pixel to be read
+   * @param dst    the array which the pixels' packed ARGB values are copied into
+   * @param offset the index in dst at which the first pixel is placed
+   * @param length the number of pixels to be read
+   * @throws IllegalArgumentException if the pixels are out of bounds for this raster,
+   *                                  or if dst cannot hold them at the given offset
+   */
+  void readRow(int row, int col, int[] dst, int offset, int length)
+          throws IllegalArgumentException;
+
+  /**
+   * Overwrites part of one row of this raster with the values in the given array,
+   * starting at the given offset.
+   *
+   * @param row    the number of the row to be written
+   * @param col    the column of the first pixel to be written
+   * @param src    the array which holds the packed ARGB values for the pixels
+   * @param offset the index in src of the first pixel
+   * @param length the number of pixels to be written
+   * @throws IllegalArgumentException if the pixels are out of bounds for this raster,
+   *                                  or if src does not hold them at the given offset
+   */
+  void writeRow(int row, int col, int[] src, int offset, int length)
+          throws IllegalArgumentException;
+
+  /**
+   * Determines if this raster stores none of the pixels in the given part of a row, because
+   * they all have its fill value. Those pixels can be skipped without being read. Rasters which
+   * store every pixel always give back false.
+   *
+   * @param row    the number of the row
+   * @param col    the column of the first pixel
+   * @param length the number of pixels
+   * @return a boolean which answers the question, "are none of these pixels stored?"
+   * @throws IllegalArgumentException if the pixels are out of bounds for this raster
+   */
+  boolean isEmpty(int row, int col, int length) throws IllegalArgumentException;
+
+  /**
+   * Determines if every pixel in the given part of a row is known to be fully opaque, without
+   * reading the pixels. Nothing below such pixels shows through them, so the layers under
+   * them need not be blended. Rasters which do not keep track of this give back false.
+   *
+   * @param row    the number of the row
+   * @param col    the column of the first pixel
+   * @param length the number of pixels
+   * @return a boolean which answers the question, "are these pixels known to be opaque?"
+   * @throws IllegalArgumentException if the pixels are out of bounds for this raster
+   */
+  boolean isOpaque(int row, int col, int length) throws IllegalArgumentException;
+
+  /**
+   * Determines if every pixel in the given part of a row is known to be fully transparent,
+   * without reading the pixels. Rasters which do not keep track of this give back false.
+   *
+   * @param row    the number of the row
+   * @param col    the column of the first pixel
+   * @param length the number of pixels
+   * @return a boolean which answers the question, "are these pixels known to be transparent?"
+   * @throws IllegalArgumentException if the pixels are out of bounds for this raster
+   */
+  boolean isClear(int row, int col, int length) throws IllegalArgumentException;
+
+  /**
+   * Gets the packed ARGB value of every pixel this raster does not store.
+   *
+   * @return the packed ARGB value of the pixels which are not stored
+   */
+  int getFillValue();
+
+  /**
+   * Sets every pixel of this raster to the given packed ARGB value.
+   *
+   * @param argb the packed ARGB value for every pixel
+   */
+  void fill(int argb);
+
+  /**
+   * Creates a copy of this raster, so that changes made to the returned raster
+   * will not change this one.
+   *
+   * @return a separate raster identical to this one
+   */
+  IRaster copy();
+}
@@ -0,0 +1,19 @@
+package model;
+
+import java.io.IOException;
+
+/**
+ * Produces the pixels of a raster which is not loaded until it is first used, such as a layer
+ * of a project still sitting in its file. See LazyRaster.
+ */
+public interface IRasterLoader {
+
+  /**
+   * Loads the pixels. Each call gives back a new raster, so changing one raster does not change
+   * the rasters of earlier or later calls.
+   *
+   * @return a raster holding the loaded pixels
+   * @throws IOException if the pixels could not be read
+   */
+  IRaster load() throws IOException;
+}
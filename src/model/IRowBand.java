@@ -0,0 +1,16 @@
+package model;
+
+/**
+ * A piece of work done on a band of consecutive rows of a layer. Bands never share rows, so
+ * the bands of one layer can be run at the same time on different threads.
+ */
+public interface IRowBand {
+
+  /**
+   * Does this work on the rows from fromRow up to, but not including, toRow.
+   *
+   * @param fromRow the first row of the band
+   * @param toRow   the row after the last row of the band
+   */
+  void run(int fromRow, int toRow);
+}
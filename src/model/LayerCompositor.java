@@ -0,0 +1,313 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Blends a stack of layers into a single image in one pass. Rather than merging the layers two
+ * at a time, which builds a whole new layer for every step, each output pixel is visited once
+ * and the entire stack is blended into it bottom-up by an IBlendEngine, by default with the
+ * same formula as RGBPixel.merge.
+ * The only extra memory is one tile-wide buffer per layer, so the time and garbage of a
+ * composite grow linearly with the number of layers. Parts of layers which store no pixels,
+ * like the empty space around a small image, are not read at all, and neither are the parts
+ * of layers outside of their content, so a layer with nothing on it costs almost nothing.
+ * Layers are looked at from the top down, and nothing under a pixel which is fully opaque is
+ * read or blended, so a stack of photos costs about as much as the photos which can be seen.
+ */
+public class LayerCompositor {
+  private static volatile IBlendEngine defaultEngine = BlendEngines.exact();
+
+  private final IBlendEngine engine;
+  private final IPixelRowOps rowOps; // blends whole rows, or null to blend pixel by pixel
+
+  /**
+   * Constructs a compositor which blends with the default engine, the exact one unless it is
+   * changed.
+   */
+  public LayerCompositor() {
+    this(defaultEngine);
+  }
+
+  /**
+   * Constructs a compositor which blends with the given engine.
+   *
+   * @param engine the engine the layers are blended with
+   * @throws IllegalArgumentException if the engine is null
+   */
+  public LayerCompositor(IBlendEngine engine) throws IllegalArgumentException {
+    if (engine == null) {
+      throw new IllegalArgumentException("Compositor needs an engine to blend with.");
+    }
+    this.engine = engine;
+    this.rowOps = null;
+  }
+
+  /**
+   * Constructs a compositor which blends exactly as RGBPixel.merge does, a whole row of a
+   * layer at a time with the given row operations, such as the vector operations. Every
+   * layer above the top-most layer which is opaque over all of a row is blended, even where
+   * another layer is opaque; the operations are given the longest rows they can work on
+   * instead. Which way is faster depends on the operations and the machine, so compositors
+   * made without row operations blend pixel by pixel.
+   *
+   * @param rowOps the operations rows are blended with
+   * @throws IllegalArgumentException if the operations are null
+   */
+  public LayerCompositor(IPixelRowOps rowOps) throws IllegalArgumentException {
+    if (rowOps == null) {
+      throw new IllegalArgumentException("Compositor needs row operations to blend with.");
+    }
+    this.engine = BlendEngines.exact();
+    this.rowOps = rowOps;
+  }
+
+  /**
+   * Gets the engine compositors made from now on blend with.
+   *
+   * @return the default engine
+   */
+  public static IBlendEngine getDefaultEngine() {
+    return defaultEngine;
+  }
+
+  /**
+   * Sets the engine compositors made from now on blend with, for example the fixed-point
+   * engine when speed matters more than matching RGBPixel.merge exactly.
+   *
+   * @param engine the new default engine
+   * @throws IllegalArgumentException if the engine is null
+   */
+  public static void setDefaultEngine(IBlendEngine engine) throws IllegalArgumentException {
+    if (engine == null) {
+      throw new IllegalArgumentException("Default engine cannot be null.");
+    }
+    defaultEngine = engine;
+  }
+
+  /**
+   * Blends the current (filtered) pixels of the given layers into the output array, which
+   * holds the packed ARGB values of the image row by row. Layers earlier in the list are
+   * below layers later in the list, and only the layers from index {@code from} upward are
+   * used.
+   *
+   * @param layers the layers of the project, bottom-most first
+   * @param from   the index of the bottom-most layer to be blended
+   * @param height the height of the image, which every blended layer must have
+   * @param width  the width of the image, which every blended layer must have
+   * @param out    the array the image is written into, of at least height * width values
+   * @throws IllegalArgumentException if layers or out are null, if from is not the index of a
+   *                                  layer, if a blended layer is not height x width,
+   *                                  or if out is too small to hold the image
+   */
+  public void composite(List<ILayer> layers, int from, int height, int width, int[] out)
+          throws IllegalArgumentException {
+    this.composite(layers, from, height, width, out, PixelRect.of(height, width));
+  }
+
+  /**
+   * Blends only the pixels in the given rectangle of the layers into the same pixels of the
+   * output array, leaving the rest of the array as it was. Used to update an image after only
+   * part of its layers changed.
+   *
+   * @param layers the layers of the project, bottom-most first
+   * @param from   the index of the bottom-most layer to be blended
+   * @param height the height of the image, which every blended layer must have
+   * @param width  the width of the image, which every blended layer must have
+   * @param out    the array the image is written into, of at least height * width values
+   * @param region the rectangle of pixels which are blended
+   * @throws IllegalArgumentException if layers, out or region are null, if from is not the
+   *                                  index of a layer, if a blended layer is not height x
+   *                                  width, if out is too small to hold the image, or if the
+   *                                  region is not within the image
+   */
+  public void composite(List<ILayer> layers, int from, int height, int width, int[] out,
+                        PixelRect region) throws IllegalArgumentException {
+    if (layers == null) {
+      throw new IllegalArgumentException("Cannot composite null layers or into a null array.");
+    }
+    this.composite(layers, from, layers.size(), height, width, out, region, null);
+  }
+
+  /**
+   * Blends only the pixels in the given rectangle of the layers from index {@code from} up to,
+   * but not including, index {@code to} over the same pixels of a base image, into the output
+   * array. The base holds what the layers below {@code from} blend into, so the result is
+   * exactly what blending every layer from the bottom would give, without reading the layers
+   * below. With a null base the layer at {@code from} is the bottom-most layer.
+   *
+   * @param layers the layers of the project, bottom-most first
+   * @param from   the index of the bottom-most layer to be blended
+   * @param to     the index just past the top-most layer to be blended
+   * @param height the height of the image, which every blended layer must have
+   * @param width  the width of the image, which every blended layer must have
+   * @param out    the array the image is written into, of at least height * width values
+   * @param region the rectangle of pixels which are blended
+   * @param base   the image the layers are blended over, of at least height * width values,
+   *               or null
+   * @throws IllegalArgumentException if layers, out or region are null, if from and to are not
+   *                                  the indices of a run of layers, if a blended layer is not
+   *                                  height x width, if out or base are too small to hold the
+   *                                  image, or if the region is not within the image
+   */
+  public void composite(List<ILayer> layers, int from, int to, int height, int width,
+                        int[] out, PixelRect region, int[] base)
+          throws IllegalArgumentException {
+    if (layers == null || out == null || region == null) {
+      throw new IllegalArgumentException("Cannot composite null layers or into a null array.");
+    }
+    if (from < 0 || from >= layers.size()) {
+      throw new IllegalArgumentException("There is no layer at the given index to start from.");
+    }
+    if (to <= from || to > layers.size()) {
+      throw new IllegalArgumentException("There is no layer at the given index to end at.");
+    }
+    if (out.length < (long) height * width
+            || (base != null && base.length < (long) height * width)) {
+      throw new IllegalArgumentException("Output array is too small for the image.");
+    }
+    if (region.getBottom() > height || region.getRight() > width) {
+      throw new IllegalArgumentException("Region to composite is not within the image.");
+    }
+    int count = to - from;
+    ILayer[] stack = new ILayer[count];
+    for (int i = 0; i < count; i++) {
+      stack[i] = layers.get(from + i);
+      if (stack[i].getHeight() != height || stack[i].getWidth() != width) {
+        throw new IllegalArgumentException("Layer " + stack[i].getName()
+                + " does not match the size of the image.");
+      }
+    }
+    if (region.isEmpty()) {
+      return;
+    }
+
+    int[] fills = new int[count];
+    PixelRect[] content = new PixelRect[count];
+    for (int i = 0; i < count; i++) {
+      fills[i] = stack[i].getFillValue();
+      content[i] = stack[i].getContentBounds();
+    }
+    // each row is blended a tile-sized chunk at a time. layers which store none of a chunk's
+    // pixels, have no content in it, or whose pixels there are all transparent, are not read.
+    int size = Math.min(region.getWidth(), TiledRaster.TILE_SIZE);
+    int[][] rows = new int[count][]; // the pixels of each layer read for the chunk
+    boolean[] empty = new boolean[count];
+    boolean[] skip = new boolean[count]; // true for each layer blended without being read
+    int[] over = new int[count]; // the value blended for each layer which is not read
+    int[] floor = new int[size]; // the top-most layer opaque at each pixel, or -1
+    IBlendEngine engine = this.engine;
+    IPixelRowOps rowOps = this.rowOps;
+    for (int row = region.getTop(); row < region.getBottom(); row++) {
+      int chunk;
+      for (int col = region.getLeft(); col < region.getRight(); col += chunk) {
+        chunk = Math.min(region.getRight() - col,
+                TiledRaster.TILE_SIZE - col % TiledRaster.TILE_SIZE);
+        int at = row * width + col;
+
+        // merging onto an opaque pixel gives exactly that pixel, so the layers are looked at
+        // from the top down, and a layer opaque over the whole chunk hides every layer below
+        // it, which are not looked at
+        int first = 0;
+        boolean onBase = base != null;
+        for (int i = count - 1; i >= 0; i--) {
+          PixelRect bounds = content[i];
+          empty[i] = row < bounds.getTop() || row >= bounds.getBottom()
+                  || col >= bounds.getRight() || col + chunk <= bounds.getLeft()
+                  || stack[i].isEmpty(row, col, chunk);
+          if (empty[i] ? ArgbUtil.alpha(fills[i]) == 255 : stack[i].isOpaque(row, col, chunk)) {
+            first = i;
+            onBase = false;
+            break;
+          }
+        }
+        int next = onBase ? first : first + 1; // the first layer blended over the bottom one
+        for (int i = next; i < count; i++) {
+          skip[i] = empty[i] || stack[i].isClear(row, col, chunk);
+          over[i] = empty[i] ? fills[i] : 0;
+        }
+
+        // the same holds for each pixel: reading stops once every pixel of the chunk has
+        // some layer opaque at it
+        Arrays.fill(floor, 0, chunk, -1);
+        int pending = chunk;
+        int lowest = count; // the lowest layer read
+        for (int i = count - 1; i >= next && pending > 0; i--) {
+          if (skip[i]) {
+            continue;
+          }
+          lowest = i;
+          if (rows[i] == null) {
+            rows[i] = new int[size];
+          }
+          int[] pixels = rows[i];
+          stack[i].readRow(row, col, pixels, 0, chunk);
+          for (int k = 0; k < chunk; k++) {
+            if (floor[k] < 0 && ArgbUtil.alpha(pixels[k]) == 255) {
+              floor[k] = i;
+              pending--;
+            }
+          }
+        }
+
+        // the pixels with no opaque layer over them start from the bottom layer. while the
+        // layers from the bottom up are not read, every pixel of the chunk blends to the same
+        // value, so it is blended once and filled in
+        if (pending > 0) {
+          if (onBase) {
+            System.arraycopy(base, at, out, at, chunk);
+          } else if (empty[first]) {
+            long uniform = engine.load(fills[first]);
+            while (next < count && skip[next]) {
+              uniform = ArgbUtil.alpha(over[next]) == 0 ? engine.blendClear(uniform)
+                      : engine.blend(uniform, over[next]);
+              next++;
+            }
+            Arrays.fill(out, at, at + chunk, engine.store(uniform));
+          } else {
+            stack[first].readRow(row, col, out, at, chunk);
+          }
+        }
+
+        if (rowOps != null) {
+          // whole rows are blended at once. blending an opaque pixel gives exactly that pixel,
+          // so pixels with an opaque layer over them come out the same without being left out
+          int above = next;
+          if (pending == 0) {
+            System.arraycopy(rows[lowest], 0, out, at, chunk);
+            above = lowest + 1;
+          }
+          for (int i = above; i < count; i++) {
+            if (!skip[i]) {
+              rowOps.blendRow(out, at, rows[i], 0, chunk);
+            } else {
+              for (int k = at; k < at + chunk; k++) {
+                out[k] = ArgbUtil.alpha(over[i]) == 0 ? ArgbUtil.mergeClear(out[k])
+                        : ArgbUtil.merge(out[k], over[i]);
+              }
+            }
+          }
+          continue;
+        }
+
+        // each pixel is merged with each layer above where it starts in turn, like mergeLayers
+        for (int k = 0; k < chunk; k++) {
+          int i = floor[k];
+          long acc;
+          if (i >= 0) {
+            acc = engine.load(rows[i][k]);
+            i++;
+          } else {
+            acc = engine.load(out[at + k]);
+            i = next;
+          }
+          for (; i < count; i++) {
+            int top = skip[i] ? over[i] : rows[i][k];
+            acc = ArgbUtil.alpha(top) == 0 ? engine.blendClear(acc) : engine.blend(acc, top);
+          }
+          out[at + k] = engine.store(acc);
+        }
+      }
+    }
+  }
+}
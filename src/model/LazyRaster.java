@@ -0,0 +1,191 @@
+package model;
+
+import java.io.IOException;
+
+/**
+ * An IRaster whose pixels are not loaded until they are first read or written. Until then it
+ * only knows its size and how to load its pixels, so a layer which is never filtered,
+ * composited or exported never has its pixels loaded at all. Once loaded, every method is
+ * handed to the loaded raster. Loading happens at most once, even when rows are read by
+ * several threads at the same time.
+ */
+public class LazyRaster implements IRaster {
+  private final int height;
+  private final int width;
+  private final IRasterLoader loader;
+  private volatile IRaster loaded; // null until the pixels are first used
+
+  /**
+   * Constructs a raster of the given size whose pixels are loaded by the given loader the
+   * first time they are used.
+   *
+   * @param height the height of the raster
+   * @param width  the width of the raster
+   * @param loader loads the pixels, which must be a raster of the same size
+   * @throws IllegalArgumentException if the height or width are not positive, or the loader
+   *                                  is null
+   */
+  public LazyRaster(int height, int width, IRasterLoader loader)
+          throws IllegalArgumentException {
+    if (height <= 0 || width <= 0) {
+      throw new IllegalArgumentException("Raster width and height must be greater than 0.");
+    }
+    if (loader == null) {
+      throw new IllegalArgumentException("Cannot make a lazy raster with a null loader.");
+    }
+    this.height = height;
+    this.width = width;
+    this.loader = loader;
+  }
+
+  /**
+   * Determines if this raster's pixels have been loaded yet.
+   *
+   * @return a boolean which answers the question, "have the pixels been loaded?"
+   */
+  public boolean isLoaded() {
+    return this.loaded != null;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getPixel(int row, int col) throws IllegalArgumentException {
+    return this.pixels().getPixel(row, col);
+  }
+
+  @Override
+  public void setPixel(int row, int col, int argb) throws IllegalArgumentException {
+    this.pixels().setPixel(row, col, argb);
+  }
+
+  @Override
+  public void readRow(int row, int[] dst, int offset) throws IllegalArgumentException {
+    this.pixels().readRow(row, dst, offset);
+  }
+
+  @Override
+  public void writeRow(int row, int[] src, int offset) throws IllegalArgumentException {
+    this.pixels().writeRow(row, src, offset);
+  }
+
+  @Override
+  public void readRow(int row, int col, int[] dst, int offset, int length)
+          throws IllegalArgumentException {
+    this.pixels().readRow(row, col, dst, offset, length);
+  }
+
+  @Override
+  public void writeRow(int row, int col, int[] src, int offset, int length)
+          throws IllegalArgumentException {
+    this.pixels().writeRow(row, col, src, offset, length);
+  }
+
+  /**
+   * A raster which has not been loaded yet is not known to be empty anywhere.
+   */
+  @Override
+  public boolean isEmpty(int row, int col, int length) throws IllegalArgumentException {
+    IRaster current = this.loaded;
+    if (current == null) {
+      this.checkSpan(row, col, length);
+      return false;
+    }
+    return current.isEmpty(row, col, length);
+  }
+
+  @Override
+  public boolean isOpaque(int row, int col, int length) throws IllegalArgumentException {
+    IRaster current = this.loaded;
+    if (current == null) {
+      this.checkSpan(row, col, length);
+      return false;
+    }
+    return current.isOpaque(row, col, length);
+  }
+
+  @Override
+  public boolean isClear(int row, int col, int length) throws IllegalArgumentException {
+    IRaster current = this.loaded;
+    if (current == null) {
+      this.checkSpan(row, col, length);
+      return false;
+    }
+    return current.isClear(row, col, length);
+  }
+
+  @Override
+  public int getFillValue() {
+    IRaster current = this.loaded;
+    return current == null ? 0 : current.getFillValue();
+  }
+
+  @Override
+  public void fill(int argb) {
+    if (this.loaded == null) {
+      // every pixel is overwritten, so there is no need to load the old ones
+      synchronized (this) {
+        if (this.loaded == null) {
+          this.loaded = new SolidRaster(this.height, this.width, argb);
+          return;
+        }
+      }
+    }
+    this.loaded.fill(argb);
+  }
+
+  /**
+   * Copying a raster which has not been loaded yet gives another unloaded raster with the
+   * same loader, so layers can copy their original pixels without loading them.
+   */
+  @Override
+  public IRaster copy() {
+    IRaster current = this.loaded;
+    if (current == null) {
+      return new LazyRaster(this.height, this.width, this.loader);
+    }
+    return current.copy();
+  }
+
+  /**
+   * Private helper giving back the loaded pixels, loading them the first time.
+   */
+  private IRaster pixels() {
+    IRaster current = this.loaded;
+    if (current == null) {
+      synchronized (this) {
+        current = this.loaded;
+        if (current == null) {
+          try {
+            current = this.loader.load();
+          } catch (IOException e) {
+            throw new IllegalStateException("Could not load the pixels of the raster.");
+          }
+          if (current == null || current.getHeight() != this.height
+                  || current.getWidth() != this.width) {
+            throw new IllegalStateException("Loaded pixels do not match the size of the raster.");
+          }
+          this.loaded = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Private helper making sure the given part of a row exists.
+   */
+  private void checkSpan(int row, int col, int length) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || length < 0 || col > this.width - length) {
+      throw new IllegalArgumentException("Part of a row is out-of-bounds for this raster.");
+    }
+  }
+}
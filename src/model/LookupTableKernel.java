@@ -0,0 +1,73 @@
+package model;
+
+/**
+ * A kernel which maps each color component of a pixel through its own 256-entry table, leaving
+ * the alpha value unchanged. Any adjustment that changes each component on its own, like
+ * levels, gamma or curves, costs the same three array reads per pixel no matter how much math
+ * went into building the tables.
+ */
+public class LookupTableKernel implements IFilterKernel {
+  private final int[] red;
+  private final int[] green;
+  private final int[] blue;
+
+  /**
+   * Constructs a kernel which maps every color component through the same table.
+   *
+   * @param table the new value of each component, indexed by its old value
+   * @throws IllegalArgumentException if the table is null, does not have exactly 256 entries,
+   *                                  or has an entry outside of 0-255
+   */
+  public LookupTableKernel(int[] table) throws IllegalArgumentException {
+    this(table, table, table);
+  }
+
+  /**
+   * Constructs a kernel which maps each color component through its own table.
+   *
+   * @param red   the new value of the red component, indexed by its old value
+   * @param green the new value of the green component, indexed by its old value
+   * @param blue  the new value of the blue component, indexed by its old value
+   * @throws IllegalArgumentException if any table is null, does not have exactly 256 entries,
+   *                                  or has an entry outside of 0-255
+   */
+  public LookupTableKernel(int[] red, int[] green, int[] blue) throws IllegalArgumentException {
+    this.red = checkTable(red);
+    this.green = checkTable(green);
+    this.blue = checkTable(blue);
+  }
+
+  @Override
+  public int apply(int argb, int below) {
+    return (argb & 0xFF000000) | (this.red[(argb >>> 16) & 0xFF] << 16)
+            | (this.green[(argb >>> 8) & 0xFF] << 8) | this.blue[argb & 0xFF];
+  }
+
+  @Override
+  public void applyRow(int[] src, int[] below, int[] dst, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      dst[i] = this.apply(src[i], below[i]);
+    }
+  }
+
+  @Override
+  public boolean readsBelow() {
+    return false;
+  }
+
+  /**
+   * Private helper making sure a table maps every component to a valid component, and copying
+   * it so later changes to the given array do not change this kernel.
+   */
+  private static int[] checkTable(int[] table) throws IllegalArgumentException {
+    if (table == null || table.length != 256) {
+      throw new IllegalArgumentException("A lookup table must have exactly 256 entries.");
+    }
+    for (int n : table) {
+      if (n < 0 || n > 255) {
+        throw new IllegalArgumentException("Lookup table entries must be from 0-255.");
+      }
+    }
+    return table.clone();
+  }
+}
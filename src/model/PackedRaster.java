@@ -0,0 +1,188 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * An IRaster which keeps all of its pixels in one flat int array, one packed ARGB value per
+ * pixel, listed row by row. A 4000x3000 layer is a single 48MB array instead of 12 million
+ * pixel objects.
+ */
+public class PackedRaster implements IRaster {
+  private final int height;
+  private final int width;
+  private final int[] data; // row-major, the pixel at (row, col) is data[row * width + col]
+
+  /**
+   * Constructs a raster of the given size in which every pixel is fully-transparent black.
+   *
+   * @param height the height of the raster
+   * @param width  the width of the raster
+   * @throws IllegalArgumentException if the height or width are not positive
+   */
+  public PackedRaster(int height, int width) throws IllegalArgumentException {
+    this(height, width, 0);
+  }
+
+  /**
+   * Constructs a raster of the given size in which every pixel has the given value.
+   *
+   * @param height the height of the raster
+   * @param width  the width of the raster
+   * @param argb   the packed ARGB value given to every pixel
+   * @throws IllegalArgumentException if the height or width are not positive
+   */
+  public PackedRaster(int height, int width, int argb) throws IllegalArgumentException {
+    if (height <= 0 || width <= 0) {
+      throw new IllegalArgumentException("Raster width and height must be greater than 0.");
+    }
+    if ((long) height * width > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Raster is too large to be stored in one array.");
+    }
+    this.height = height;
+    this.width = width;
+    this.data = new int[height * width];
+    if (argb != 0) {
+      Arrays.fill(this.data, argb);
+    }
+  }
+
+  /**
+   * Constructs a raster of the given size on top of the given array, which holds the packed
+   * ARGB values row by row. The array is not copied, so changes to it are seen by the raster.
+   *
+   * @param height the height of the raster
+   * @param width  the width of the raster
+   * @param data   the packed ARGB values of the raster, listed row by row
+   * @throws IllegalArgumentException if the height or width are not positive, or if data is
+   *                                  null or does not have exactly height * width values
+   */
+  public PackedRaster(int height, int width, int[] data) throws IllegalArgumentException {
+    if (height <= 0 || width <= 0) {
+      throw new IllegalArgumentException("Raster width and height must be greater than 0.");
+    }
+    if (data == null || data.length != (long) height * width) {
+      throw new IllegalArgumentException("Raster data must have exactly one value per pixel.");
+    }
+    this.height = height;
+    this.width = width;
+    this.data = data;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getPixel(int row, int col) throws IllegalArgumentException {
+    this.checkBounds(row, col);
+    return this.data[row * this.width + col];
+  }
+
+  @Override
+  public void setPixel(int row, int col, int argb) throws IllegalArgumentException {
+    this.checkBounds(row, col);
+    this.data[row * this.width + col] = argb;
+  }
+
+  @Override
+  public void readRow(int row, int[] dst, int offset) throws IllegalArgumentException {
+    this.checkRow(row, dst, offset);
+    System.arraycopy(this.data, row * this.width, dst, offset, this.width);
+  }
+
+  @Override
+  public void writeRow(int row, int[] src, int offset) throws IllegalArgumentException {
+    this.checkRow(row, src, offset);
+    System.arraycopy(src, offset, this.data, row * this.width, this.width);
+  }
+
+  @Override
+  public void readRow(int row, int col, int[] dst, int offset, int length)
+          throws IllegalArgumentException {
+    this.checkSpan(row, col, dst, offset, length);
+    System.arraycopy(this.data, row * this.width + col, dst, offset, length);
+  }
+
+  @Override
+  public void writeRow(int row, int col, int[] src, int offset, int length)
+          throws IllegalArgumentException {
+    this.checkSpan(row, col, src, offset, length);
+    System.arraycopy(src, offset, this.data, row * this.width + col, length);
+  }
+
+  @Override
+  public boolean isEmpty(int row, int col, int length) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || length < 0 || col > this.width - length) {
+      throw new IllegalArgumentException("Part of a row is out-of-bounds for this raster.");
+    }
+    // every pixel is stored
+    return false;
+  }
+
+  @Override
+  public boolean isOpaque(int row, int col, int length) throws IllegalArgumentException {
+    // finding out would mean reading the pixels
+    return this.isEmpty(row, col, length);
+  }
+
+  @Override
+  public boolean isClear(int row, int col, int length) throws IllegalArgumentException {
+    return this.isEmpty(row, col, length);
+  }
+
+  @Override
+  public int getFillValue() {
+    return 0;
+  }
+
+  @Override
+  public void fill(int argb) {
+    Arrays.fill(this.data, argb);
+  }
+
+  @Override
+  public IRaster copy() {
+    return new PackedRaster(this.height, this.width, this.data.clone());
+  }
+
+  /**
+   * Private helper making sure the given coordinate is within this raster.
+   */
+  private void checkBounds(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || col < 0 || row >= this.height || col >= this.width) {
+      throw new IllegalArgumentException("Coordinate (" + row + ", " + col
+              + ") is out-of-bounds for this raster.");
+    }
+  }
+
+  /**
+   * Private helper making sure the given row exists and that the array can hold a full row.
+   */
+  private void checkRow(int row, int[] arr, int offset) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height) {
+      throw new IllegalArgumentException("Row value is out-of-bounds for this raster.");
+    }
+    if (arr == null || offset < 0 || arr.length - offset < this.width) {
+      throw new IllegalArgumentException("Array cannot hold a full row at the given offset.");
+    }
+  }
+
+  /**
+   * Private helper making sure the given part of a row exists and that the array can hold it.
+   */
+  private void checkSpan(int row, int col, int[] arr, int offset, int length)
+          throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || length < 0 || col > this.width - length) {
+      throw new IllegalArgumentException("Part of a row is out-of-bounds for this raster.");
+    }
+    if (arr == null || offset < 0 || arr.length - offset < length) {
+      throw new IllegalArgumentException("Array cannot hold the pixels at the given offset.");
+    }
+  }
+}
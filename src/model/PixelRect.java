@@ -0,0 +1,177 @@
+package model;
+
+/**
+ * An immutable rectangle of pixels in a layer, from row top and column left up to, but not
+ * including, row bottom and column right. Used to track which part of a layer has changed, so
+ * only that part needs to be filtered and composited again.
+ */
+public final class PixelRect {
+  // the rectangle which holds no pixels
+  public static final PixelRect EMPTY = new PixelRect(0, 0, 0, 0);
+
+  private final int top;
+  private final int left;
+  private final int bottom;
+  private final int right;
+
+  /**
+   * Constructs a rectangle from its edges. A rectangle with no rows or no columns is empty.
+   *
+   * @param top    the first row of the rectangle
+   * @param left   the first column of the rectangle
+   * @param bottom the row after the last row of the rectangle
+   * @param right  the column after the last column of the rectangle
+   * @throws IllegalArgumentException if top or left are negative, or if bottom is above top
+   *                                  or right is left of left
+   */
+  public PixelRect(int top, int left, int bottom, int right) throws IllegalArgumentException {
+    if (top < 0 || left < 0 || bottom < top || right < left) {
+      throw new IllegalArgumentException("Invalid edges for a rectangle of pixels.");
+    }
+    this.top = top;
+    this.left = left;
+    this.bottom = bottom;
+    this.right = right;
+  }
+
+  /**
+   * Creates the rectangle which covers an entire layer.
+   *
+   * @param height the height of the layer
+   * @param width  the width of the layer
+   * @return the rectangle from (0, 0) to (height, width)
+   * @throws IllegalArgumentException if height or width are negative
+   */
+  public static PixelRect of(int height, int width) throws IllegalArgumentException {
+    return new PixelRect(0, 0, height, width);
+  }
+
+  /**
+   * Gets the first row of this rectangle.
+   *
+   * @return the first row of this rectangle
+   */
+  public int getTop() {
+    return this.top;
+  }
+
+  /**
+   * Gets the first column of this rectangle.
+   *
+   * @return the first column of this rectangle
+   */
+  public int getLeft() {
+    return this.left;
+  }
+
+  /**
+   * Gets the row after the last row of this rectangle.
+   *
+   * @return the bottom edge of this rectangle
+   */
+  public int getBottom() {
+    return this.bottom;
+  }
+
+  /**
+   * Gets the column after the last column of this rectangle.
+   *
+   * @return the right edge of this rectangle
+   */
+  public int getRight() {
+    return this.right;
+  }
+
+  /**
+   * Gets the number of rows in this rectangle.
+   *
+   * @return the height of this rectangle
+   */
+  public int getHeight() {
+    return this.bottom - this.top;
+  }
+
+  /**
+   * Gets the number of columns in this rectangle.
+   *
+   * @return the width of this rectangle
+   */
+  public int getWidth() {
+    return this.right - this.left;
+  }
+
+  /**
+   * Determines if this rectangle holds no pixels.
+   *
+   * @return a boolean which answers the question, "is this rectangle empty?".
+   */
+  public boolean isEmpty() {
+    return this.top == this.bottom || this.left == this.right;
+  }
+
+  /**
+   * Creates the smallest rectangle which holds both this rectangle and the other one.
+   *
+   * @param other the rectangle joined with this one
+   * @return the bounding rectangle of both, which is just the other one if this is empty
+   * @throws IllegalArgumentException if other is null
+   */
+  public PixelRect union(PixelRect other) throws IllegalArgumentException {
+    if (other == null) {
+      throw new IllegalArgumentException("Cannot join a rectangle with null.");
+    }
+    if (other.isEmpty()) {
+      return this;
+    }
+    if (this.isEmpty()) {
+      return other;
+    }
+    return new PixelRect(Math.min(this.top, other.top), Math.min(this.left, other.left),
+            Math.max(this.bottom, other.bottom), Math.max(this.right, other.right));
+  }
+
+  /**
+   * Creates the part of this rectangle which lies within a layer of the given size.
+   *
+   * @param height the height of the layer
+   * @param width  the width of the layer
+   * @return this rectangle cut down to the layer, which may be empty
+   */
+  public PixelRect clip(int height, int width) {
+    int newBottom = Math.min(this.bottom, height);
+    int newRight = Math.min(this.right, width);
+    if (newBottom <= this.top || newRight <= this.left) {
+      return EMPTY;
+    }
+    return new PixelRect(this.top, this.left, newBottom, newRight);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof PixelRect)) {
+      return false;
+    }
+    PixelRect other = (PixelRect) o;
+    if (this.isEmpty() || other.isEmpty()) {
+      return this.isEmpty() && other.isEmpty();
+    }
+    return this.top == other.top && this.left == other.left
+            && this.bottom == other.bottom && this.right == other.right;
+  }
+
+  @Override
+  public int hashCode() {
+    if (this.isEmpty()) {
+      return 0;
+    }
+    return ((this.top * 31 + this.left) * 31 + this.bottom) * 31 + this.right;
+  }
+
+  @Override
+  public String toString() {
+    return "(" + this.top + ", " + this.left + ") to (" + this.bottom + ", " + this.right + ")";
+  }
+}
@@ -0,0 +1,100 @@
+package model;
+
+/**
+ * This class gives the row operations pixels are blended and filtered with. The scalar
+ * operations are always there. When the classes built from the vector source folder are on
+ * the class path, and the JVM was started with the jdk.incubator.vector module, the vector
+ * operations are loaded once, by name, and used by default; otherwise everything falls back
+ * to the scalar operations. Nothing else refers to the vector classes, so the rest of the
+ * program builds and runs without the module.
+ */
+public class PixelRowOps {
+  // the name of the class of the vector operations, which is only built with the module
+  private static final String VECTOR_CLASS = "model.VectorRowOps";
+
+  private static final IPixelRowOps SCALAR = new ScalarRowOps();
+  private static final IPixelRowOps VECTOR = loadVector();
+
+  /**
+   * Gets the operations which handle one pixel at a time.
+   *
+   * @return the scalar operations
+   */
+  public static IPixelRowOps scalar() {
+    return SCALAR;
+  }
+
+  /**
+   * Gets the operations which handle many pixels at a time with the JDK's Vector API, if they
+   * could be loaded.
+   *
+   * @return the vector operations, or null if they are not available
+   */
+  public static IPixelRowOps vector() {
+    return VECTOR;
+  }
+
+  /**
+   * Gets the operations the filters use: the vector operations when they are available, and
+   * the scalar operations otherwise.
+   *
+   * @return the default operations
+   */
+  public static IPixelRowOps getDefault() {
+    return VECTOR != null ? VECTOR : SCALAR;
+  }
+
+  /**
+   * Private helper loading the vector operations, giving back null if the class was not built
+   * or the module it needs is missing.
+   */
+  private static IPixelRowOps loadVector() {
+    try {
+      Class<?> found = Class.forName(VECTOR_CLASS);
+      return (IPixelRowOps) found.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Operations which handle one pixel at a time, with the same math as ArgbUtil.merge and the
+   * kernels in FilterKernels.
+   */
+  private static class ScalarRowOps implements IPixelRowOps {
+
+    @Override
+    public void blendRow(int[] acc, int accOffset, int[] top, int topOffset, int length) {
+      for (int i = 0; i < length; i++) {
+        acc[accOffset + i] = ArgbUtil.merge(acc[accOffset + i], top[topOffset + i]);
+      }
+    }
+
+    @Override
+    public void maskRow(int[] src, int[] dst, int offset, int length, int keep) {
+      for (int i = offset; i < offset + length; i++) {
+        dst[i] = src[i] & keep;
+      }
+    }
+
+    @Override
+    public void valueRow(int[] src, int[] dst, int offset, int length, int sign) {
+      for (int i = offset; i < offset + length; i++) {
+        int argb = src[i];
+        int r = ArgbUtil.red(argb);
+        int g = ArgbUtil.green(argb);
+        int b = ArgbUtil.blue(argb);
+        int value = sign * Math.max(Math.max(r, g), b);
+        dst[i] = (argb & 0xFF000000) | (clamp(r + value) << 16) | (clamp(g + value) << 8)
+                | clamp(b + value);
+      }
+    }
+
+    /**
+     * Private helper clamping a component into 0-255.
+     */
+    private static int clamp(int component) {
+      return Math.max(0, Math.min(255, component));
+    }
+  }
+}
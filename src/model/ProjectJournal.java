@@ -0,0 +1,443 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps track of the edits made to a project since it was last saved to, or loaded from, a
+ * binary .collage file, so that saving it again only appends those edits to a journal next to
+ * the file instead of rewriting every layer. The .collage file is the checkpoint, and the
+ * journal at the same path plus ".journal" lists the edits made after it:
+ * <ul>
+ * <li> header: the bytes "CLGJRNL\0", the int journal version, then the long size and last
+ *      modified time of the checkpoint the journal belongs to</li>
+ * <li> records: a byte for the kind of edit and the name of the layer it was made to, then for
+ *      a placed image its int x, y, height and width and its pixels as packed ARGB ints, or for
+ *      a filter the filter's description. A filter is either only set on the layer, or applied
+ *      to its pixels, which images placed on the layer later are merged with. Filters applied
+ *      while rendering the project are recorded too</li>
+ * </ul>
+ * Strings are written like in CollageFormat. Once the journal grows to half the size of its
+ * checkpoint, or an edit could not be kept, the next save writes a new checkpoint and an empty
+ * journal instead. A journal whose header does not match its checkpoint, such as one left
+ * behind when saving a checkpoint was cut short, is ignored.
+ */
+public class ProjectJournal {
+  // the current version of the journal, journals with a later version are ignored. version 2
+  // added applied filters
+  public static final int VERSION = 2;
+
+  private static final byte[] MAGIC = {'C', 'L', 'G', 'J', 'R', 'N', 'L', 0};
+  private static final int HEADER_SIZE = MAGIC.length + 4 + 8 + 8;
+  // the most bytes of placed images kept in memory while waiting to be saved
+  private static final long PENDING_LIMIT = 1L << 28;
+
+  private static final byte ADD_LAYER = 1;
+  private static final byte PLACE_IMAGE = 2;
+  private static final byte SET_FILTER = 3;
+  private static final byte APPLY_FILTER = 4;
+
+  private final List<Edit> pending; // the edits made since the last save, oldest first
+  private long pendingBytes; // roughly how many bytes the pending edits take in the journal
+  private boolean complete; // false once an edit was made which is not in pending
+  private String syncedPath; // the file this project was last saved to or loaded from
+
+  /**
+   * Constructs a journal for a project which has not been saved or loaded yet.
+   */
+  public ProjectJournal() {
+    this.pending = new ArrayList<>();
+    this.pendingBytes = 0;
+    this.complete = false;
+    this.syncedPath = null;
+  }
+
+  /**
+   * Records that a layer with the given name was added.
+   *
+   * @param layerName the name of the new layer
+   */
+  void addLayer(String layerName) {
+    this.record(new Edit(ADD_LAYER, layerName, null, 0, 0, null));
+  }
+
+  /**
+   * Records that the given image was placed on the layer with the given name. The image is kept
+   * until the next save, so it should not be changed after this.
+   *
+   * @param layerName the name of the layer the image was placed on
+   * @param img       the image
+   * @param x         the x-coordinate of the image's top-left corner
+   * @param y         the y-coordinate of the image's top-left corner
+   */
+  void placeImage(String layerName, IRaster img, int x, int y) {
+    this.record(new Edit(PLACE_IMAGE, layerName, null, x, y, img));
+  }
+
+  /**
+   * Records that the given filter was applied to the pixels of the layer with the given name.
+   *
+   * @param layerName the name of the layer
+   * @param filter    the filter applied to the layer
+   */
+  void applyFilter(String layerName, IFilterOption filter) {
+    this.record(new Edit(APPLY_FILTER, layerName, filter.toString(), 0, 0, null));
+  }
+
+  /**
+   * Records that the layer with the given name was given the given filter, without it being
+   * applied to its pixels.
+   *
+   * @param layerName the name of the layer
+   * @param filter    the layer's new filter
+   */
+  void setFilter(String layerName, IFilterOption filter) {
+    this.record(new Edit(SET_FILTER, layerName, filter.toString(), 0, 0, null));
+  }
+
+  /**
+   * Determines if the edits made now are kept until the next save, so that callers only make
+   * the copies of placed images which the journal needs when they will be kept.
+   *
+   * @return true if edits are being kept, false if the next save writes a checkpoint anyway
+   */
+  boolean isRecording() {
+    return this.complete;
+  }
+
+  /**
+   * Forgets every edit and the file the project was synced with, for when the whole project is
+   * replaced, such as when it is started again.
+   */
+  void reset() {
+    this.pending.clear();
+    this.pendingBytes = 0;
+    this.complete = false;
+    this.syncedPath = null;
+  }
+
+  /**
+   * Gets the number of edits made since the project was last saved or loaded.
+   *
+   * @return the number of edits waiting to be saved
+   */
+  public int getPendingEdits() {
+    return this.pending.size();
+  }
+
+  /**
+   * Saves the given project, which this is the journal of, to the binary .collage file at the
+   * given path. If the project was last saved to or loaded from that file, and the journal
+   * there is still small, only the edits made since are appended to the journal. Otherwise the
+   * whole project is written as a new checkpoint, with an empty journal.
+   *
+   * @param path    the path of the .collage file
+   * @param project the project being saved
+   * @return true if only the edits were appended, false if a checkpoint was written
+   * @throws IllegalArgumentException if the path or project are null, or the path is invalid
+   * @throws IOException              if the files cannot be written
+   */
+  public boolean save(String path, IProject project) throws IllegalArgumentException,
+          IOException {
+    if (path == null || project == null) {
+      throw new IllegalArgumentException("Cannot save a null project or to a null path.");
+    }
+    Path checkpoint;
+    Path journal;
+    try {
+      checkpoint = Paths.get(path).toAbsolutePath();
+      journal = Paths.get(journalPath(path)).toAbsolutePath();
+    } catch (InvalidPathException e) {
+      throw new IllegalArgumentException("Invalid path to save the project to.");
+    }
+
+    if (this.complete && path.equals(this.syncedPath) && matches(journal, checkpoint)
+            && Files.size(journal) + this.pendingBytes <= Files.size(checkpoint) / 2) {
+      this.append(journal);
+      return true;
+    }
+
+    CollageFormat.replaceFile(checkpoint, project::writeProject);
+    long size = Files.size(checkpoint);
+    long modified = Files.getLastModifiedTime(checkpoint).toMillis();
+    CollageFormat.replaceFile(journal, out -> {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.put(MAGIC).putInt(VERSION).putLong(size).putLong(modified);
+      header.flip();
+      while (header.hasRemaining()) {
+        out.write(header);
+      }
+    });
+    this.pending.clear();
+    this.pendingBytes = 0;
+    this.complete = true;
+    this.syncedPath = path;
+    return false;
+  }
+
+  /**
+   * Loads the binary project in the .collage file at the given path into the given model, like
+   * CollageFormat.load, and then makes the edits in its journal, if it has one which belongs to
+   * it. A journal which ends part way through an edit, like one cut short while being saved,
+   * is replayed up to that edit.
+   *
+   * @param path  the path of the .collage file
+   * @param model the model the project is loaded into
+   * @param lazy  true to load each layer's pixels the first time they are used, false to load
+   *              them all now
+   * @throws IllegalArgumentException if the path or model are null, the file is not a valid
+   *                                  binary collage project, or an edit in its journal cannot
+   *                                  be made
+   * @throws IOException              if the files cannot be read
+   */
+  public static void load(String path, IProject model, boolean lazy)
+          throws IllegalArgumentException, IOException {
+    CollageFormat.load(path, model, lazy);
+    Path checkpoint = Paths.get(path).toAbsolutePath();
+    Path journal = Paths.get(journalPath(path)).toAbsolutePath();
+    if (matches(journal, checkpoint)) {
+      try (InputStream in = Files.newInputStream(journal)) {
+        replay(new DataInputStream(new BufferedInputStream(in)), model);
+      }
+    }
+    // the replayed edits are already saved, so the project starts out in sync with the file
+    ProjectJournal modelJournal = model.getJournal();
+    modelJournal.reset();
+    modelJournal.complete = true;
+    modelJournal.syncedPath = path;
+  }
+
+  /**
+   * Gets the path of the journal which belongs to the .collage file at the given path.
+   *
+   * @param path the path of the .collage file
+   * @return the path of its journal
+   */
+  public static String journalPath(String path) {
+    return path + ".journal";
+  }
+
+  /**
+   * Private helper keeping an edit until the next save, unless too much is being kept already,
+   * in which case the next save writes a checkpoint instead.
+   */
+  private void record(Edit edit) {
+    if (!this.complete) {
+      // nothing to append to, so the next save is a checkpoint anyway
+      return;
+    }
+    long bytes = edit.size();
+    if (this.pendingBytes + bytes > PENDING_LIMIT) {
+      this.pending.clear();
+      this.pendingBytes = 0;
+      this.complete = false;
+      return;
+    }
+    this.pending.add(edit);
+    this.pendingBytes += bytes;
+  }
+
+  /**
+   * Private helper appending every pending edit to the journal and forcing it to disk.
+   */
+  private void append(Path journal) throws IOException {
+    try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND)) {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+              Channels.newOutputStream(channel), 1 << 16));
+      for (Edit edit : this.pending) {
+        edit.write(out);
+      }
+      out.flush();
+      channel.force(false);
+    }
+    this.pending.clear();
+    this.pendingBytes = 0;
+  }
+
+  /**
+   * Private helper determining if the file at the journal path is a journal for the given
+   * checkpoint, by its header.
+   */
+  private static boolean matches(Path journal, Path checkpoint) throws IOException {
+    if (!Files.isRegularFile(journal) || !Files.isRegularFile(checkpoint)
+            || Files.size(journal) < HEADER_SIZE) {
+      return false;
+    }
+    try (DataInputStream in = new DataInputStream(Files.newInputStream(journal))) {
+      byte[] magic = new byte[MAGIC.length];
+      in.readFully(magic);
+      int version = in.readInt();
+      long size = in.readLong();
+      long modified = in.readLong();
+      return Arrays.equals(magic, MAGIC) && version >= 1 && version <= VERSION
+              && size == Files.size(checkpoint)
+              && modified == Files.getLastModifiedTime(checkpoint).toMillis();
+    }
+  }
+
+  /**
+   * Private helper making each edit in the journal after its header, stopping at its end or at
+   * an edit which was cut short.
+   */
+  private static void replay(DataInputStream in, IProject model) throws IOException {
+    in.skipBytes(HEADER_SIZE);
+    while (true) {
+      int kind = in.read();
+      if (kind < 0) {
+        return;
+      }
+      try {
+        String layerName = readString(in);
+        switch (kind) {
+          case ADD_LAYER:
+            model.addLayer(layerName);
+            break;
+          case PLACE_IMAGE:
+            int x = in.readInt();
+            int y = in.readInt();
+            int height = in.readInt();
+            int width = in.readInt();
+            model.addLayerRaster(layerName, readPixels(in, height, width), x, y);
+            break;
+          case SET_FILTER:
+            model.setFilterToCertainLayers(Filters.parse(readString(in)), layerName);
+            break;
+          case APPLY_FILTER:
+            model.applyFilterToCertainLayer(Filters.parse(readString(in)), layerName);
+            break;
+          default:
+            throw new IllegalArgumentException("Invalid project journal: unknown edit.");
+        }
+      } catch (EOFException e) {
+        // the last edit was cut short, so it was never saved
+        return;
+      }
+    }
+  }
+
+  /**
+   * Private helper reading the pixels of a placed image.
+   */
+  private static IRaster readPixels(DataInputStream in, int height, int width)
+          throws IOException {
+    if (height <= 0 || width <= 0) {
+      throw new IllegalArgumentException("Invalid project journal: bad image size.");
+    }
+    IRaster img = new PackedRaster(height, width);
+    byte[] bytes = new byte[4 * width];
+    IntBuffer ints = ByteBuffer.wrap(bytes).asIntBuffer();
+    int[] row = new int[width];
+    for (int i = 0; i < height; i++) {
+      in.readFully(bytes);
+      ints.clear();
+      ints.get(row);
+      img.writeRow(i, row, 0);
+    }
+    return img;
+  }
+
+  /**
+   * Private helper reading a string written by writeString.
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > (1 << 20)) {
+      throw new IllegalArgumentException("Invalid project journal: bad string length.");
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Private helper writing a string as its number of bytes and then its UTF-8 bytes.
+   */
+  private static void writeString(DataOutputStream out, String str) throws IOException {
+    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * One edit made to a project, as it is written to the journal.
+   */
+  private static class Edit {
+    private final byte kind;
+    private final String layerName;
+    private final String filter;
+    private final int x;
+    private final int y;
+    private final IRaster img;
+
+    /**
+     * Constructs an edit, only the fields used by its kind are set.
+     */
+    Edit(byte kind, String layerName, String filter, int x, int y, IRaster img) {
+      this.kind = kind;
+      this.layerName = layerName;
+      this.filter = filter;
+      this.x = x;
+      this.y = y;
+      this.img = img;
+    }
+
+    /**
+     * Estimates the number of bytes this edit takes up in the journal.
+     */
+    long size() {
+      long size = 1 + 4 + 4L * this.layerName.length();
+      if (this.img != null) {
+        size += 16 + 4L * this.img.getHeight() * this.img.getWidth();
+      }
+      if (this.filter != null) {
+        size += 4 + 4L * this.filter.length();
+      }
+      return size;
+    }
+
+    /**
+     * Writes this edit to the journal.
+     */
+    void write(DataOutputStream out) throws IOException {
+      out.writeByte(this.kind);
+      writeString(out, this.layerName);
+      if (this.kind == PLACE_IMAGE) {
+        int width = this.img.getWidth();
+        out.writeInt(this.x);
+        out.writeInt(this.y);
+        out.writeInt(this.img.getHeight());
+        out.writeInt(width);
+        int[] row = new int[width];
+        ByteBuffer bytes = ByteBuffer.allocate(4 * width);
+        IntBuffer ints = bytes.asIntBuffer();
+        for (int i = 0; i < this.img.getHeight(); i++) {
+          this.img.readRow(i, row, 0);
+          ints.clear();
+          ints.put(row);
+          out.write(bytes.array(), 0, bytes.capacity());
+        }
+      } else if (this.kind == SET_FILTER || this.kind == APPLY_FILTER) {
+        writeString(out, this.filter);
+      }
+    }
+  }
+}
@@ -94,29 +94,16 @@ public class RGBPixel implements IPixel {
           // apply the filter
           filteredPixel.apply(f);
 
-          // get h,s,l values for filtered pixel, so we can convert back
-          String[] filteredPixelList = filteredPixel.toString().split(" ", -1);
-          int filteredH = Integer.parseInt(filteredPixelList[0]);
-          double filteredS = Double.parseDouble(filteredPixelList[1]);
-          double filteredL = Double.parseDouble(filteredPixelList[2]);
-
-
           // now convert back
           IPixel convertedBack =
-                  RepresentationConverter.convertHSLtoRGB(filteredH, filteredS, filteredL,
+                  RepresentationConverter.convertHSLtoRGB(filteredPixel.getHue(),
+                          filteredPixel.getSaturation(), filteredPixel.getLightness(),
                           this.a, this.pixelBelow);
 
-
-          // get r, g, b values for convertedBack pixel so we can mutate this pixel to its values.
-          String[] convertedList = convertedBack.toString().split(" ", -1);
-          int convertedR = Integer.parseInt(convertedList[0]);
-          int convertedG = Integer.parseInt(convertedList[1]);
-          int convertedB = Integer.parseInt(convertedList[2]);
-
           // finally, mutate this pixel's values to now be filtered.
-          this.r = convertedR;
-          this.g = convertedG;
-          this.b = convertedB;
+          this.r = convertedBack.getRed();
+          this.g = convertedBack.getGreen();
+          this.b = convertedBack.getBlue();
         }
 
         break;
@@ -218,19 +205,15 @@ public class RGBPixel implements IPixel {
 
           // if the below pixel is HSL, need to convert to RGB.
           if (this.pixelBelow.isHSL()) {
-            String[] str = this.pixelBelow.toString().split(" ", -1);
-            int h = Integer.parseInt(str[0]);
-            double s = Double.parseDouble(str[1]);
-            double l = Double.parseDouble(str[2]);
-            this.pixelBelow = RepresentationConverter.convertHSLtoRGB(h, s, l, this.a,
-                    this.pixelBelow.getPixelBelow());
+            this.pixelBelow = RepresentationConverter.convertHSLtoRGB(
+                    this.pixelBelow.getHue(), this.pixelBelow.getSaturation(),
+                    this.pixelBelow.getLightness(), this.a, this.pixelBelow.getPixelBelow());
           }
 
           // now we get r g and b values of below pixels.
-          String[] str2 = this.pixelBelow.toString().split(" ", -1);
-          int rPrime = Integer.parseInt(str2[0]);
-          int gPrime = Integer.parseInt(str2[1]);
-          int bPrime = Integer.parseInt(str2[2]);
+          int rPrime = this.pixelBelow.getRed();
+          int gPrime = this.pixelBelow.getGreen();
+          int bPrime = this.pixelBelow.getBlue();
 
           // now mutate, "applying" the filter.
           this.r = Math.abs(this.r - rPrime);
@@ -252,11 +235,10 @@ public class RGBPixel implements IPixel {
 
   @Override
   public IPixel merge(IPixel bgPix) {
-    String[] bgPixStr = bgPix.toString().split(" ", -1);
-    int dR = Integer.parseInt(bgPixStr[0]);
-    int dG = Integer.parseInt(bgPixStr[1]);
-    int dB = Integer.parseInt(bgPixStr[2]);
-    double dA = Integer.parseInt(bgPixStr[3].replace("\n", ""));
+    int dR = bgPix.getRed();
+    int dG = bgPix.getGreen();
+    int dB = bgPix.getBlue();
+    double dA = bgPix.getAlpha();
 
     // merge with other pixel being the pixel below so dA is below a.
     // so this pixel is on top being merged with other below.
@@ -308,6 +290,50 @@ public class RGBPixel implements IPixel {
   }
 
 
+  @Override
+  public int getRed() {
+    return this.r;
+  }
+
+  @Override
+  public int getGreen() {
+    return this.g;
+  }
+
+  @Override
+  public int getBlue() {
+    return this.b;
+  }
+
+  @Override
+  public int getAlpha() {
+    return this.a;
+  }
+
+  @Override
+  public int getHue() {
+    return RepresentationConverter.convertRGBtoHSL(this.r, this.g, this.b, this.a, null).getHue();
+  }
+
+  @Override
+  public double getSaturation() {
+    return RepresentationConverter.convertRGBtoHSL(
+            this.r, this.g, this.b, this.a, null).getSaturation();
+  }
+
+  @Override
+  public double getLightness() {
+    return RepresentationConverter.convertRGBtoHSL(
+            this.r, this.g, this.b, this.a, null).getLightness();
+  }
+
+  @Override
+  public int getARGB() {
+    // filters like darken can leave components outside of 0-255, so they are clamped here.
+    return (this.clamp(this.a) << 24) | (this.clamp(this.r) << 16)
+            | (this.clamp(this.g) << 8) | this.clamp(this.b);
+  }
+
   @Override
   public int getMaxValue() {
     return this.maxValue;
@@ -344,6 +370,13 @@ public class RGBPixel implements IPixel {
   }
 
 
+  /**
+   * Private helper which clamps a component into the range 0-255 for packing.
+   */
+  private int clamp(int n) {
+    return Math.max(0, Math.min(255, n));
+  }
+
   /**
    * Private helper for constructor making sure a value is valid (within 0-255).
    */
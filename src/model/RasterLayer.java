@@ -0,0 +1,515 @@
+package model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a layer for a collage project whose pixels are stored in packed rasters
+ * instead of lists of pixel objects. IPixels are only created when one is asked for through
+ * getPixel or getOriginalPixel, and those pixels are copies: changing them does not change
+ * the layer. Like CollageLayer, the original pixels are kept so that filters are always
+ * applied to the unfiltered image. The rasters a layer makes are tiled, so copies of its
+ * pixels share their tiles until one of them is written to.
+ */
+public class RasterLayer implements ILayer {
+  private final String name;
+  private final IRaster originalPix; // original pixels before any filters applied
+  // the original pixels with this layer's filter applied, the original pixels themselves
+  // while the layer is not filtered
+  private IRaster currentPix;
+  private final int height;
+  private final int width;
+  private IFilterOption filter;
+  private long version; // goes up whenever the original pixels change
+  private String filteredWith; // the filter currentPix was made with
+  private PixelRect stale; // the part of currentPix which is out of date with originalPix
+  private PixelRect changed; // the part of currentPix changed since drainChangedRegion
+  private PixelRect content; // outside of it, every original pixel has the fill value
+  private PixelRect currentContent; // outside of it, every current pixel has the fill value
+
+  /**
+   * Constructs a raster layer for a collage project from rows of pixels.
+   *
+   * @param name   the name which will be given to this layer
+   * @param pixels the image of this layer, lists the rows of pixels,
+   *               which themselves are lists of pixels.
+   * @param height the height which will be used for this layer
+   * @param width  integer for this layer's width
+   * @throws IllegalArgumentException if name or pixels == null
+   *        OR if the height/width are invalid
+   *        OR if pixels is empty
+   *        OR if pixels has empty rows
+   *        OR if pixels does not have an equal amount of pixels in each row
+   *        OR if the provided height/width are not consistent with the 2D list of pixels
+   */
+  public RasterLayer(String name, List<List<IPixel>> pixels, int height, int width)
+          throws IllegalArgumentException {
+    this(name, pixels, FilterOption.NORM, height, width);
+  }
+
+  /**
+   * Constructs a raster layer for a collage project from rows of pixels, with the given filter
+   * set as the layer's filter.
+   *
+   * @param name   the name which will be given to this layer
+   * @param pixels the image of this layer, lists the rows of pixels,
+   *               which themselves are lists of pixels.
+   * @param filter the filter which will be set as this layer's filter
+   * @param height the height which will be used for this layer
+   * @param width  integer for this layer's width
+   * @throws IllegalArgumentException if name or pixels == null
+   *        OR if the height/width are invalid
+   *        OR if pixels is empty
+   *        OR if pixels has empty rows
+   *        OR if pixels does not have an equal amount of pixels in each row
+   *        OR if the provided height/width are not consistent with the 2D list of pixels
+   */
+  public RasterLayer(String name, List<List<IPixel>> pixels, IFilterOption filter,
+                     int height, int width) throws IllegalArgumentException {
+    this(name, RasterLayer.toRaster(name, pixels, height, width), filter);
+  }
+
+  /**
+   * Constructs a raster layer for a collage project which uses the given raster as its original
+   * pixels. The raster is not copied, so it should not be changed after being given to the layer.
+   *
+   * @param name   the name which will be given to this layer
+   * @param pixels the image of this layer
+   * @param filter the filter which will be set as this layer's filter
+   * @throws IllegalArgumentException if name, pixels or filter == null
+   */
+  public RasterLayer(String name, IRaster pixels, IFilterOption filter)
+          throws IllegalArgumentException {
+    if (name == null || pixels == null || filter == null) {
+      throw new IllegalArgumentException("Layer cannot have null value for its name, pixels"
+              + " or filter.");
+    }
+    this.name = name;
+    this.originalPix = pixels;
+    this.height = pixels.getHeight();
+    this.width = pixels.getWidth();
+    this.filter = filter;
+    // until a filter is applied the current pixels are the original pixels, so a raster which
+    // loads its pixels lazily only loads them once
+    this.currentPix = pixels;
+    this.version = 0;
+    this.filteredWith = FilterOption.NORM.toString();
+    this.stale = PixelRect.EMPTY;
+    this.changed = PixelRect.of(this.height, this.width);
+    // a layer made of one color, like a new layer, has no content until images are placed on it
+    this.content = RasterLayer.storedBounds(pixels);
+    this.currentContent = this.content;
+  }
+
+  @Override
+  public String getName() {
+    return this.name;
+  }
+
+  @Override
+  public IPixel getOriginalPixel(int row, int col) throws IllegalArgumentException {
+    this.checkBounds(row, col);
+    return ArgbUtil.toPixel(this.originalPix.getPixel(row, col), null);
+  }
+
+  @Override
+  public IPixel getPixel(int row, int col) throws IllegalArgumentException {
+    this.checkBounds(row, col);
+    IPixel below = null;
+    if (row < this.height - 1) {
+      below = ArgbUtil.toPixel(this.currentPix.getPixel(row + 1, col), null);
+    }
+    return ArgbUtil.toPixel(this.currentPix.getPixel(row, col), below);
+  }
+
+  @Override
+  public void readRow(int row, int[] dst, int offset) throws IllegalArgumentException {
+    this.currentPix.readRow(row, dst, offset);
+  }
+
+  @Override
+  public void readRow(int row, int col, int[] dst, int offset, int length)
+          throws IllegalArgumentException {
+    this.currentPix.readRow(row, col, dst, offset, length);
+  }
+
+  @Override
+  public boolean isEmpty(int row, int col, int length) throws IllegalArgumentException {
+    return this.currentPix.isEmpty(row, col, length);
+  }
+
+  @Override
+  public boolean isOpaque(int row, int col, int length) throws IllegalArgumentException {
+    return this.currentPix.isOpaque(row, col, length);
+  }
+
+  @Override
+  public boolean isClear(int row, int col, int length) throws IllegalArgumentException {
+    return this.currentPix.isClear(row, col, length);
+  }
+
+  @Override
+  public int getFillValue() {
+    return this.currentPix.getFillValue();
+  }
+
+  @Override
+  public void readOriginalRow(int row, int[] dst, int offset) throws IllegalArgumentException {
+    this.originalPix.readRow(row, dst, offset);
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public void applyFilter(IFilterOption f) {
+    this.filter = f;
+    if (this.isFiltered(f)) {
+      // neither the original pixels nor the filter changed, so the result would be the same
+      return;
+    }
+    if (f.toString().equals("normal")) {
+      // the unaltered state of the original image is the original image itself, so only the
+      // pixels which changed since the last time it was applied are marked
+      this.changed = f.toString().equals(this.filteredWith) ? this.changed.union(this.stale)
+              : PixelRect.of(this.height, this.width);
+      this.currentPix = this.originalPix;
+    } else if (f.toString().equals(this.filteredWith)) {
+      // only the pixels which changed since the last time this filter was applied are redone
+      FilterExecutor.getDefault().filter(this.originalPix, this.currentPix, f.compile(),
+              this.stale);
+      this.changed = this.changed.union(this.stale);
+    } else {
+      // the filter is looked up once, then run over bands of rows in parallel. the pixels
+      // which are not stored are filtered once, into the fill value of the filtered pixels,
+      // so parts of the layer left empty stay empty, and only the content is filtered
+      IFilterKernel kernel = f.compile();
+      int fill = this.originalPix.getFillValue();
+      IRaster filtered = new SolidRaster(this.height, this.width, kernel.apply(fill, fill));
+      FilterExecutor.getDefault().filter(this.originalPix, filtered, kernel,
+              this.filteredContent(kernel));
+      this.currentPix = filtered;
+      this.changed = PixelRect.of(this.height, this.width);
+    }
+    this.stale = PixelRect.EMPTY;
+    this.filteredWith = f.toString();
+    this.currentContent = this.filteredContent(f.compile());
+  }
+
+  @Override
+  public long getVersion() {
+    return this.version;
+  }
+
+  /**
+   * Filters are told apart by their descriptions, which include the parameters of
+   * adjustments like gamma.
+   */
+  @Override
+  public boolean isFiltered(IFilterOption f) {
+    return f != null && this.stale.isEmpty() && f.toString().equals(this.filteredWith);
+  }
+
+  @Override
+  public PixelRect drainChangedRegion() {
+    PixelRect region = this.changed;
+    this.changed = PixelRect.EMPTY;
+    return region;
+  }
+
+  @Override
+  public PixelRect getContentBounds() {
+    return this.currentContent;
+  }
+
+  @Override
+  public IFilterOption getFilter() {
+    return this.filter;
+  }
+
+  /**
+   * The pixels are the original, unfiltered pixels, as the filter is written with them and is
+   * applied to them again when the project is loaded.
+   */
+  @Override
+  public String toString() {
+    StringBuilder str = new StringBuilder();
+    str.append(this.name).append(" ").append(this.filter.toString()).append("\n");
+    for (int row = 0; row < this.height; row++) {
+      for (int col = 0; col < this.width; col++) {
+        int argb = this.originalPix.getPixel(row, col);
+        str.append(ArgbUtil.red(argb)).append(" ").append(ArgbUtil.green(argb)).append(" ")
+                .append(ArgbUtil.blue(argb)).append(" ").append(ArgbUtil.alpha(argb))
+                .append("\n");
+      }
+    }
+    return str.toString();
+  }
+
+  @Override
+  public List<List<IPixel>> getPixelArrayCopy() {
+    List<List<IPixel>> list = new ArrayList<>();
+    for (int i = 0; i < this.height; i++) {
+      List<IPixel> embeddedList = new ArrayList<>();
+      for (int k = 0; k < this.width; k++) {
+        embeddedList.add(ArgbUtil.toPixel(this.originalPix.getPixel(i, k), null));
+      }
+      list.add(embeddedList);
+    }
+    return list;
+  }
+
+  @Override
+  public IRaster getRasterCopy() {
+    return this.originalPix.copy();
+  }
+
+  @Override
+  public void addImg(List<List<IPixel>> img, int x, int y) throws IllegalArgumentException {
+    if (img == null) {
+      throw new IllegalArgumentException("Cannot use null as an image.");
+    }
+    if (img.size() == 0 || img.get(0).size() == 0) {
+      throw new IllegalArgumentException("Cannot use an image without any pixels.");
+    }
+    int imgWidth = img.get(0).size();
+    IRaster raster = new PackedRaster(img.size(), imgWidth);
+    for (int i = 0; i < img.size(); i++) {
+      if (img.get(i).size() < imgWidth) {
+        throw new IllegalArgumentException("Image rows do not have the same amount of pixels.");
+      }
+      for (int k = 0; k < imgWidth; k++) {
+        raster.setPixel(i, k, ArgbUtil.fromPixel(img.get(i).get(k)));
+      }
+    }
+    this.addRasterImg(raster, x, y);
+  }
+
+  @Override
+  public void addRasterImg(IRaster img, int x, int y) throws IllegalArgumentException {
+    if (img == null) {
+      throw new IllegalArgumentException("Cannot use null as an image.");
+    }
+    // throwing an exception if the x/y are out-of-bounds
+    if (x < 0 || y < 0 || x > this.width || y > this.height) {
+      throw new IllegalArgumentException("Coordinate out-of-bounds. X/Y must be positive"
+              + " and within the layer.");
+    }
+    // like CollageLayer, x offsets the rows of the image and y offsets its columns
+    if (x + img.getHeight() > this.height || y + img.getWidth() > this.width) {
+      throw new IllegalArgumentException("Image too large to be placed at given coordinates.");
+    }
+    this.version++;
+    // filters which read the pixel below also change the row above the image
+    this.stale = this.stale.union(new PixelRect(Math.max(0, x - 1), y,
+            x + img.getHeight(), y + img.getWidth()));
+    this.content = this.content.union(new PixelRect(x, y, x + img.getHeight(),
+            y + img.getWidth()));
+    // the image is merged a row at a time, so only the tiles under it are written
+    int imgWidth = img.getWidth();
+    int[] imgRow = new int[imgWidth];
+    int[] merged = new int[imgWidth];
+    for (int i = 0; i < img.getHeight(); i++) {
+      img.readRow(i, imgRow, 0);
+      this.currentPix.readRow(i + x, y, merged, 0, imgWidth);
+      for (int k = 0; k < imgWidth; k++) {
+        merged[k] = ArgbUtil.merge(imgRow[k], merged[k]);
+      }
+      if (this.currentPix == this.originalPix) {
+        // the current pixels keep what they were until the filter is applied again. reading
+        // the row loaded them, so the copy does not load them a second time
+        this.currentPix = this.originalPix.copy();
+      }
+      this.originalPix.writeRow(i + x, y, merged, 0, imgWidth);
+    }
+  }
+
+  @Override
+  public void setFilter(IFilterOption f) {
+    this.filter = f;
+  }
+
+  /**
+   * Pixels in a raster layer do not hold references to each other, the pixel below any pixel
+   * is always the one in the same column of the next row. So there is nothing to set.
+   */
+  @Override
+  public void setAllBelowPixels() {
+    // the relationship is implicit in the raster, see getPixel and applyFilter.
+  }
+
+  @Override
+  public String getPPM() throws IOException {
+    Appendable textPPM = new StringBuilder();
+    try {
+      textPPM.append("P3\n# ").append(this.name).append(".ppm\n");
+      textPPM.append(String.valueOf(this.width)).append(" ").append(String.valueOf(this.height));
+      textPPM.append("\n").append(String.valueOf(255));
+      textPPM.append("\n");
+      for (int row = 0; row < this.height; row++) {
+        for (int col = 0; col < this.width; col++) {
+          int current = this.currentPix.getPixel(row, col);
+          textPPM.append(String.valueOf(ArgbUtil.red(current))).append(" ");
+          textPPM.append(String.valueOf(ArgbUtil.green(current))).append(" ");
+          textPPM.append(String.valueOf(ArgbUtil.blue(current)));
+          if (col == this.width - 1) {
+            // the case where the pixel is the last in the row
+            textPPM.append("\n");
+          } else {
+            // the case where the pixel is not the last in the row
+            textPPM.append(" ");
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new IOException("Could not append to the string builder.");
+    }
+    return textPPM.toString();
+  }
+
+  @Override
+  public ILayer mergeLayers(ILayer other) {
+    IRaster otherPix = other.getRasterCopy();
+    IRaster mergedPixels = new PackedRaster(this.height, this.width);
+
+    // for each pixel in currentPix, merge with corresponding pixel in other layer.
+    for (int i = 0; i < this.height; i++) {
+      for (int j = 0; j < this.width; j++) {
+        mergedPixels.setPixel(i, j,
+                ArgbUtil.merge(this.currentPix.getPixel(i, j), otherPix.getPixel(i, j)));
+      }
+    }
+    return new RasterLayer(other.getName(), mergedPixels, FilterOption.NORM);
+  }
+
+  /**
+   * Private helper giving the rectangle outside of which the given raster stores no pixels,
+   * found a tile-sized chunk at a time, so a raster which stores every pixel gives back the
+   * whole raster after looking at a few chunks.
+   */
+  private static PixelRect storedBounds(IRaster pixels) {
+    int height = pixels.getHeight();
+    int width = pixels.getWidth();
+    int top = 0;
+    while (top < height && pixels.isEmpty(top, 0, width)) {
+      top++;
+    }
+    if (top == height) {
+      return PixelRect.EMPTY;
+    }
+    int bottom = height;
+    while (pixels.isEmpty(bottom - 1, 0, width)) {
+      bottom--;
+    }
+    int left = 0;
+    while (RasterLayer.isEmpty(pixels, top, bottom, left,
+            Math.min(TiledRaster.TILE_SIZE, width - left))) {
+      left += TiledRaster.TILE_SIZE;
+    }
+    int right = width;
+    int last = (width - 1) / TiledRaster.TILE_SIZE * TiledRaster.TILE_SIZE;
+    while (RasterLayer.isEmpty(pixels, top, bottom, last, right - last)) {
+      right = last;
+      last -= TiledRaster.TILE_SIZE;
+    }
+    return new PixelRect(top, left, bottom, right);
+  }
+
+  /**
+   * Private helper determining if the given raster stores none of the given columns of the
+   * given rows.
+   */
+  private static boolean isEmpty(IRaster pixels, int top, int bottom, int col, int length) {
+    for (int row = top; row < bottom; row++) {
+      if (!pixels.isEmpty(row, col, length)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Private helper giving the rectangle outside of which every pixel the given kernel filters
+   * the original pixels into has the filtered fill value. Kernels which read the pixel below
+   * also change the row above the content, and leave the bottom row unfiltered.
+   */
+  private PixelRect filteredContent(IFilterKernel kernel) {
+    if (!kernel.readsBelow()) {
+      return this.content;
+    }
+    PixelRect grown = this.content;
+    if (!grown.isEmpty()) {
+      grown = new PixelRect(Math.max(0, grown.getTop() - 1), grown.getLeft(), grown.getBottom(),
+              grown.getRight());
+    }
+    int fill = this.originalPix.getFillValue();
+    if (kernel.apply(fill, fill) != fill) {
+      grown = grown.union(new PixelRect(this.height - 1, 0, this.height, this.width));
+    }
+    return grown;
+  }
+
+  /**
+   * Private helper making sure the given coordinate is within this layer.
+   */
+  private void checkBounds(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || col < 0) {
+      throw new IllegalArgumentException("Cannot have a pixel with a negative row or column");
+    }
+    if (row >= this.height) {
+      throw new IllegalArgumentException("Row value is out-of-bounds for this layer.");
+    }
+    if (col >= this.width) {
+      throw new IllegalArgumentException("Column value is out-of-bounds for this layer.");
+    }
+  }
+
+  /**
+   * Private helper which validates the given rows of pixels the same way CollageLayer does,
+   * and packs them into a raster.
+   */
+  private static IRaster toRaster(String name, List<List<IPixel>> pixels, int height, int width)
+          throws IllegalArgumentException {
+    if (name == null || pixels == null) {
+      throw new IllegalArgumentException("Layer cannot have null value for its name or rows of" +
+              " pixels.");
+    }
+    if (width <= 0 || height <= 0) {
+      // checking if the provided width or height is invalid
+      throw new IllegalArgumentException("Layer width and height must be greater than 0.");
+    }
+    // checking that pixels is not an empty list, or has empty rows
+    if (pixels.size() == 0 || pixels.get(0).size() == 0) {
+      throw new IllegalArgumentException("Cannot have a layer with no rows, or without an pixels"
+              + " in one of its rows.");
+    }
+    // checking that all rows have the right amount of pixels for the specified width
+    for (int i = 0; i < pixels.size(); i++) {
+      if (pixels.get(i).size() != width) {
+        throw new IllegalArgumentException("Row " + (i + 1) + " does not have an amount pixels"
+                + " equal to the given width.");
+      }
+    }
+    // making sure that provided width and height match pixel dimensions
+    if (pixels.size() != height) {
+      throw new IllegalArgumentException("Provided height and width do not match the dimensions"
+              + " of the given pixels.");
+    }
+    IRaster raster = new TiledRaster(height, width);
+    for (int row = 0; row < height; row++) {
+      List<IPixel> pixRow = pixels.get(row);
+      for (int col = 0; col < width; col++) {
+        raster.setPixel(row, col, ArgbUtil.fromPixel(pixRow.get(col)));
+      }
+    }
+    return raster;
+  }
+}
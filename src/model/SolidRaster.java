@@ -0,0 +1,201 @@
+package model;
+
+/**
+ * An IRaster in which every pixel has one color, stored as just that color. It takes the same
+ * memory whatever its size, until a pixel is set to some other color; from then on its pixels
+ * are kept in a TiledRaster filled with the color, so it still only stores the tiles which
+ * were written to. Backgrounds and newly added layers start out as solid rasters.
+ */
+public class SolidRaster implements IRaster {
+  private final int height;
+  private final int width;
+  private int color; // the color of every pixel, until the pixels are stored
+  private volatile IRaster stored; // null until a pixel is set to another color
+
+  /**
+   * Constructs a raster of the given size in which every pixel has the given color.
+   *
+   * @param height the height of the raster
+   * @param width  the width of the raster
+   * @param argb   the packed ARGB value of every pixel
+   * @throws IllegalArgumentException if the height or width are not positive
+   */
+  public SolidRaster(int height, int width, int argb) throws IllegalArgumentException {
+    if (height <= 0 || width <= 0) {
+      throw new IllegalArgumentException("Raster width and height must be greater than 0.");
+    }
+    this.height = height;
+    this.width = width;
+    this.color = argb;
+  }
+
+  /**
+   * Determines if every pixel of this raster still has the color it was made with, so that
+   * none of them are stored.
+   *
+   * @return a boolean which answers the question, "is every pixel the same color?"
+   */
+  public boolean isSolid() {
+    return this.stored == null;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getPixel(int row, int col) throws IllegalArgumentException {
+    IRaster current = this.stored;
+    if (current != null) {
+      return current.getPixel(row, col);
+    }
+    if (row < 0 || col < 0 || row >= this.height || col >= this.width) {
+      throw new IllegalArgumentException("Coordinate (" + row + ", " + col
+              + ") is out-of-bounds for this raster.");
+    }
+    return this.color;
+  }
+
+  @Override
+  public void setPixel(int row, int col, int argb) throws IllegalArgumentException {
+    if (this.stored == null && argb == this.color) {
+      this.getPixel(row, col); // only checks the bounds
+      return;
+    }
+    this.pixels().setPixel(row, col, argb);
+  }
+
+  @Override
+  public void readRow(int row, int[] dst, int offset) throws IllegalArgumentException {
+    this.readRow(row, 0, dst, offset, this.width);
+  }
+
+  @Override
+  public void writeRow(int row, int[] src, int offset) throws IllegalArgumentException {
+    this.writeRow(row, 0, src, offset, this.width);
+  }
+
+  @Override
+  public void readRow(int row, int col, int[] dst, int offset, int length)
+          throws IllegalArgumentException {
+    IRaster current = this.stored;
+    if (current != null) {
+      current.readRow(row, col, dst, offset, length);
+      return;
+    }
+    this.checkSpan(row, col, length);
+    if (dst == null || offset < 0 || dst.length - offset < length) {
+      throw new IllegalArgumentException("Array cannot hold the pixels at the given offset.");
+    }
+    for (int i = offset; i < offset + length; i++) {
+      dst[i] = this.color;
+    }
+  }
+
+  @Override
+  public void writeRow(int row, int col, int[] src, int offset, int length)
+          throws IllegalArgumentException {
+    if (this.stored == null) {
+      this.checkSpan(row, col, length);
+      if (src == null || offset < 0 || src.length - offset < length) {
+        throw new IllegalArgumentException("Array cannot hold the pixels at the given offset.");
+      }
+      int i = offset;
+      while (i < offset + length && src[i] == this.color) {
+        i++;
+      }
+      if (i == offset + length) {
+        // every pixel keeps the color
+        return;
+      }
+    }
+    this.pixels().writeRow(row, col, src, offset, length);
+  }
+
+  @Override
+  public boolean isEmpty(int row, int col, int length) throws IllegalArgumentException {
+    IRaster current = this.stored;
+    if (current != null) {
+      return current.isEmpty(row, col, length);
+    }
+    this.checkSpan(row, col, length);
+    return true;
+  }
+
+  @Override
+  public boolean isOpaque(int row, int col, int length) throws IllegalArgumentException {
+    IRaster current = this.stored;
+    if (current != null) {
+      return current.isOpaque(row, col, length);
+    }
+    this.checkSpan(row, col, length);
+    return ArgbUtil.alpha(this.color) == 255;
+  }
+
+  @Override
+  public boolean isClear(int row, int col, int length) throws IllegalArgumentException {
+    IRaster current = this.stored;
+    if (current != null) {
+      return current.isClear(row, col, length);
+    }
+    this.checkSpan(row, col, length);
+    return ArgbUtil.alpha(this.color) == 0;
+  }
+
+  @Override
+  public int getFillValue() {
+    IRaster current = this.stored;
+    return current == null ? this.color : current.getFillValue();
+  }
+
+  /**
+   * Filling drops any stored pixels, so the raster is solid again.
+   */
+  @Override
+  public synchronized void fill(int argb) {
+    this.color = argb;
+    this.stored = null;
+  }
+
+  @Override
+  public IRaster copy() {
+    IRaster current = this.stored;
+    if (current == null) {
+      return new SolidRaster(this.height, this.width, this.color);
+    }
+    return current.copy();
+  }
+
+  /**
+   * Private helper giving back the raster the pixels are stored in, making it the first time
+   * a pixel is written to.
+   */
+  private IRaster pixels() {
+    IRaster current = this.stored;
+    if (current == null) {
+      synchronized (this) {
+        current = this.stored;
+        if (current == null) {
+          current = new TiledRaster(this.height, this.width, this.color);
+          this.stored = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Private helper making sure the given part of a row exists.
+   */
+  private void checkSpan(int row, int col, int length) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || length < 0 || col > this.width - length) {
+      throw new IllegalArgumentException("Part of a row is out-of-bounds for this raster.");
+    }
+  }
+}
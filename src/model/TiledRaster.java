@@ -0,0 +1,441 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * An IRaster which keeps its pixels in square tiles, 256x256 by default, each tile one int
+ * array of packed ARGB values listed row by row. Copies share their tiles: copy only copies
+ * the references to them, and a tile is cloned the first time either raster writes to it, so
+ * a copy costs one reference per tile and an edit costs only the tiles it touches. Tiles on
+ * the right and bottom edges are only as large as the part of the raster they cover.
+ * Tiles are sparse: a tile is not stored until a pixel in it is set to something other than
+ * the raster's fill value, so a layer holding one small image stores only the tiles under it.
+ * Rows of the same tile may be written by several threads at the same time, as long as no
+ * two threads write the same pixels and the raster is not copied or filled while it is being
+ * written.
+ * Each stored tile also remembers whether all of its pixels are opaque or all of them are
+ * transparent, found the first time it is asked after the tile was last written, so the
+ * compositor can skip the layers under opaque tiles and never read transparent ones.
+ */
+public class TiledRaster implements IRaster {
+  // the default width and height of a tile
+  public static final int TILE_SIZE = 256;
+  // what is known about the alpha values of a stored tile
+  private static final byte UNKNOWN = 0;
+  private static final byte OPAQUE = 1;
+  private static final byte CLEAR = 2;
+  private static final byte MIXED = 3;
+
+  private final int height;
+  private final int width;
+  private final int shift; // the tile size is 1 << shift
+  private final int mask; // the tile size - 1, the position of a pixel within its tile
+  private final int across; // the number of tiles in each row of tiles
+  private final int[][] tiles; // row-major, the tile holding (row, col) is
+                               // tiles[(row >> shift) * across + (col >> shift)],
+                               // null for a tile whose pixels all have the fill value
+  private final AtomicIntegerArray owned; // 1 for each stored tile only this raster uses
+  private final byte[] coverage; // what is known about the alpha values of each stored tile,
+                                 // UNKNOWN again whenever the tile is written
+  private int fill; // the value of every pixel in a tile which is not stored
+
+  /**
+   * Constructs a raster of the given size in which every pixel is fully-transparent black.
+   *
+   * @param height the height of the raster
+   * @param width  the width of the raster
+   * @throws IllegalArgumentException if the height or width are not positive
+   */
+  public TiledRaster(int height, int width) throws IllegalArgumentException {
+    this(height, width, 0);
+  }
+
+  /**
+   * Constructs a raster of the given size in which every pixel has the given value.
+   *
+   * @param height the height of the raster
+   * @param width  the width of the raster
+   * @param argb   the packed ARGB value given to every pixel
+   * @throws IllegalArgumentException if the height or width are not positive
+   */
+  public TiledRaster(int height, int width, int argb) throws IllegalArgumentException {
+    this(height, width, argb, TILE_SIZE);
+  }
+
+  /**
+   * Constructs a raster of the given size, split into tiles of the given size, in which every
+   * pixel has the given value.
+   *
+   * @param height   the height of the raster
+   * @param width    the width of the raster
+   * @param argb     the packed ARGB value given to every pixel
+   * @param tileSize the width and height of each tile, a power of two
+   * @throws IllegalArgumentException if the height, width or tile size are not positive, the
+   *                                  tile size is not a power of two, or there would be more
+   *                                  tiles than fit in an array
+   */
+  public TiledRaster(int height, int width, int argb, int tileSize)
+          throws IllegalArgumentException {
+    if (height <= 0 || width <= 0) {
+      throw new IllegalArgumentException("Raster width and height must be greater than 0.");
+    }
+    if (tileSize <= 0 || Integer.bitCount(tileSize) != 1) {
+      throw new IllegalArgumentException("Tile size must be a positive power of two.");
+    }
+    this.height = height;
+    this.width = width;
+    this.shift = Integer.numberOfTrailingZeros(tileSize);
+    this.mask = tileSize - 1;
+    this.across = (width + this.mask) >> this.shift;
+    long count = (long) this.across * ((height + this.mask) >> this.shift);
+    if (count > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Raster has too many tiles to be stored.");
+    }
+    // no tiles are stored until they are written to
+    this.tiles = new int[(int) count][];
+    this.owned = new AtomicIntegerArray((int) count);
+    this.coverage = new byte[(int) count];
+    this.fill = argb;
+  }
+
+  /**
+   * Private constructor for a copy, which shares every tile of the given raster.
+   */
+  private TiledRaster(TiledRaster source) {
+    this.height = source.height;
+    this.width = source.width;
+    this.shift = source.shift;
+    this.mask = source.mask;
+    this.across = source.across;
+    this.tiles = source.tiles.clone();
+    this.owned = new AtomicIntegerArray(this.tiles.length);
+    this.coverage = source.coverage.clone();
+    this.fill = source.fill;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getPixel(int row, int col) throws IllegalArgumentException {
+    this.checkBounds(row, col);
+    int tileCol = col >> this.shift;
+    int[] tile = this.tiles[(row >> this.shift) * this.across + tileCol];
+    if (tile == null) {
+      return this.fill;
+    }
+    return tile[(row & this.mask) * this.tileWidth(tileCol) + (col & this.mask)];
+  }
+
+  @Override
+  public void setPixel(int row, int col, int argb) throws IllegalArgumentException {
+    this.checkBounds(row, col);
+    int tileCol = col >> this.shift;
+    int t = (row >> this.shift) * this.across + tileCol;
+    if (argb == this.fill && this.tiles[t] == null) {
+      return;
+    }
+    this.ownTile(t)[(row & this.mask) * this.tileWidth(tileCol) + (col & this.mask)] = argb;
+    this.coverage[t] = UNKNOWN;
+  }
+
+  @Override
+  public void readRow(int row, int[] dst, int offset) throws IllegalArgumentException {
+    this.readRow(row, 0, dst, offset, this.width);
+  }
+
+  @Override
+  public void writeRow(int row, int[] src, int offset) throws IllegalArgumentException {
+    this.writeRow(row, 0, src, offset, this.width);
+  }
+
+  @Override
+  public void readRow(int row, int col, int[] dst, int offset, int length)
+          throws IllegalArgumentException {
+    this.checkSpan(row, col, dst, offset, length);
+    int base = (row >> this.shift) * this.across;
+    int inRow = row & this.mask;
+    while (length > 0) {
+      int tileCol = col >> this.shift;
+      int tileWidth = this.tileWidth(tileCol);
+      int inCol = col & this.mask;
+      int n = Math.min(length, tileWidth - inCol);
+      int[] tile = this.tiles[base + tileCol];
+      if (tile == null) {
+        Arrays.fill(dst, offset, offset + n, this.fill);
+      } else {
+        System.arraycopy(tile, inRow * tileWidth + inCol, dst, offset, n);
+      }
+      col += n;
+      offset += n;
+      length -= n;
+    }
+  }
+
+  @Override
+  public void writeRow(int row, int col, int[] src, int offset, int length)
+          throws IllegalArgumentException {
+    this.checkSpan(row, col, src, offset, length);
+    int base = (row >> this.shift) * this.across;
+    int inRow = row & this.mask;
+    while (length > 0) {
+      int tileCol = col >> this.shift;
+      int tileWidth = this.tileWidth(tileCol);
+      int inCol = col & this.mask;
+      int n = Math.min(length, tileWidth - inCol);
+      int t = base + tileCol;
+      // pixels which keep the fill value do not need a tile stored for them
+      if (this.tiles[t] != null || !this.allFill(src, offset, n)) {
+        System.arraycopy(src, offset, this.ownTile(t), inRow * tileWidth + inCol, n);
+        this.coverage[t] = UNKNOWN;
+      }
+      col += n;
+      offset += n;
+      length -= n;
+    }
+  }
+
+  @Override
+  public boolean isEmpty(int row, int col, int length) throws IllegalArgumentException {
+    this.checkSpan(row, col, length);
+    if (length == 0) {
+      return true;
+    }
+    int base = (row >> this.shift) * this.across;
+    for (int tileCol = col >> this.shift; tileCol <= (col + length - 1) >> this.shift;
+         tileCol++) {
+      if (this.tiles[base + tileCol] != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean isOpaque(int row, int col, int length) throws IllegalArgumentException {
+    return this.isCovered(row, col, length, OPAQUE);
+  }
+
+  @Override
+  public boolean isClear(int row, int col, int length) throws IllegalArgumentException {
+    return this.isCovered(row, col, length, CLEAR);
+  }
+
+  @Override
+  public int getFillValue() {
+    return this.fill;
+  }
+
+  /**
+   * Every tile is dropped, so a filled raster stores no tiles at all.
+   */
+  @Override
+  public synchronized void fill(int argb) {
+    for (int t = 0; t < this.tiles.length; t++) {
+      this.owned.set(t, 0);
+      this.tiles[t] = null;
+      this.coverage[t] = UNKNOWN;
+    }
+    this.fill = argb;
+  }
+
+  @Override
+  public synchronized IRaster copy() {
+    // both rasters clone a stored tile before they next write to it
+    for (int t = 0; t < this.tiles.length; t++) {
+      this.owned.set(t, 0);
+    }
+    return new TiledRaster(this);
+  }
+
+  /**
+   * Gets the number of tiles this raster is split into.
+   *
+   * @return the number of tiles
+   */
+  public int getTileCount() {
+    return this.tiles.length;
+  }
+
+  /**
+   * Gets the number of this raster's tiles which are stored, because some pixel in them does
+   * not have the fill value.
+   *
+   * @return the number of stored tiles
+   */
+  public int getStoredTileCount() {
+    int count = 0;
+    for (int t = 0; t < this.tiles.length; t++) {
+      if (this.tiles[t] != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Gets the number of this raster's stored tiles which may still be shared with a copy of
+   * it, or with the raster it is a copy of, because neither has written to them since the
+   * copy.
+   *
+   * @return the number of shared tiles
+   */
+  public int getSharedTileCount() {
+    int count = 0;
+    for (int t = 0; t < this.tiles.length; t++) {
+      if (this.tiles[t] != null && this.owned.get(t) == 0) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Private helper giving back the tile at the given index to be written to, storing it
+   * first if it is not stored and cloning it first if it may be shared. A tile stops being
+   * shared by this raster once it is cloned, the raster it was shared with still clones it
+   * the first time it writes to it.
+   */
+  private int[] ownTile(int t) {
+    // reading the flag as 1 also makes the tile stored before it was set visible
+    if (this.owned.get(t) != 0) {
+      return this.tiles[t];
+    }
+    synchronized (this) {
+      if (this.owned.get(t) == 0) {
+        int[] tile = this.tiles[t];
+        if (tile == null) {
+          tile = new int[this.tileHeight(t / this.across) * this.tileWidth(t % this.across)];
+          if (this.fill != 0) {
+            Arrays.fill(tile, this.fill);
+          }
+        } else {
+          tile = tile.clone();
+        }
+        this.tiles[t] = tile;
+        this.owned.set(t, 1);
+      }
+      return this.tiles[t];
+    }
+  }
+
+  /**
+   * Private helper determining if every tile under the given part of a row has the given
+   * coverage, working out the coverage of the stored tiles which are not known.
+   */
+  private boolean isCovered(int row, int col, int length, byte kind)
+          throws IllegalArgumentException {
+    this.checkSpan(row, col, length);
+    if (length == 0) {
+      return true;
+    }
+    byte fillKind = this.kindOf(this.fill, this.fill);
+    int base = (row >> this.shift) * this.across;
+    for (int tileCol = col >> this.shift; tileCol <= (col + length - 1) >> this.shift;
+         tileCol++) {
+      int t = base + tileCol;
+      int[] tile = this.tiles[t];
+      if (tile == null) {
+        if (fillKind != kind) {
+          return false;
+        }
+        continue;
+      }
+      if (this.coverage[t] == UNKNOWN) {
+        this.coverage[t] = this.coverageOf(tile);
+      }
+      if (this.coverage[t] != kind) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Private helper finding if the given pixels are all opaque, all transparent, or neither.
+   */
+  private byte coverageOf(int[] pixels) {
+    int and = 0xFFFFFFFF;
+    int or = 0;
+    for (int pixel : pixels) {
+      and &= pixel;
+      or |= pixel;
+    }
+    return this.kindOf(and, or);
+  }
+
+  /**
+   * Private helper giving the coverage of pixels from the bitwise and, and the bitwise or, of
+   * all of their values.
+   */
+  private byte kindOf(int and, int or) {
+    if (ArgbUtil.alpha(and) == 255) {
+      return OPAQUE;
+    }
+    return ArgbUtil.alpha(or) == 0 ? CLEAR : MIXED;
+  }
+
+  /**
+   * Private helper determining if the given values all equal the fill value.
+   */
+  private boolean allFill(int[] values, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      if (values[i] != this.fill) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Private helper giving the width of the tiles in the given column of tiles.
+   */
+  private int tileWidth(int tileCol) {
+    return Math.min(this.mask + 1, this.width - (tileCol << this.shift));
+  }
+
+  /**
+   * Private helper giving the height of the tiles in the given row of tiles.
+   */
+  private int tileHeight(int tileRow) {
+    return Math.min(this.mask + 1, this.height - (tileRow << this.shift));
+  }
+
+  /**
+   * Private helper making sure the given coordinate is within this raster.
+   */
+  private void checkBounds(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || col < 0 || row >= this.height || col >= this.width) {
+      throw new IllegalArgumentException("Coordinate (" + row + ", " + col
+              + ") is out-of-bounds for this raster.");
+    }
+  }
+
+  /**
+   * Private helper making sure the given part of a row exists.
+   */
+  private void checkSpan(int row, int col, int length) throws IllegalArgumentException {
+    if (row < 0 || row >= this.height || col < 0 || length < 0 || col > this.width - length) {
+      throw new IllegalArgumentException("Part of a row is out-of-bounds for this raster.");
+    }
+  }
+
+  /**
+   * Private helper making sure the given part of a row exists and that the array can hold it.
+   */
+  private void checkSpan(int row, int col, int[] arr, int offset, int length)
+          throws IllegalArgumentException {
+    this.checkSpan(row, col, length);
+    if (arr == null || offset < 0 || arr.length - offset < length) {
+      throw new IllegalArgumentException("Array cannot hold the pixels at the given offset.");
+    }
+  }
+}
@@ -0,0 +1,122 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import model.ArgbUtil;
+import model.BlendEngines;
+import model.FilterOption;
+import model.IBlendEngine;
+import model.ILayer;
+import model.IRaster;
+import model.LayerCompositor;
+import model.PackedRaster;
+import model.RasterLayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the BlendEngines class, and for compositing with each of its engines.
+ */
+public class BlendEnginesTest {
+
+  /**
+   * Test that the exact engine blends exactly as merge does.
+   */
+  @Test
+  public void testExact() {
+    IBlendEngine exact = BlendEngines.exact();
+    Random rand = new Random(24);
+    for (int i = 0; i < 10000; i++) {
+      int pix = rand.nextInt();
+      int top = rand.nextInt();
+      assertEquals(ArgbUtil.merge(pix, top), exact.store(exact.blend(exact.load(pix), top)));
+      assertEquals(ArgbUtil.mergeClear(pix), exact.store(exact.blendClear(exact.load(pix))));
+    }
+  }
+
+  /**
+   * Test that a single blend with the fixed-point engine is within 1 of merge, exact for an
+   * opaque pixel on top, and that pixels are stored as they were loaded.
+   */
+  @Test
+  public void testFixedPointBlend() {
+    IBlendEngine fixed = BlendEngines.fixedPoint();
+    Random rand = new Random(24);
+    for (int i = 0; i < 100000; i++) {
+      int pix = rand.nextInt();
+      int top = rand.nextInt();
+      long acc = fixed.load(pix);
+      assertEquals(pix, fixed.store(acc));
+      assertTrue(this.difference(ArgbUtil.merge(pix, top), fixed.store(fixed.blend(acc, top)))
+              <= 1);
+      assertTrue(this.difference(ArgbUtil.mergeClear(pix), fixed.store(fixed.blendClear(acc)))
+              <= 1);
+      int opaque = top | 0xFF000000;
+      assertEquals(opaque, fixed.store(fixed.blend(acc, opaque)));
+    }
+  }
+
+  /**
+   * Test that compositing a stack of translucent layers with the fixed-point engine stays
+   * within the documented tolerance of compositing them exactly.
+   */
+  @Test
+  public void testFixedPointComposite() {
+    Random rand = new Random(24);
+    List<ILayer> layers = new ArrayList<>();
+    for (int i = 0; i < 24; i++) {
+      IRaster raster = new PackedRaster(30, 40);
+      for (int row = 0; row < 30; row++) {
+        for (int col = 0; col < 40; col++) {
+          int alpha = rand.nextInt(8) == 0 ? 0 : rand.nextInt(256);
+          raster.setPixel(row, col, ArgbUtil.pack(rand.nextInt(256), rand.nextInt(256),
+                  rand.nextInt(256), alpha));
+        }
+      }
+      layers.add(new RasterLayer("layer" + i, raster, FilterOption.NORM));
+    }
+    int[] exact = new int[30 * 40];
+    int[] fixed = new int[30 * 40];
+    new LayerCompositor(BlendEngines.exact()).composite(layers, 0, 30, 40, exact);
+    new LayerCompositor(BlendEngines.fixedPoint()).composite(layers, 0, 30, 40, fixed);
+    for (int i = 0; i < exact.length; i++) {
+      assertTrue(this.difference(exact[i], fixed[i]) <= BlendEngines.FIXED_POINT_TOLERANCE);
+    }
+  }
+
+  /**
+   * Test that compositors blend with the default engine unless given one, and that no engine
+   * cannot be used.
+   */
+  @Test
+  public void testDefaultEngine() {
+    assertEquals(BlendEngines.exact(), LayerCompositor.getDefaultEngine());
+    try {
+      new LayerCompositor((IBlendEngine) null);
+      fail("Made a compositor without an engine.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+    try {
+      LayerCompositor.setDefaultEngine(null);
+      fail("Set the default engine to null.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+  }
+
+  /**
+   * Private helper giving the largest difference between the components of two pixels.
+   */
+  private int difference(int first, int second) {
+    int most = 0;
+    for (int shift = 0; shift < 32; shift += 8) {
+      most = Math.max(most, Math.abs(((first >>> shift) & 0xFF) - ((second >>> shift) & 0xFF)));
+    }
+    return most;
+  }
+}
@@ -0,0 +1,180 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Random;
+import java.util.Set;
+
+import model.AdjustmentFilter;
+import model.ArgbUtil;
+import model.CollageFormat;
+import model.CollageProject;
+import model.FilterOption;
+import model.ILayer;
+import model.IProject;
+import model.IRaster;
+import model.PackedRaster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the CollageFormat class, which saves and loads binary collage projects.
+ */
+public class CollageFormatTest {
+  IProject project;
+  File file;
+
+  @Before
+  public void init() throws IOException {
+    Random rand = new Random(1111);
+    project = new CollageProject("saved project", 5, 7);
+    project.addLayer("first");
+    project.addLayer("second");
+    IRaster img = new PackedRaster(4, 6);
+    for (int row = 0; row < 4; row++) {
+      for (int col = 0; col < 6; col++) {
+        img.setPixel(row, col, ArgbUtil.pack(rand.nextInt(256), rand.nextInt(256),
+                rand.nextInt(256), rand.nextInt(256)));
+      }
+    }
+    project.addLayerRaster("first", img, 0, 0);
+    project.addLayerRaster("second", img, 1, 1);
+    project.setFilterToCertainLayers(FilterOption.BLUE, "first");
+    project.setFilterToCertainLayers(AdjustmentFilter.gamma(2.2), "second");
+
+    file = File.createTempFile("project", ".collage");
+    file.deleteOnExit();
+  }
+
+  /**
+   * Test that a saved project loads back with the same layers, filters and image.
+   */
+  @Test
+  public void testRoundTrip() throws IOException {
+    CollageFormat.write(project.getName(), project.returnAllLayers(), 255, file.getPath());
+    assertTrue(CollageFormat.isBinaryProject(file.getPath()));
+
+    IProject loaded = new CollageProject("untitled", 1, 1);
+    CollageFormat.load(file.getPath(), loaded);
+    assertEquals("saved project", loaded.getName());
+
+    ILayer expected = project.compressToImage("final");
+    ILayer actual = loaded.compressToImage("final");
+    assertEquals(project.formatProject(), loaded.formatProject());
+    for (int row = 0; row < 5; row++) {
+      for (int col = 0; col < 7; col++) {
+        assertEquals(expected.getPixel(row, col).getARGB(), actual.getPixel(row, col).getARGB());
+      }
+    }
+  }
+
+  /**
+   * Test that a lazily loaded project matches an eagerly loaded one, and that saving it over
+   * the file it is still loading from keeps its pixels.
+   */
+  @Test
+  public void testLazyLoad() throws IOException {
+    CollageFormat.write(project.getName(), project.returnAllLayers(), 255, file.getPath());
+    IProject lazy = new CollageProject("untitled", 1, 1);
+    CollageFormat.load(file.getPath(), lazy, true);
+    assertEquals(3, lazy.returnAllLayers().size());
+
+    // replaces the file before any layer has been used
+    CollageFormat.write("other", new CollageProject("other", 2, 2).returnAllLayers(), 255,
+            file.getPath());
+    ILayer expected = project.compressToImage("final");
+    ILayer actual = lazy.compressToImage("final");
+    assertEquals(project.formatProject(), lazy.formatProject());
+    for (int row = 0; row < 5; row++) {
+      for (int col = 0; col < 7; col++) {
+        assertEquals(expected.getPixel(row, col).getARGB(), actual.getPixel(row, col).getARGB());
+      }
+    }
+  }
+
+  /**
+   * Test that saving over a file keeps its permissions, and a new file gets the same
+   * permissions as any other new file, rather than only being readable by its owner.
+   */
+  @Test
+  public void testSavedPermissions() throws IOException {
+    if (Files.getFileAttributeView(file.toPath(), PosixFileAttributeView.class) == null) {
+      // only file systems with POSIX permissions can be checked
+      return;
+    }
+    Set<PosixFilePermission> kept = PosixFilePermissions.fromString("rw-r-----");
+    Files.setPosixFilePermissions(file.toPath(), kept);
+    CollageFormat.write(project.getName(), project.returnAllLayers(), 255, file.getPath());
+    assertEquals(kept, Files.getPosixFilePermissions(file.toPath()));
+
+    Path dir = Files.createTempDirectory("permissions");
+    Path plain = Files.createFile(dir.resolve("plain"));
+    Path saved = dir.resolve("saved.collage");
+    CollageFormat.write(project.getName(), project.returnAllLayers(), 255, saved.toString());
+    assertEquals(Files.getPosixFilePermissions(plain), Files.getPosixFilePermissions(saved));
+    Files.delete(plain);
+    Files.delete(saved);
+    Files.delete(dir);
+  }
+
+  /**
+   * Test that text projects and missing files are not taken for binary projects.
+   */
+  @Test
+  public void testIsBinaryProject() throws IOException {
+    Files.write(file.toPath(), project.formatProject().getBytes());
+    assertFalse(CollageFormat.isBinaryProject(file.getPath()));
+    assertFalse(CollageFormat.isBinaryProject("not/a/real/file.collage"));
+    assertFalse(CollageFormat.isBinaryProject(null));
+  }
+
+  /**
+   * Test for the exceptions thrown when loading invalid projects.
+   */
+  @Test
+  public void testInvalidLoad() throws IOException {
+    // a text project
+    Files.write(file.toPath(), project.formatProject().getBytes());
+    try {
+      CollageFormat.load(file.getPath(), new CollageProject("untitled", 1, 1));
+      fail("Loaded a text project as a binary one.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+
+    // a later version of the format
+    CollageFormat.write(project.getName(), project.returnAllLayers(), 255, file.getPath());
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.seek(8);
+      raf.writeInt(CollageFormat.VERSION + 1);
+    }
+    try {
+      CollageFormat.load(file.getPath(), new CollageProject("untitled", 1, 1));
+      fail("Loaded a project of an unknown version.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+
+    // a project cut off part way through its pixels
+    CollageFormat.write(project.getName(), project.returnAllLayers(), 255, file.getPath());
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(raf.length() - 4);
+    }
+    try {
+      CollageFormat.load(file.getPath(), new CollageProject("untitled", 1, 1));
+      fail("Loaded a project missing pixels.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+  }
+}
@@ -1,4 +1,5 @@
 import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -6,6 +7,8 @@ import model.IFilterOption;
 import model.ILayer;
 import model.IPixel;
 import model.IProject;
+import model.IRaster;
+import model.ProjectJournal;
 
 /**
  * Mock class for testing controller's interaction with the model.
@@ -53,6 +56,16 @@ public class CollageProjectMock implements IProject {
     return null;
   }
 
+  @Override
+  public void writeProject(WritableByteChannel out) throws IOException {
+    this.log.append("write project\n");
+  }
+
+  @Override
+  public ProjectJournal getJournal() {
+    return new ProjectJournal();
+  }
+
   /**
    * Mock for addLayer.
    * @param name what the new layer will be named
@@ -118,6 +131,35 @@ public class CollageProjectMock implements IProject {
     return null;
   }
 
+  @Override
+  public void compressInto(int[] out) {
+    try {
+      this.log.append("compress into\n");
+    } catch (IOException e) {
+      // do nothing
+    }
+  }
+
+  @Override
+  public int getHeight() {
+    return 0;
+  }
+
+  @Override
+  public int getWidth() {
+    return 0;
+  }
+
+  @Override
+  public long getFilterCacheHits() {
+    return 0;
+  }
+
+  @Override
+  public long getFilterCacheMisses() {
+    return 0;
+  }
+
   @Override
   public String getName() {
     return null;
@@ -168,5 +210,46 @@ public class CollageProjectMock implements IProject {
       // do nothing
     }
   }
-}
 
+  @Override
+  public void addLayerRaster(String layerName, IRaster img, int x, int y)
+          throws IllegalArgumentException {
+    try {
+      this.log.append("layerName: " + layerName + " img: " + img.getHeight() + "x"
+              + img.getWidth() + " x: " + x + " y: " + y + "\n");
+    } catch (IOException e) {
+      // do nothing
+    }
+  }
+
+  @Override
+  public IPixel[][] doubleArrayRGB(int height, int width) throws IllegalArgumentException {
+    return new IPixel[height][width];
+  }
+
+  @Override
+  public IPixel createRGB(int r, int g, int b, int maxVal) throws IllegalArgumentException {
+    return null;
+  }
+
+  @Override
+  public ILayer createLayerImp(String name, List<List<IPixel>> pix, int height, int width)
+          throws IllegalArgumentException {
+    return null;
+  }
+
+  @Override
+  public IPixel createRGBA(int r, int g, int b, int a) {
+    return null;
+  }
+
+  @Override
+  public IRaster createRaster(int height, int width) throws IllegalArgumentException {
+    return null;
+  }
+
+  @Override
+  public ILayer createLayerImp(String name, IRaster pix) throws IllegalArgumentException {
+    return null;
+  }
+}
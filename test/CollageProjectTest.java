@@ -4,14 +4,21 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
+import model.ArgbUtil;
 import model.CollageLayer;
 import model.CollageProject;
 import model.FilterOption;
 import model.ILayer;
 import model.IPixel;
 import model.IProject;
+import model.IRaster;
+import model.PackedRaster;
+import model.PixelRect;
+import model.RasterLayer;
 import model.RGBPixel;
+import model.SolidRaster;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
@@ -531,4 +538,195 @@ public class CollageProjectTest {
     IProject test3 = new CollageProject("Another name", 10, 10);
     assertEquals("Another name" ,test3.getName());
   }
+
+  /**
+   * Test that compressToImage only filters the layers whose pixels or filter changed since
+   * they were last filtered, and that the result is the same as filtering every time.
+   */
+  @Test
+  public void testCompressToImageFilterCache() {
+    project.addLayer("layerNext");
+    project.addLayer("top");
+    project.addLayerImg("layerNext", cLayerPix2, 0, 0);
+    project.setFilterToCertainLayers(FilterOption.DIFFERENCE, "layerNext");
+
+    String first = project.compressToImage("name").toString();
+    // the unfiltered layers are already filtered with normal
+    assertEquals(2, project.getFilterCacheHits());
+    assertEquals(1, project.getFilterCacheMisses());
+
+    // nothing changed, so every layer is reused
+    assertEquals(first, project.compressToImage("name").toString());
+    assertEquals(5, project.getFilterCacheHits());
+    assertEquals(1, project.getFilterCacheMisses());
+
+    // changing a filter only refilters that layer
+    project.setFilterToCertainLayers(FilterOption.RED, "top");
+    project.compressToImage("name");
+    assertEquals(7, project.getFilterCacheHits());
+    assertEquals(2, project.getFilterCacheMisses());
+
+    // so does adding an image to a layer, and the image shows up
+    project.addLayerImg("top", cLayerPix, 1, 1);
+    String withImage = project.compressToImage("name").toString();
+    assertEquals(9, project.getFilterCacheHits());
+    assertEquals(3, project.getFilterCacheMisses());
+
+    IProject fresh = new CollageProject("fresh", 4, 3);
+    fresh.addLayer("layerNext");
+    fresh.addLayer("top");
+    fresh.addLayerImg("layerNext", cLayerPix2, 0, 0);
+    fresh.setFilterToCertainLayers(FilterOption.DIFFERENCE, "layerNext");
+    fresh.setFilterToCertainLayers(FilterOption.RED, "top");
+    fresh.addLayerImg("top", cLayerPix, 1, 1);
+    assertEquals(fresh.compressToImage("name").toString(), withImage);
+  }
+
+  /**
+   * Test that after adding an image, only the rectangle it landed on (and the row above it,
+   * for filters which read the pixel below) is filtered and composited again, and that the
+   * image is the same as one made from scratch.
+   */
+  @Test
+  public void testCompressToImageDirtyRegion() {
+    IProject big = new CollageProject("big", 12, 10);
+    big.addLayer("under");
+    big.addLayer("over");
+    big.addLayerImg("under", cLayerPix, 0, 0);
+    big.setFilterToCertainLayers(FilterOption.DIFFERENCE, "over");
+    big.compressToImage("name");
+
+    big.addLayerImg("over", cLayerPix2, 5, 6);
+    String incremental = big.compressToImage("name").toString();
+
+    IProject fresh = new CollageProject("fresh", 12, 10);
+    fresh.addLayer("under");
+    fresh.addLayer("over");
+    fresh.addLayerImg("under", cLayerPix, 0, 0);
+    fresh.setFilterToCertainLayers(FilterOption.DIFFERENCE, "over");
+    fresh.addLayerImg("over", cLayerPix2, 5, 6);
+    assertEquals(fresh.compressToImage("name").toString(), incremental);
+
+    // the layer reports only the rows and columns the image changed, plus the row above it
+    RasterLayer layer = new RasterLayer("layer", new PackedRaster(12, 10),
+            FilterOption.SCREEN);
+    layer.applyFilter(FilterOption.SCREEN);
+    layer.drainChangedRegion();
+    layer.addImg(cLayerPix2, 5, 6);
+    assertEquals(PixelRect.EMPTY, layer.drainChangedRegion());
+    layer.applyFilter(FilterOption.SCREEN);
+    assertEquals(new PixelRect(4, 6, 8, 8), layer.drainChangedRegion());
+    assertEquals(PixelRect.EMPTY, layer.drainChangedRegion());
+  }
+
+  /**
+   * Test that once the same layer is edited again and again, the layers under it are no
+   * longer read to make the image, and that the image stays the same as one made from scratch
+   * when the layers under it are edited too.
+   */
+  @Test
+  public void testCompressToImageCachesLayersBelow() {
+    List<ILayer> layers = new ArrayList<>();
+    int[] reads = new int[1];
+    Random rand = new Random(21);
+    for (int i = 0; i < 5; i++) {
+      IRaster raster = new PackedRaster(12, 10);
+      for (int row = 0; row < 12; row++) {
+        for (int col = 0; col < 10; col++) {
+          raster.setPixel(row, col, ArgbUtil.pack(rand.nextInt(256), rand.nextInt(256),
+                  rand.nextInt(256), rand.nextInt(256)));
+        }
+      }
+      if (i == 4) {
+        layers.add(new RasterLayer("top", raster, FilterOption.NORM));
+      } else {
+        // counts the rows read from the layers under the top one
+        layers.add(new RasterLayer("layer" + i, raster, FilterOption.BRIGHTV) {
+          @Override
+          public void readRow(int row, int col, int[] dst, int offset, int length) {
+            reads[0]++;
+            super.readRow(row, col, dst, offset, length);
+          }
+        });
+      }
+    }
+    IProject cached = new CollageProject("cached", layers, 12, 10);
+    cached.compressToImage("name");
+
+    for (int i = 0; i < 4; i++) {
+      cached.addLayerImg("top", cLayerPix2, i, i + 2);
+      reads[0] = 0;
+      String image = cached.compressToImage("name").toString();
+      if (i >= 2) {
+        assertEquals(0, reads[0]);
+      }
+      assertEquals(this.fromScratch(cached).compressToImage("name").toString(), image);
+    }
+
+    // editing a layer under the top one still changes the image
+    cached.addLayerImg("layer2", cLayerPix2, 7, 1);
+    String image = cached.compressToImage("name").toString();
+    assertEquals(this.fromScratch(cached).compressToImage("name").toString(), image);
+    cached.addLayerImg("top", cLayerPix, 5, 0);
+    reads[0] = 0;
+    image = cached.compressToImage("name").toString();
+    assertEquals(0, reads[0]);
+    assertEquals(this.fromScratch(cached).compressToImage("name").toString(), image);
+  }
+
+  /**
+   * Test that a layer knows where its content is, before and after each filter, that its
+   * pixels outside of it all have its fill value, and that filtering only its content gives
+   * the same pixels as filtering the whole layer.
+   */
+  @Test
+  public void testContentBounds() {
+    // copies of the layers only know which tiles hold their content
+    IProject big = new CollageProject("big", 600, 600);
+    assertEquals(PixelRect.EMPTY, big.returnAllLayers().get(0).getContentBounds());
+    big.addLayer("new");
+    assertEquals(PixelRect.EMPTY, big.returnAllLayers().get(1).getContentBounds());
+    big.addLayerImg("new", cLayerPix, 300, 260);
+    assertEquals(new PixelRect(256, 256, 512, 512),
+            big.returnAllLayers().get(1).getContentBounds());
+
+    for (FilterOption filter : FilterOption.values()) {
+      if (filter == FilterOption.ERROR) {
+        continue;
+      }
+      RasterLayer layer = new RasterLayer("layer", new SolidRaster(12, 10,
+              ArgbUtil.pack(255, 255, 255, 0)), FilterOption.NORM);
+      RasterLayer full = new RasterLayer("full", new PackedRaster(12, 10,
+              ArgbUtil.pack(255, 255, 255, 0)), FilterOption.NORM);
+      assertEquals(PixelRect.EMPTY, layer.getContentBounds());
+      layer.addImg(cLayerPix2, 5, 6);
+      full.addImg(cLayerPix2, 5, 6);
+      layer.applyFilter(filter);
+      full.applyFilter(filter);
+      PixelRect bounds = layer.getContentBounds();
+      if (filter == FilterOption.NORM) {
+        assertEquals(new PixelRect(5, 6, 8, 8), bounds);
+      }
+      for (int row = 0; row < 12; row++) {
+        for (int col = 0; col < 10; col++) {
+          assertEquals(full.getPixel(row, col).toString(), layer.getPixel(row, col).toString());
+          if (row < bounds.getTop() || row >= bounds.getBottom() || col < bounds.getLeft()
+                  || col >= bounds.getRight()) {
+            assertEquals(layer.getFillValue(), layer.getPixel(row, col).getARGB());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Private helper making a new project from copies of the given project's layers.
+   */
+  private IProject fromScratch(IProject project) {
+    List<ILayer> layers = new ArrayList<>();
+    for (ILayer layer : project.returnAllLayers()) {
+      layers.add(new RasterLayer(layer.getName(), layer.getRasterCopy(), layer.getFilter()));
+    }
+    return new CollageProject("fresh", layers, 12, 10);
+  }
 }
@@ -0,0 +1,150 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import model.ArgbUtil;
+import model.CollageProject;
+import model.CollageTextFormat;
+import model.FilterExecutor;
+import model.FilterOption;
+import model.ILayer;
+import model.IProject;
+import model.IRaster;
+import model.PackedRaster;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the CollageTextFormat class, which loads text projects a layer per task.
+ */
+public class CollageTextFormatTest {
+  IProject project;
+  File file;
+  FilterExecutor original;
+
+  @Before
+  public void init() throws IOException {
+    original = FilterExecutor.getDefault();
+    Random rand = new Random(1414);
+    project = new CollageProject("text project name", 6, 5);
+    for (int k = 0; k < 12; k++) {
+      project.addLayer("layer" + k);
+      IRaster img = new PackedRaster(3, 4);
+      for (int row = 0; row < 3; row++) {
+        for (int col = 0; col < 4; col++) {
+          img.setPixel(row, col, ArgbUtil.pack(rand.nextInt(256), rand.nextInt(256),
+                  rand.nextInt(256), rand.nextInt(256)));
+        }
+      }
+      project.addLayerRaster("layer" + k, img, k % 2, (k / 2) % 2);
+    }
+    project.setFilterToCertainLayers(FilterOption.GREEN, "layer3");
+    project.compressToImage("final");
+
+    file = File.createTempFile("text", ".txt");
+    file.deleteOnExit();
+    Files.write(file.toPath(), project.formatProject().getBytes(StandardCharsets.UTF_8));
+  }
+
+  @After
+  public void restore() {
+    FilterExecutor.setDefault(original);
+  }
+
+  /**
+   * Test that loading on many threads keeps the layers in order, whether or not the file ends
+   * with a newline.
+   */
+  @Test
+  public void testParallelLoad() throws IOException {
+    // every layer is decoded by its own task
+    FilterExecutor.setDefault(new FilterExecutor(new ForkJoinPool(4), 1));
+    IProject loaded = new CollageProject("untitled", 1, 1);
+    CollageTextFormat.load(file.getPath(), loaded);
+    assertEquals("text project name", loaded.getName());
+    assertEquals(13, loaded.returnAllLayers().size());
+    assertEquals("layer11", loaded.returnAllLayers().get(12).getName());
+    assertEquals("green-component", loaded.returnAllLayers().get(4).getFilter().toString());
+    assertEquals(project.formatProject(), loaded.formatProject());
+
+    String text = project.formatProject();
+    Files.write(file.toPath(), text.substring(0, text.length() - 1)
+            .getBytes(StandardCharsets.UTF_8));
+    FilterExecutor.setDefault(FilterExecutor.sequential());
+    IProject unterminated = new CollageProject("untitled", 1, 1);
+    CollageTextFormat.load(file.getPath(), unterminated);
+    assertEquals(text, unterminated.formatProject());
+  }
+
+  /**
+   * Test that a project with filtered layers composites to the same image after being saved
+   * and loaded again, so the filters are not applied twice.
+   */
+  @Test
+  public void testRoundTripFilters() throws IOException {
+    project.setFilterToCertainLayers(FilterOption.BRIGHTL, "layer5");
+    project.applyFilterToCertainLayer(FilterOption.DARKV, "layer8");
+    int[] expected = this.composite(project);
+    Files.write(file.toPath(), project.formatProject().getBytes(StandardCharsets.UTF_8));
+    IProject loaded = new CollageProject("untitled", 1, 1);
+    CollageTextFormat.load(file.getPath(), loaded);
+    assertArrayEquals(expected, this.composite(loaded));
+    assertEquals(project.formatProject(), loaded.formatProject());
+  }
+
+  /**
+   * Test for the exceptions thrown when loading invalid projects.
+   */
+  @Test
+  public void testInvalidLoad() throws IOException {
+    String text = project.formatProject();
+    // a layer missing its last pixel
+    Files.write(file.toPath(), text.substring(0, text.lastIndexOf('\n', text.length() - 2))
+            .getBytes(StandardCharsets.UTF_8));
+    this.assertInvalid();
+
+    // a pixel which is not a number
+    Files.write(file.toPath(), text.replaceFirst("\n255 255 255 0\n", "\n255 x 255 0\n")
+            .getBytes(StandardCharsets.UTF_8));
+    this.assertInvalid();
+
+    // no layers at all
+    Files.write(file.toPath(), "empty\n5 6\n255\n".getBytes(StandardCharsets.UTF_8));
+    this.assertInvalid();
+  }
+
+  /**
+   * Private helper making sure the file does not load.
+   */
+  private void assertInvalid() throws IOException {
+    try {
+      CollageTextFormat.load(file.getPath(), new CollageProject("untitled", 1, 1));
+      fail("Loaded an invalid project.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+  }
+
+  /**
+   * Private helper giving back the packed ARGB pixels of the image of a project.
+   */
+  private int[] composite(IProject proj) {
+    ILayer image = proj.compressToImage("final");
+    int[] pixels = new int[6 * 5];
+    for (int row = 0; row < 6; row++) {
+      for (int col = 0; col < 5; col++) {
+        pixels[row * 5 + col] = image.getPixel(row, col).getARGB();
+      }
+    }
+    return pixels;
+  }
+}
@@ -1,12 +1,15 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.StringReader;
 
 import controller.CollageController;
 import controller.ControllerImpl;
 import model.CollageProject;
 import model.IProject;
+import model.ProjectJournal;
 import view.CollageTextView;
 import view.IView;
 
@@ -114,6 +117,38 @@ public class ControllerToViewTest {
 
 
 
+  /**
+   * Test that loading a project after making a new one, and loading it again, replaces the
+   * project each time, and that making a new project afterwards replaces the loaded one.
+   */
+  @Test
+  public void testNewProjectThenLoadProject() throws IOException {
+    File file = File.createTempFile("loaded", ".collage");
+    file.deleteOnExit();
+    new File(ProjectJournal.journalPath(file.getPath())).deleteOnExit();
+    IProject saved = new CollageProject("saved", 20, 30);
+    saved.addLayer("top");
+    saved.getJournal().save(file.getPath(), saved);
+
+    read = new StringReader("new-project 10 10 load-project " + file.getPath()
+            + " load-project " + file.getPath() + " q");
+    new ControllerImpl(model, view, read).start();
+    String output = append.toString();
+    // both loads succeed
+    assertEquals(3, output.split("Project loaded: saved").length);
+    assertEquals("saved", model.getName());
+    assertEquals(20, model.getHeight());
+    assertEquals(30, model.getWidth());
+    assertEquals(2, model.returnAllLayers().size());
+    assertEquals("top", model.returnAllLayers().get(1).getName());
+
+    read = new StringReader("new-project 5 6 q");
+    new ControllerImpl(model, view, read).start();
+    assertEquals(5, model.getHeight());
+    assertEquals(1, model.returnAllLayers().size());
+    assertEquals(6, model.returnAllLayers().get(0).getWidth());
+  }
+
   /**
    * Test for start method when user tries to save a project and then load it.
    * Also test for save an image.
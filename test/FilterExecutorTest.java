@@ -0,0 +1,123 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import model.ArgbUtil;
+import model.FilterExecutor;
+import model.FilterOption;
+import model.ILayer;
+import model.IRaster;
+import model.PackedRaster;
+import model.RasterLayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the FilterExecutor class, which filters layers in parallel bands of rows.
+ */
+public class FilterExecutorTest {
+  IRaster raster;
+  ForkJoinPool pool;
+
+  @Before
+  public void init() {
+    Random rand = new Random(6100);
+    raster = new PackedRaster(37, 13);
+    for (int row = 0; row < 37; row++) {
+      for (int col = 0; col < 13; col++) {
+        raster.setPixel(row, col, ArgbUtil.pack(rand.nextInt(256), rand.nextInt(256),
+                rand.nextInt(256), rand.nextInt(256)));
+      }
+    }
+    pool = new ForkJoinPool(4);
+  }
+
+  @After
+  public void cleanUp() {
+    FilterExecutor.setDefault(new FilterExecutor(ForkJoinPool.commonPool(),
+            FilterExecutor.DEFAULT_THRESHOLD));
+    pool.shutdown();
+  }
+
+  /**
+   * Test that filtering in many small bands gives exactly the same pixels as filtering
+   * sequentially, including for the filters which read the pixel below.
+   */
+  @Test
+  public void testParallelMatchesSequential() {
+    FilterExecutor parallel = new FilterExecutor(pool, 20);
+    for (FilterOption f : FilterOption.values()) {
+      if (f == FilterOption.ERROR) {
+        continue;
+      }
+      IRaster expected = new PackedRaster(37, 13);
+      FilterExecutor.sequential().filter(raster, expected, f.compile());
+      IRaster actual = new PackedRaster(37, 13);
+      parallel.filter(raster, actual, f.compile());
+      for (int row = 0; row < 37; row++) {
+        for (int col = 0; col < 13; col++) {
+          assertEquals(f.toString(), expected.getPixel(row, col), actual.getPixel(row, col));
+        }
+      }
+    }
+  }
+
+  /**
+   * Test that layers use the default executor when applying filters.
+   */
+  @Test
+  public void testLayersUseDefault() {
+    ILayer sequential = new RasterLayer("seq", raster.copy(), FilterOption.NORM);
+    FilterExecutor.setDefault(FilterExecutor.sequential());
+    sequential.applyFilter(FilterOption.SCREEN);
+
+    ILayer parallel = new RasterLayer("par", raster.copy(), FilterOption.NORM);
+    FilterExecutor.setDefault(new FilterExecutor(pool, 1));
+    parallel.applyFilter(FilterOption.SCREEN);
+    assertEquals(sequential.toString().replace("seq", "par"), parallel.toString());
+
+    // exceptions thrown in a band reach the caller
+    try {
+      parallel.applyFilter(FilterOption.ERROR);
+      fail("Should have thrown for an unsupported filter.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+  }
+
+  /**
+   * Test for the exceptions thrown by a FilterExecutor.
+   */
+  @Test
+  public void testInvalidExecutor() {
+    try {
+      new FilterExecutor(null, 10);
+      fail("Should have thrown for a null pool.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+    try {
+      new FilterExecutor(pool, 0);
+      fail("Should have thrown for a threshold that is not positive.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+    try {
+      FilterExecutor.sequential().filter(raster, new PackedRaster(1, 1),
+              FilterOption.RED.compile());
+      fail("Should have thrown for rasters of different sizes.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+    try {
+      FilterExecutor.setDefault(null);
+      fail("Should have thrown for a null default.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+  }
+}
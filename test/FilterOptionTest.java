@@ -1,5 +1,13 @@
 import org.junit.Test;
+
+import java.util.Random;
+
+import model.AdjustmentFilter;
+import model.ArgbUtil;
 import model.FilterOption;
+import model.IFilterKernel;
+import model.IPixel;
+import model.RGBPixel;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
@@ -63,4 +71,73 @@ public class FilterOptionTest {
       // do nothing
     }
   }
+
+  /**
+   * Test that the compiled kernel of every filter gives the same pixels as applying the
+   * filter to an RGBPixel.
+   */
+  @Test
+  public void testCompileMatchesApply() {
+    Random rand = new Random(4200);
+    for (FilterOption f : FilterOption.values()) {
+      if (f == FilterOption.ERROR) {
+        continue;
+      }
+      IFilterKernel kernel = f.compile();
+      for (int i = 0; i < 500; i++) {
+        int argb = rand.nextInt();
+        int below = rand.nextInt();
+        IPixel pix = new RGBPixel(ArgbUtil.red(argb), ArgbUtil.green(argb),
+                ArgbUtil.blue(argb), ArgbUtil.alpha(argb), 255,
+                ArgbUtil.toPixel(below, null));
+        pix.apply(f);
+        assertEquals(f.toString(), pix.getARGB(), kernel.apply(argb, below));
+      }
+    }
+
+    try {
+      FilterOption.ERROR.compile();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+  }
+
+  /**
+   * Test for the levels, gamma and curves adjustments, which run from lookup tables.
+   */
+  @Test
+  public void testAdjustments() {
+    int pix = ArgbUtil.pack(10, 128, 250, 77);
+
+    IFilterKernel levels = AdjustmentFilter.levels(10, 250).compile();
+    assertEquals(ArgbUtil.pack(0, 125, 255, 77), levels.apply(pix, 0));
+
+    IFilterKernel gamma = AdjustmentFilter.gamma(2.0).compile();
+    assertEquals(ArgbUtil.pack(50, 181, 252, 77), gamma.apply(pix, 0));
+    assertEquals(0xFF000000, gamma.apply(0xFF000000, 0));
+    assertEquals(0xFFFFFFFF, gamma.apply(0xFFFFFFFF, 0));
+
+    IFilterKernel curves = AdjustmentFilter.curves(new int[]{0, 128, 255},
+            new int[]{0, 192, 255}).compile();
+    assertEquals(ArgbUtil.pack(15, 192, 253, 77), curves.apply(pix, 0));
+
+    // descriptions hold the parameters and can be read back
+    assertEquals("levels-10-250", AdjustmentFilter.levels(10, 250).toString());
+    assertEquals("curves-0:0,128:192,255:255", AdjustmentFilter.parse(
+            "curves-0:0,128:192,255:255").toString());
+    assertEquals(gamma.apply(pix, 0), AdjustmentFilter.parse("gamma-2.0").compile()
+            .apply(pix, 0));
+
+    String[] invalid = {"levels-200-100", "levels-1", "gamma-0", "gamma-x",
+        "curves-5:5,5:6", "curves-0:300", "screen"};
+    for (String str : invalid) {
+      try {
+        AdjustmentFilter.parse(str);
+        fail(str);
+      } catch (IllegalArgumentException e) {
+        // do nothing
+      }
+    }
+  }
 }
@@ -0,0 +1,134 @@
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+import javax.imageio.ImageIO;
+
+import controller.utilities.ImportOptions;
+import controller.utilities.JpegAndPngUtil;
+import controller.utilities.PpmReader;
+import model.IRaster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the ImportOptions class, and for the readers which crop and subsample images
+ * with them while decoding.
+ */
+public class ImportOptionsTest {
+
+  /**
+   * Test that the options are parsed, and regions are clipped and steps are made to fit.
+   */
+  @Test
+  public void testOptions() {
+    ImportOptions options = ImportOptions.NONE.with("crop=2,3,10,4").with("subsample=2");
+    assertEquals(new Rectangle(2, 3, 10, 4), options.getRegion(20, 20));
+    assertEquals(new Rectangle(2, 3, 6, 4), options.getRegion(20, 8));
+    assertEquals(2, options.getStep(4, 6));
+
+    ImportOptions fit = ImportOptions.NONE.with("fit=10,10");
+    assertEquals(new Rectangle(0, 0, 30, 20), fit.getRegion(20, 30));
+    assertEquals(1, fit.getStep(10, 10));
+    assertEquals(3, fit.getStep(20, 30));
+    assertEquals(2, fit.getStep(11, 10));
+    assertEquals(4, fit.withSubsampling(4).getStep(20, 30));
+
+    String[] invalid = {"crop=1,2,3", "crop=0,0,0,5", "crop=-1,0,2,2", "subsample=0",
+        "subsample=two", "fit=5", "fit=0,4", "rotate=90"};
+    for (String option : invalid) {
+      try {
+        ImportOptions.NONE.with(option);
+        fail("Parsed the invalid option " + option);
+      } catch (IllegalArgumentException e) {
+        // the exception is thrown
+      }
+    }
+    try {
+      ImportOptions.NONE.withRegion(40, 0, 5, 5).getRegion(20, 30);
+      fail("Cropped to a region outside of the image.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+  }
+
+  /**
+   * Test that plain and binary ppm images are cropped and subsampled to the same pixels as
+   * are in the full image.
+   */
+  @Test
+  public void testPpm() throws IOException {
+    for (boolean binary : new boolean[]{false, true}) {
+      byte[] ppm = this.randomPpm(9, 11, binary);
+      IRaster full = PpmReader.read(Channels.newChannel(new ByteArrayInputStream(ppm)), 255);
+      ImportOptions options = ImportOptions.NONE.withRegion(2, 1, 8, 7).withSubsampling(3);
+      IRaster part = PpmReader.read(Channels.newChannel(new ByteArrayInputStream(ppm)), 255,
+              options);
+      // rows 1, 4 and 7 of columns 2, 5 and 8
+      assertEquals(3, part.getHeight());
+      assertEquals(3, part.getWidth());
+      for (int row = 0; row < 3; row++) {
+        for (int col = 0; col < 3; col++) {
+          assertEquals(full.getPixel(1 + row * 3, 2 + col * 3), part.getPixel(row, col));
+        }
+      }
+    }
+  }
+
+  /**
+   * Test that png images are cropped, subsampled, and fit while decoding.
+   */
+  @Test
+  public void testPng() throws IOException {
+    BufferedImage image = new BufferedImage(30, 20, BufferedImage.TYPE_INT_ARGB);
+    Random rand = new Random(16);
+    for (int row = 0; row < 20; row++) {
+      for (int col = 0; col < 30; col++) {
+        image.setRGB(col, row, rand.nextInt());
+      }
+    }
+    File file = File.createTempFile("image", ".png");
+    file.deleteOnExit();
+    ImageIO.write(image, "png", file);
+
+    IRaster cropped = JpegAndPngUtil.readRaster(file.getPath(),
+            ImportOptions.NONE.withRegion(5, 2, 10, 4));
+    assertEquals(4, cropped.getHeight());
+    assertEquals(10, cropped.getWidth());
+    assertEquals(image.getRGB(5, 2), cropped.getPixel(0, 0));
+    assertEquals(image.getRGB(14, 5), cropped.getPixel(3, 9));
+
+    IRaster fit = JpegAndPngUtil.readRaster(file.getPath(), ImportOptions.NONE.withFit(7, 12));
+    assertEquals(7, fit.getHeight());
+    assertEquals(10, fit.getWidth());
+    assertEquals(image.getRGB(3, 3), fit.getPixel(1, 1));
+    assertEquals(image.getRGB(27, 18), fit.getPixel(6, 9));
+  }
+
+  /**
+   * Private helper making a ppm image of random colors.
+   */
+  private byte[] randomPpm(int height, int width, boolean binary) throws IOException {
+    Random rand = new Random(height * 31 + width);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    String header = (binary ? "P6" : "P3") + "\n# made for a test\n" + width + " " + height
+            + "\n255\n";
+    out.write(header.getBytes());
+    for (int i = 0; i < height * width * 3; i++) {
+      int value = rand.nextInt(256);
+      if (binary) {
+        out.write(value);
+      } else {
+        out.write((value + "\n").getBytes());
+      }
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,151 @@
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import javax.imageio.ImageIO;
+
+import controller.utilities.JpegAndPngUtil;
+import model.CollageProject;
+import model.FilterOption;
+import model.ILayer;
+import model.IPixel;
+import model.IProject;
+import model.IRaster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the JpegAndPngUtil class, which reads jpeg and png images into rasters.
+ */
+public class JpegAndPngUtilTest {
+
+  /**
+   * Test that every kind of image is copied into a raster the same as getRGB reads it, with
+   * rows and columns the right way around.
+   */
+  @Test
+  public void testToRaster() {
+    int[] types = {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB,
+        BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+        BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_565_RGB};
+    for (int type : types) {
+      BufferedImage image = this.randomImage(7, 13, type);
+      IRaster raster = JpegAndPngUtil.toRaster(image);
+      assertEquals(7, raster.getHeight());
+      assertEquals(13, raster.getWidth());
+      for (int row = 0; row < 7; row++) {
+        for (int col = 0; col < 13; col++) {
+          assertEquals(image.getRGB(col, row), raster.getPixel(row, col));
+        }
+      }
+    }
+
+    // a sub-image shares its parent's buffer, so its rows are read through getRGB
+    BufferedImage parent = this.randomImage(20, 20, BufferedImage.TYPE_INT_ARGB);
+    BufferedImage sub = parent.getSubimage(3, 5, 10, 8);
+    IRaster raster = JpegAndPngUtil.toRaster(sub);
+    assertEquals(parent.getRGB(3, 5), raster.getPixel(0, 0));
+    assertEquals(parent.getRGB(12, 12), raster.getPixel(7, 9));
+  }
+
+  /**
+   * Test that a png which is not square is read into the rows of pixels.
+   */
+  @Test
+  public void testReadImage() throws IOException {
+    BufferedImage image = this.randomImage(5, 9, BufferedImage.TYPE_INT_ARGB);
+    File file = File.createTempFile("image", ".png");
+    file.deleteOnExit();
+    ImageIO.write(image, "png", file);
+
+    List<List<IPixel>> pixels = JpegAndPngUtil.readImage(file.getPath());
+    assertEquals(5, pixels.size());
+    assertEquals(9, pixels.get(0).size());
+    int argb = image.getRGB(8, 4);
+    IPixel pixel = pixels.get(4).get(8);
+    assertEquals((argb >>> 24) & 0xFF, pixel.getAlpha());
+    assertEquals((argb >> 16) & 0xFF, pixel.getRed());
+    assertEquals(argb & 0xFF, pixel.getBlue());
+  }
+
+  /**
+   * Test for the exceptions thrown when a file cannot be read as an image.
+   */
+  @Test
+  public void testInvalidRead() throws IOException {
+    try {
+      JpegAndPngUtil.readRaster("not/a/real/image.png");
+      fail("Read a file which does not exist.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+    File file = File.createTempFile("image", ".png");
+    file.deleteOnExit();
+    try {
+      JpegAndPngUtil.readRaster(file.getPath());
+      fail("Read an empty file as an image.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+  }
+
+  /**
+   * Test that a project renders to the same colors compressToImage makes, made opaque, and
+   * that the rendered image can be saved as a png and a jpeg.
+   */
+  @Test
+  public void testRender() throws IOException {
+    IProject project = new CollageProject("render", 6, 8);
+    BufferedImage background = JpegAndPngUtil.render(project);
+    assertEquals(0xFFFFFFFF, background.getRGB(7, 5));
+
+    project.addLayer("top");
+    project.addLayerRaster("top", JpegAndPngUtil.toRaster(
+            this.randomImage(4, 5, BufferedImage.TYPE_INT_ARGB)), 1, 2);
+    project.setFilterToCertainLayers(FilterOption.RED, "top");
+    BufferedImage image = JpegAndPngUtil.render(project);
+    assertEquals(BufferedImage.TYPE_INT_ARGB, image.getType());
+    assertEquals(8, image.getWidth());
+    assertEquals(6, image.getHeight());
+    ILayer expected = project.compressToImage("final");
+    for (int row = 0; row < 6; row++) {
+      for (int col = 0; col < 8; col++) {
+        assertEquals(expected.getPixel(row, col).getARGB() | 0xFF000000,
+                image.getRGB(col, row));
+      }
+    }
+
+    for (String extension : new String[]{".png", ".jpeg"}) {
+      File file = File.createTempFile("render", extension);
+      file.deleteOnExit();
+      JpegAndPngUtil.saveImage(file.getPath(), image);
+      IRaster saved = JpegAndPngUtil.readRaster(file.getPath());
+      assertEquals(6, saved.getHeight());
+      assertEquals(8, saved.getWidth());
+    }
+    try {
+      project.compressInto(new int[47]);
+      fail("Compressed the project into an array too small for it.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+  }
+
+  /**
+   * Private helper making an image of the given type with random pixels.
+   */
+  private BufferedImage randomImage(int height, int width, int type) {
+    Random rand = new Random(1515);
+    BufferedImage image = new BufferedImage(width, height, type);
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        image.setRGB(col, row, rand.nextInt());
+      }
+    }
+    return image;
+  }
+}
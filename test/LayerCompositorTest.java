@@ -0,0 +1,244 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import model.ArgbUtil;
+import model.FilterOption;
+import model.ILayer;
+import model.IPixel;
+import model.IPixelRowOps;
+import model.IRaster;
+import model.LayerCompositor;
+import model.PackedRaster;
+import model.PixelRect;
+import model.PixelRowOps;
+import model.RasterLayer;
+import model.SolidRaster;
+import model.TiledRaster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the LayerCompositor class, which blends a stack of layers in one pass.
+ */
+public class LayerCompositorTest {
+  List<ILayer> layers;
+  LayerCompositor compositor;
+
+  @Before
+  public void init() {
+    Random rand = new Random(3500);
+    layers = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      IRaster raster = new PackedRaster(4, 3);
+      for (int row = 0; row < 4; row++) {
+        for (int col = 0; col < 3; col++) {
+          raster.setPixel(row, col, ArgbUtil.pack(rand.nextInt(256), rand.nextInt(256),
+                  rand.nextInt(256), rand.nextInt(256)));
+        }
+      }
+      layers.add(new RasterLayer("layer" + i, raster, FilterOption.NORM));
+    }
+    compositor = new LayerCompositor();
+  }
+
+  /**
+   * Test that compositing gives exactly the same pixels as merging the layers pixel by pixel
+   * with RGBPixel.merge, bottom-up.
+   */
+  @Test
+  public void testCompositeMatchesPairwiseMerge() {
+    int[] out = new int[12];
+    compositor.composite(layers, 1, 4, 3, out);
+    for (int row = 0; row < 4; row++) {
+      for (int col = 0; col < 3; col++) {
+        IPixel expected = layers.get(1).getPixel(row, col);
+        for (int i = 2; i < layers.size(); i++) {
+          expected = expected.merge(layers.get(i).getPixel(row, col));
+        }
+        assertEquals(expected.toString(),
+                ArgbUtil.toPixel(out[row * 3 + col], null).toString());
+      }
+    }
+  }
+
+  /**
+   * Test that each layer's current filter is used when compositing.
+   */
+  @Test
+  public void testCompositeUsesFilteredPixels() {
+    layers.get(2).applyFilter(FilterOption.RED);
+    int[] out = new int[12];
+    compositor.composite(layers, 2, 4, 3, out);
+    IPixel expected = layers.get(2).getPixel(0, 0);
+    expected = expected.merge(layers.get(3).getPixel(0, 0));
+    expected = expected.merge(layers.get(4).getPixel(0, 0));
+    assertEquals(expected.toString(), ArgbUtil.toPixel(out[0], null).toString());
+
+    // a single layer is copied as is
+    compositor.composite(layers, 4, 4, 3, out);
+    assertEquals(layers.get(4).getPixel(3, 2).getARGB(), out[11]);
+  }
+
+  /**
+   * Test that compositing a region only writes the pixels in it, and writes them the same as
+   * compositing everything.
+   */
+  @Test
+  public void testCompositeRegion() {
+    int[] full = new int[12];
+    compositor.composite(layers, 1, 4, 3, full);
+    int[] part = new int[12];
+    compositor.composite(layers, 1, 4, 3, part, new PixelRect(1, 1, 3, 3));
+    for (int row = 0; row < 4; row++) {
+      for (int col = 0; col < 3; col++) {
+        if (row >= 1 && row < 3 && col >= 1) {
+          assertEquals(full[row * 3 + col], part[row * 3 + col]);
+        } else {
+          assertEquals(0, part[row * 3 + col]);
+        }
+      }
+    }
+    try {
+      compositor.composite(layers, 1, 4, 3, part, new PixelRect(0, 0, 5, 3));
+      fail("Should have thrown for a region outside of the image.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+  }
+
+  /**
+   * Test that layers of one color, which are blended without reading their pixels, composite
+   * to exactly what the same layers give when every pixel is stored.
+   */
+  @Test
+  public void testSolidLayers() {
+    int[] colors = {ArgbUtil.pack(255, 255, 255, 0), ArgbUtil.pack(12, 200, 99, 255),
+        ArgbUtil.pack(70, 30, 250, 140), ArgbUtil.pack(0, 0, 0, 0)};
+    List<ILayer> solid = new ArrayList<>();
+    List<ILayer> stored = new ArrayList<>();
+    for (int i = 0; i < layers.size(); i++) {
+      // every other layer is a single color, in turn each of the colors
+      if (i % 2 == 0) {
+        int color = colors[(i / 2) % colors.length];
+        solid.add(new RasterLayer("solid" + i, new SolidRaster(4, 3, color), FilterOption.NORM));
+        stored.add(new RasterLayer("stored" + i, new PackedRaster(4, 3, color),
+                FilterOption.NORM));
+      } else {
+        solid.add(layers.get(i));
+        stored.add(layers.get(i));
+      }
+    }
+    for (int from = 0; from < layers.size(); from++) {
+      int[] expected = new int[12];
+      int[] actual = new int[12];
+      compositor.composite(stored, from, 4, 3, expected);
+      compositor.composite(solid, from, 4, 3, actual);
+      assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+    }
+  }
+
+  /**
+   * Test that layers with opaque and transparent pixels and tiles composite to exactly what
+   * merging every layer bottom-up gives, whether blended by pixel or by row, and that the
+   * layers under an opaque tile are not read.
+   */
+  @Test
+  public void testOpaqueLayers() {
+    Random rand = new Random(22);
+    int[] reads = new int[1];
+    List<ILayer> stack = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      IRaster raster = new TiledRaster(20, 300, 0, 16);
+      for (int row = 0; row < 20; row++) {
+        for (int col = 0; col < 300; col++) {
+          // opaque in some tiles, transparent in some, and a mix of alpha values elsewhere
+          int tile = ((row / 16) * 19 + col / 16 + i) % 4;
+          int alpha = tile == 0 ? 255 : tile == 1 ? 0 : new int[]{0, 255, 9, 180}[rand.nextInt(4)];
+          raster.setPixel(row, col, ArgbUtil.pack(rand.nextInt(256), rand.nextInt(256),
+                  rand.nextInt(256), alpha));
+        }
+      }
+      stack.add(new RasterLayer("layer" + i, raster, FilterOption.NORM) {
+        @Override
+        public void readRow(int row, int col, int[] dst, int offset, int length) {
+          reads[0]++;
+          super.readRow(row, col, dst, offset, length);
+        }
+      });
+    }
+    // pixel by pixel, and a row at a time with each of the row operations
+    LayerCompositor[] compositors = {compositor, new LayerCompositor(PixelRowOps.scalar()),
+        new LayerCompositor(PixelRowOps.getDefault())};
+    for (LayerCompositor c : compositors) {
+      for (int from = 0; from < stack.size(); from++) {
+        int[] out = new int[20 * 300];
+        c.composite(stack, from, 20, 300, out);
+        for (int row = 0; row < 20; row++) {
+          for (int col = 0; col < 300; col++) {
+            int expected = stack.get(from).getPixel(row, col).getARGB();
+            for (int i = from + 1; i < stack.size(); i++) {
+              expected = ArgbUtil.merge(expected, stack.get(i).getPixel(row, col).getARGB());
+            }
+            assertEquals(expected, out[row * 300 + col]);
+          }
+        }
+      }
+    }
+
+    // an opaque layer on top hides the rest, which are not read
+    IRaster opaque = new TiledRaster(20, 300, ArgbUtil.pack(1, 2, 3, 255), 16);
+    opaque.setPixel(4, 250, ArgbUtil.pack(9, 8, 7, 255));
+    stack.add(new RasterLayer("opaque", opaque, FilterOption.NORM));
+    reads[0] = 0;
+    int[] out = new int[20 * 300];
+    compositor.composite(stack, 0, 20, 300, out);
+    assertEquals(0, reads[0]);
+    assertEquals(ArgbUtil.pack(9, 8, 7, 255), out[4 * 300 + 250]);
+    assertEquals(ArgbUtil.pack(1, 2, 3, 255), out[19 * 300 + 299]);
+  }
+
+  /**
+   * Test for the exceptions thrown when compositing.
+   */
+  @Test
+  public void testInvalidComposite() {
+    try {
+      compositor.composite(layers, 0, 4, 3, new int[11]);
+      fail("Should have thrown for an output array that is too small.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+    try {
+      compositor.composite(layers, 5, 4, 3, new int[12]);
+      fail("Should have thrown for a starting index with no layer.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+    List<ILayer> mismatched = new ArrayList<>(Arrays.asList(layers.get(0),
+            new RasterLayer("small", new PackedRaster(1, 1), FilterOption.NORM)));
+    try {
+      compositor.composite(mismatched, 0, 4, 3, new int[12]);
+      fail("Should have thrown for a layer with a different size.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+    try {
+      compositor.composite(null, 0, 4, 3, new int[12]);
+      fail("Should have thrown for null layers.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+    try {
+      new LayerCompositor((IPixelRowOps) null);
+      fail("Should have thrown for null row operations.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+  }
+}
@@ -0,0 +1,152 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.ArgbUtil;
+import model.FilterExecutor;
+import model.FilterKernels;
+import model.FilterOption;
+import model.ILayer;
+import model.IRaster;
+import model.LazyRaster;
+import model.PackedRaster;
+import model.RasterLayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the LazyRaster class, which loads its pixels the first time they are used.
+ */
+public class LazyRasterTest {
+  AtomicInteger loads;
+  LazyRaster raster;
+
+  @Before
+  public void init() {
+    loads = new AtomicInteger();
+    raster = new LazyRaster(300, 400, () -> {
+      loads.incrementAndGet();
+      IRaster pixels = new PackedRaster(300, 400);
+      for (int row = 0; row < 300; row++) {
+        for (int col = 0; col < 400; col++) {
+          pixels.setPixel(row, col, ArgbUtil.pack(row % 256, col % 256, 7, 255));
+        }
+      }
+      return pixels;
+    });
+  }
+
+  /**
+   * Test that the pixels are loaded once, when they are first read, and not before.
+   */
+  @Test
+  public void testLoadsOnFirstUse() {
+    assertEquals(300, raster.getHeight());
+    assertEquals(400, raster.getWidth());
+    assertFalse(raster.isLoaded());
+    assertEquals(0, loads.get());
+
+    assertEquals(ArgbUtil.pack(5, 9, 7, 255), raster.getPixel(5, 9));
+    assertTrue(raster.isLoaded());
+    int[] row = new int[400];
+    raster.readRow(299, row, 0);
+    assertEquals(ArgbUtil.pack(299 % 256, 399 % 256, 7, 255), row[399]);
+    assertEquals(1, loads.get());
+  }
+
+  /**
+   * Test that copying an unloaded raster does not load it, and copies of a loaded raster are
+   * separate from it.
+   */
+  @Test
+  public void testCopy() {
+    IRaster copy = raster.copy();
+    assertEquals(0, loads.get());
+    assertFalse(raster.isLoaded());
+
+    raster.setPixel(0, 0, 0);
+    assertEquals(1, loads.get());
+    assertEquals(ArgbUtil.pack(0, 0, 7, 255), copy.getPixel(0, 0));
+    assertEquals(2, loads.get());
+
+    IRaster loadedCopy = raster.copy();
+    loadedCopy.setPixel(1, 1, 0);
+    assertEquals(ArgbUtil.pack(1, 1, 7, 255), raster.getPixel(1, 1));
+    assertEquals(2, loads.get());
+  }
+
+  /**
+   * Test that a layer whose pixels are lazy loads them once, however its original and current
+   * pixels are used, or images are placed on it.
+   */
+  @Test
+  public void testLayerLoadsOnce() {
+    ILayer layer = new RasterLayer("lazy", raster, FilterOption.NORM);
+    assertEquals(0, loads.get());
+    assertEquals(ArgbUtil.pack(5, 9, 7, 255), layer.getPixel(5, 9).getARGB());
+    assertEquals(ArgbUtil.pack(5, 9, 7, 255), layer.getOriginalPixel(5, 9).getARGB());
+    layer.applyFilter(FilterOption.NORM);
+    assertEquals(1, loads.get());
+
+    int placed = ArgbUtil.merge(ArgbUtil.pack(1, 2, 3, 128), ArgbUtil.pack(5, 9, 7, 255));
+    layer.addRasterImg(new PackedRaster(2, 2, ArgbUtil.pack(1, 2, 3, 128)), 5, 9);
+    assertEquals(placed, layer.getOriginalPixel(5, 9).getARGB());
+    layer.applyFilter(FilterOption.NORM);
+    assertEquals(placed, layer.getPixel(5, 9).getARGB());
+    layer.applyFilter(FilterOption.RED);
+    assertEquals(ArgbUtil.pack(5, 0, 0, 255), layer.getPixel(5, 9).getARGB());
+    assertEquals(1, loads.get());
+  }
+
+  /**
+   * Test that filling an unloaded raster does not load it.
+   */
+  @Test
+  public void testFill() {
+    raster.fill(42);
+    assertTrue(raster.isLoaded());
+    assertEquals(0, loads.get());
+    assertEquals(42, raster.getPixel(299, 399));
+  }
+
+  /**
+   * Test that the pixels are loaded only once when many threads read them at the same time.
+   */
+  @Test
+  public void testConcurrentLoad() {
+    IRaster dst = new PackedRaster(300, 400);
+    new FilterExecutor(new ForkJoinPool(4), 400).filter(raster, dst, FilterKernels.identity());
+    assertEquals(1, loads.get());
+    assertEquals(ArgbUtil.pack(200, 100, 7, 255), dst.getPixel(200, 100));
+  }
+
+  /**
+   * Test for the exceptions thrown by the constructor and by failed loads.
+   */
+  @Test
+  public void testInvalid() {
+    try {
+      new LazyRaster(0, 1, () -> new PackedRaster(1, 1));
+      fail("Made a raster with no rows.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+    try {
+      new LazyRaster(1, 1, null);
+      fail("Made a raster with no loader.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+    try {
+      new LazyRaster(2, 2, () -> new PackedRaster(1, 1)).getPixel(0, 0);
+      fail("Loaded pixels of the wrong size.");
+    } catch (IllegalStateException e) {
+      // the exception is thrown
+    }
+  }
+}
@@ -356,6 +356,41 @@ public class PixelImplTest {
   }
 
 
+  /**
+   * Test for the component accessors in IPixel, for both RGB and HSL pixels.
+   */
+  @Test
+  public void testComponentAccessors() {
+    assertEquals(255, botLeft.getRed());
+    assertEquals(170, botLeft.getGreen());
+    assertEquals(90, botLeft.getBlue());
+    assertEquals(0, botLeft.getAlpha());
+    assertEquals(0x00FFAA5A, botLeft.getARGB());
+    assertEquals(0xFF0000FF, topLeft.getARGB());
+
+    // hsl values of an rgb pixel match the converted pixel
+    assertEquals(240, topLeft.getHue());
+    assertEquals(1.0, topLeft.getSaturation(), .0001);
+    assertEquals(0.498046875, topLeft.getLightness(), .0001);
+
+    assertEquals(222, hsl1.getHue());
+    assertEquals(0.5, hsl1.getSaturation(), .0001);
+    assertEquals(0.2, hsl1.getLightness(), .0001);
+    assertEquals(255, hsl1.getAlpha());
+
+    // rgb values of an hsl pixel match the converted pixel, keeping the hsl pixel's alpha
+    assertEquals(255, hsl2.getRed());
+    assertEquals(0, hsl2.getGreen());
+    assertEquals(0, hsl2.getBlue());
+    assertEquals(0x28000000, hsl12.getARGB() & 0xFF000000);
+
+    // components outside of 0-255 after a darken filter are clamped when packed
+    IPixel darkened = new RGBPixel(100, 50, 0, 255);
+    darkened.apply(FilterOption.DARKV);
+    assertEquals(-50, darkened.getGreen());
+    assertEquals(0xFF000000, darkened.getARGB());
+  }
+
   /**
    * Test for method in IPixel: isRGB.
    */
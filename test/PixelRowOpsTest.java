@@ -0,0 +1,148 @@
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+import model.ArgbUtil;
+import model.FilterKernels;
+import model.FilterOption;
+import model.IFilterKernel;
+import model.IPixelRowOps;
+import model.PixelRowOps;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the PixelRowOps class, and for the row operations it gives.
+ */
+public class PixelRowOpsTest {
+
+  /**
+   * Test that the default operations are the vector operations when they could be loaded, and
+   * the scalar operations otherwise.
+   */
+  @Test
+  public void testDefault() {
+    assertNotNull(PixelRowOps.scalar());
+    assertNotNull(PixelRowOps.getDefault());
+    if (PixelRowOps.vector() == null) {
+      assertSame(PixelRowOps.scalar(), PixelRowOps.getDefault());
+    } else {
+      assertSame(PixelRowOps.vector(), PixelRowOps.getDefault());
+    }
+  }
+
+  /**
+   * Test that blending rows gives exactly what merge gives for each pixel, at any offset and
+   * for any length, including transparent pixels on either side.
+   */
+  @Test
+  public void testBlendRow() {
+    Random rand = new Random(25);
+    for (IPixelRowOps ops : this.allOps()) {
+      for (int length = 0; length < 70; length++) {
+        int[] acc = this.randomRow(rand, length + 5);
+        int[] top = this.randomRow(rand, length + 3);
+        int[] expected = acc.clone();
+        for (int i = 0; i < length; i++) {
+          expected[5 + i] = ArgbUtil.merge(acc[5 + i], top[3 + i]);
+        }
+        ops.blendRow(acc, 5, top, 3, length);
+        assertArrayEquals(expected, acc);
+      }
+    }
+  }
+
+  /**
+   * Test that masking and changing the value of rows gives exactly what the kernels of the
+   * filters give for each pixel, and leaves the rest of the row alone.
+   */
+  @Test
+  public void testFilterRows() {
+    Random rand = new Random(25);
+    for (IPixelRowOps ops : this.allOps()) {
+      for (int n = 0; n < 70; n++) {
+        int length = n;
+        int[] src = this.randomRow(rand, length + 7);
+        for (int keep : new int[]{0xFFFF0000, 0xFF00FF00, 0xFF0000FF}) {
+          this.assertRow(FilterKernels.mask(keep), src, 7, length, (dst) ->
+                  ops.maskRow(src, dst, 7, length, keep));
+        }
+        for (int sign : new int[]{1, -1}) {
+          this.assertRow(FilterKernels.value(sign), src, 7, length, (dst) ->
+                  ops.valueRow(src, dst, 7, length, sign));
+        }
+      }
+    }
+  }
+
+  /**
+   * Test that the kernels filter whole rows exactly as they filter each pixel.
+   */
+  @Test
+  public void testKernelRows() {
+    Random rand = new Random(25);
+    int[] src = this.randomRow(rand, 100);
+    int[] below = this.randomRow(rand, 100);
+    for (FilterOption f : FilterOption.values()) {
+      if (f == FilterOption.ERROR) {
+        continue;
+      }
+      IFilterKernel kernel = f.compile();
+      int[] actual = new int[100];
+      kernel.applyRow(src, below, actual, 3, 90);
+      for (int i = 0; i < 100; i++) {
+        assertEquals(i < 3 || i >= 93 ? 0 : kernel.apply(src[i], below[i]), actual[i]);
+      }
+    }
+  }
+
+  /**
+   * Private helper checking that a row operation writes exactly what the kernel gives for each
+   * pixel in the given part of a row, and nothing outside of it.
+   */
+  private void assertRow(IFilterKernel kernel, int[] src, int offset, int length,
+                         Consumer<int[]> op) {
+    int[] expected = new int[src.length];
+    for (int i = offset; i < offset + length; i++) {
+      expected[i] = kernel.apply(src[i], 0);
+    }
+    int[] actual = new int[src.length];
+    op.accept(actual);
+    assertArrayEquals(expected, actual);
+  }
+
+  /**
+   * Private helper giving back every set of operations which can be tested.
+   */
+  private IPixelRowOps[] allOps() {
+    if (PixelRowOps.vector() == null) {
+      return new IPixelRowOps[]{PixelRowOps.scalar()};
+    }
+    return new IPixelRowOps[]{PixelRowOps.scalar(), PixelRowOps.vector()};
+  }
+
+  /**
+   * Private helper making a row of random pixels, many of them fully transparent or opaque.
+   */
+  private int[] randomRow(Random rand, int length) {
+    int[] row = new int[length];
+    for (int i = 0; i < length; i++) {
+      int argb = rand.nextInt();
+      switch (rand.nextInt(4)) {
+        case 0:
+          row[i] = argb & 0xFFFFFF;
+          break;
+        case 1:
+          row[i] = argb | 0xFF000000;
+          break;
+        default:
+          row[i] = argb;
+      }
+    }
+    return row;
+  }
+}
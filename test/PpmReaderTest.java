@@ -0,0 +1,125 @@
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import controller.utilities.ImageUtil;
+import controller.utilities.PpmReader;
+import model.ArgbUtil;
+import model.IPixel;
+import model.IRaster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the PpmReader class, which reads PPM images straight into rasters.
+ */
+public class PpmReaderTest {
+
+  /**
+   * Private helper reading an image from the given bytes.
+   */
+  private IRaster read(byte[] bytes) throws IOException {
+    return PpmReader.read(Channels.newChannel(new ByteArrayInputStream(bytes)), 255);
+  }
+
+  /**
+   * Private helper reading an image from the given text.
+   */
+  private IRaster read(String text) throws IOException {
+    return this.read(text.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Test reading a plain PPM image with comments in the header and between the pixels.
+   */
+  @Test
+  public void testReadP3() throws IOException {
+    IRaster raster = this.read("P3\n# made by hand\n2 # width\n2\n255\n"
+            + "255 0 0   0 255 0\n# second row\n0 0 255 10 20 30");
+    assertEquals(2, raster.getHeight());
+    assertEquals(2, raster.getWidth());
+    assertEquals(ArgbUtil.pack(255, 0, 0, 255), raster.getPixel(0, 0));
+    assertEquals(ArgbUtil.pack(0, 255, 0, 255), raster.getPixel(0, 1));
+    assertEquals(ArgbUtil.pack(0, 0, 255, 255), raster.getPixel(1, 0));
+    assertEquals(ArgbUtil.pack(10, 20, 30, 255), raster.getPixel(1, 1));
+  }
+
+  /**
+   * Test reading binary PPM images, with one and two byte components.
+   */
+  @Test
+  public void testReadP6() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write("P6 # binary\n3 1 255\n".getBytes(StandardCharsets.US_ASCII));
+    out.write(new byte[]{(byte) 200, 10, 0, 1, 2, 3, (byte) 255, (byte) 255, (byte) 255});
+    IRaster raster = this.read(out.toByteArray());
+    assertEquals(ArgbUtil.pack(200, 10, 0, 255), raster.getPixel(0, 0));
+    assertEquals(ArgbUtil.pack(1, 2, 3, 255), raster.getPixel(0, 1));
+    assertEquals(ArgbUtil.pack(255, 255, 255, 255), raster.getPixel(0, 2));
+
+    out = new ByteArrayOutputStream();
+    out.write("P6\n1 1\n65535\n".getBytes(StandardCharsets.US_ASCII));
+    out.write(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0x80, 0x00, 0x00, 0x00});
+    raster = this.read(out.toByteArray());
+    assertEquals(ArgbUtil.pack(255, 128, 0, 255), raster.getPixel(0, 0));
+  }
+
+  /**
+   * Test that components are scaled from the max value of the image to 0-255.
+   */
+  @Test
+  public void testMaxValue() throws IOException {
+    IRaster raster = this.read("P3 2 1 15 15 0 7 8 1 0");
+    assertEquals(ArgbUtil.pack(255, 0, 119, 255), raster.getPixel(0, 0));
+    assertEquals(ArgbUtil.pack(136, 17, 0, 255), raster.getPixel(0, 1));
+  }
+
+  /**
+   * Test that ImageUtil still reads PPM files into rows of pixels with an alpha of 1.
+   */
+  @Test
+  public void testImageUtil() throws IOException {
+    File file = File.createTempFile("reader", ".ppm");
+    file.deleteOnExit();
+    Files.write(file.toPath(), "P3\n1 2\n255\n4 5 6\n7 8 9\n".getBytes(StandardCharsets.US_ASCII));
+    List<List<IPixel>> pix = ImageUtil.readPPM(file.getPath());
+    assertEquals(2, pix.size());
+    assertEquals("4 5 6 1\n", pix.get(0).get(0).toString());
+    assertEquals("7 8 9 1\n", pix.get(1).get(0).toString());
+    assertEquals(ArgbUtil.pack(7, 8, 9, 1), ImageUtil.readPPMRaster(file.getPath())
+            .getPixel(1, 0));
+
+    try {
+      ImageUtil.readPPM(file.getPath() + ".missing");
+      fail("Should have thrown for a file that does not exist.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+  }
+
+  /**
+   * Test for the exceptions thrown when reading invalid images.
+   */
+  @Test
+  public void testInvalidImages() throws IOException {
+    String[] invalid = {"", "P5 1 1 255 0", "P3 0 1 255", "P3 1 1 0 0 0 0",
+        "P3 1 1 255 1 2", "P3 1 1 255 1 2 256", "P3 1 1 255 1 2 x", "P3 2 1 255 1 2 3",
+        "P6 1 1 255 ab", "P6 1 1 255#ab\n123"};
+    for (String text : invalid) {
+      try {
+        this.read(text);
+        fail("Should have thrown for " + text);
+      } catch (IllegalArgumentException e) {
+        // do nothing
+      }
+    }
+  }
+}
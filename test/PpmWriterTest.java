@@ -0,0 +1,92 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import controller.utilities.PpmReader;
+import controller.utilities.PpmWriter;
+import model.ArgbUtil;
+import model.FilterOption;
+import model.ILayer;
+import model.IRaster;
+import model.PackedRaster;
+import model.RasterLayer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the PpmWriter class, which streams layers out as PPM images.
+ */
+public class PpmWriterTest {
+  ILayer image;
+
+  @Before
+  public void init() {
+    // wide enough that a row does not fit in the writer's buffer
+    Random rand = new Random(1010);
+    IRaster raster = new PackedRaster(3, 9000);
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 9000; col++) {
+        raster.setPixel(row, col, ArgbUtil.pack(rand.nextInt(256), rand.nextInt(256),
+                rand.nextInt(256), 255));
+      }
+    }
+    image = new RasterLayer("final image", raster, FilterOption.NORM);
+  }
+
+  /**
+   * Test that the plain format is exactly the text of getPPM.
+   */
+  @Test
+  public void testWriteP3() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PpmWriter.write(image, Channels.newChannel(out), false);
+    assertEquals(image.getPPM(), new String(out.toByteArray(), StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Test that a binary image reads back as the same pixels.
+   */
+  @Test
+  public void testWriteP6() throws IOException {
+    File file = File.createTempFile("writer", ".ppm");
+    file.deleteOnExit();
+    PpmWriter.write(image, file.getPath(), true);
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    assertEquals("P6\n# final image.ppm\n9000 3\n255\n".length() + 3 * 9000 * 3, bytes.length);
+
+    IRaster read = PpmReader.read(Channels.newChannel(new ByteArrayInputStream(bytes)), 255);
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 9000; col++) {
+        assertEquals(image.getPixel(row, col).getARGB(), read.getPixel(row, col));
+      }
+    }
+  }
+
+  /**
+   * Test for the exceptions thrown when writing.
+   */
+  @Test
+  public void testInvalidWrite() throws IOException {
+    try {
+      PpmWriter.write(null, Channels.newChannel(new ByteArrayOutputStream()), true);
+      fail("Should have thrown for a null image.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+    try {
+      PpmWriter.write(image, (String) null, true);
+      fail("Should have thrown for a null path.");
+    } catch (IllegalArgumentException e) {
+      // do nothing
+    }
+  }
+}
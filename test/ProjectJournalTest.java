@@ -0,0 +1,231 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import model.AdjustmentFilter;
+import model.ArgbUtil;
+import model.CollageProject;
+import model.FilterOption;
+import model.ILayer;
+import model.IProject;
+import model.IRaster;
+import model.PackedRaster;
+import model.ProjectJournal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the ProjectJournal class, which saves only the edits made since the last save.
+ */
+public class ProjectJournalTest {
+  IProject project;
+  File file;
+  Random rand;
+
+  @Before
+  public void init() throws IOException {
+    rand = new Random(1313);
+    project = new CollageProject("journaled", 40, 50);
+    project.addLayer("first");
+    project.addLayerRaster("first", this.image(20, 30), 3, 4);
+    file = File.createTempFile("journal", ".collage");
+    file.deleteOnExit();
+    new File(ProjectJournal.journalPath(file.getPath())).deleteOnExit();
+  }
+
+  /**
+   * Test that the first save writes a checkpoint, and later saves to the same file only
+   * append the edits made since.
+   */
+  @Test
+  public void testSaveAppendsEdits() throws IOException {
+    assertFalse(project.getJournal().save(file.getPath(), project));
+    long checkpointSize = file.length();
+    File journal = new File(ProjectJournal.journalPath(file.getPath()));
+    long journalSize = journal.length();
+    assertEquals(0, project.getJournal().getPendingEdits());
+
+    project.setFilterToCertainLayers(FilterOption.RED, "first");
+    project.addLayer("second");
+    project.addLayerRaster("second", this.image(2, 3), 1, 1);
+    assertEquals(3, project.getJournal().getPendingEdits());
+    assertTrue(project.getJournal().save(file.getPath(), project));
+    assertEquals(checkpointSize, file.length());
+    assertTrue(journal.length() > journalSize);
+    assertTrue(journal.length() - journalSize < 200);
+    assertEquals(0, project.getJournal().getPendingEdits());
+
+    this.assertLoadsTheSame();
+  }
+
+  /**
+   * Test that saving to a different file, or once the journal has grown large, writes a new
+   * checkpoint.
+   */
+  @Test
+  public void testCheckpoint() throws IOException {
+    project.getJournal().save(file.getPath(), project);
+    // an image bigger than half the checkpoint
+    project.addLayerRaster("first", this.image(40, 50), 0, 0);
+    assertFalse(project.getJournal().save(file.getPath(), project));
+    assertEquals(new File(ProjectJournal.journalPath(file.getPath())).length(), 28);
+
+    project.setFilterToCertainLayers(AdjustmentFilter.levels(10, 200), "first");
+    File other = File.createTempFile("journal", ".collage");
+    other.deleteOnExit();
+    new File(ProjectJournal.journalPath(other.getPath())).deleteOnExit();
+    assertFalse(project.getJournal().save(other.getPath(), project));
+  }
+
+  /**
+   * Test that loading replays the journal up to an edit that was cut short, and ignores a
+   * journal which does not belong to the checkpoint.
+   */
+  @Test
+  public void testReplay() throws IOException {
+    project.getJournal().save(file.getPath(), project);
+    project.addLayer("second");
+    project.getJournal().save(file.getPath(), project);
+    project.addLayer("third");
+    project.getJournal().save(file.getPath(), project);
+
+    // cuts the last edit short
+    try (RandomAccessFile raf = new RandomAccessFile(
+            ProjectJournal.journalPath(file.getPath()), "rw")) {
+      raf.setLength(raf.length() - 2);
+    }
+    IProject loaded = new CollageProject("untitled", 1, 1);
+    ProjectJournal.load(file.getPath(), loaded, false);
+    assertEquals(3, loaded.returnAllLayers().size());
+    assertEquals("second", loaded.returnAllLayers().get(2).getName());
+    assertEquals(0, loaded.getJournal().getPendingEdits());
+
+    // the checkpoint changes, so the journal no longer belongs to it
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(raf.length() + 4);
+    }
+    IProject stale = new CollageProject("untitled", 1, 1);
+    ProjectJournal.load(file.getPath(), stale, false);
+    assertEquals(2, stale.returnAllLayers().size());
+  }
+
+  /**
+   * Test that an image placed on a layer after a filter was applied to it is merged with the
+   * filtered pixels when the journal is replayed, just as it was when it was placed, so the
+   * project loads the same as from a full checkpoint.
+   */
+  @Test
+  public void testReplayAppliedFilter() throws IOException {
+    IProject solid = new CollageProject("solid", 8, 8);
+    solid.addLayer("layer");
+    IRaster color = new PackedRaster(8, 8);
+    color.fill(0xFF102030);
+    solid.addLayerRaster("layer", color, 0, 0);
+    solid.getJournal().save(file.getPath(), solid);
+
+    solid.applyFilterToCertainLayer(FilterOption.BRIGHTV, "layer");
+    IRaster img = new PackedRaster(4, 4);
+    img.fill(0x8000FF00);
+    solid.addLayerRaster("layer", img, 2, 2);
+    assertTrue(solid.getJournal().save(file.getPath(), solid));
+
+    IRaster expected = this.assertReplaysLikeCheckpoint(solid);
+    // the placed image was merged with the brightened layer
+    assertEquals(expected.getPixel(3, 3), solid.returnAllLayers().get(1).getRasterCopy()
+            .getPixel(3, 3));
+    assertTrue(expected.getPixel(3, 3) != ArgbUtil.merge(0xFF102030, 0x8000FF00));
+  }
+
+  /**
+   * Test that an image placed on a layer after the project was rendered, which applied the
+   * layer's filter, is merged with the filtered pixels when the journal is replayed.
+   */
+  @Test
+  public void testReplayRenderedFilter() throws IOException {
+    IProject solid = new CollageProject("solid", 8, 8);
+    solid.addLayer("layer");
+    IRaster color = new PackedRaster(8, 8);
+    color.fill(0xFF102030);
+    solid.addLayerRaster("layer", color, 0, 0);
+    solid.getJournal().save(file.getPath(), solid);
+
+    solid.setFilterToCertainLayers(FilterOption.BRIGHTV, "layer");
+    solid.compressToImage("render");
+    IRaster img = new PackedRaster(4, 4);
+    img.fill(0x8000FF00);
+    solid.addLayerRaster("layer", img, 2, 2);
+    assertTrue(solid.getJournal().save(file.getPath(), solid));
+
+    IRaster expected = this.assertReplaysLikeCheckpoint(solid);
+    // the placed image was merged with the brightened layer
+    assertEquals(expected.getPixel(3, 3), solid.returnAllLayers().get(1).getRasterCopy()
+            .getPixel(3, 3));
+    assertTrue(expected.getPixel(3, 3) != ArgbUtil.merge(0xFF102030, 0x8000FF00));
+  }
+
+  /**
+   * Private helper checking that the 8x8 project which was just saved to file loads, by
+   * replaying its journal, to the same original pixels and image as from a full checkpoint of
+   * it. Gives back the original pixels of its second layer.
+   */
+  private IRaster assertReplaysLikeCheckpoint(IProject solid) throws IOException {
+    File other = File.createTempFile("journal", ".collage");
+    other.deleteOnExit();
+    new File(ProjectJournal.journalPath(other.getPath())).deleteOnExit();
+    assertFalse(solid.getJournal().save(other.getPath(), solid));
+
+    IProject replayed = new CollageProject("untitled", 1, 1);
+    ProjectJournal.load(file.getPath(), replayed, false);
+    IProject checkpoint = new CollageProject("untitled", 1, 1);
+    ProjectJournal.load(other.getPath(), checkpoint, false);
+    IRaster expected = checkpoint.returnAllLayers().get(1).getRasterCopy();
+    IRaster actual = replayed.returnAllLayers().get(1).getRasterCopy();
+    ILayer expectedImage = checkpoint.compressToImage("final");
+    ILayer actualImage = replayed.compressToImage("final");
+    for (int row = 0; row < 8; row++) {
+      for (int col = 0; col < 8; col++) {
+        assertEquals(expected.getPixel(row, col), actual.getPixel(row, col));
+        assertEquals(expectedImage.getPixel(row, col).getARGB(),
+                actualImage.getPixel(row, col).getARGB());
+      }
+    }
+    return expected;
+  }
+
+  /**
+   * Private helper checking that loading the saved project gives the same project.
+   */
+  private void assertLoadsTheSame() throws IOException {
+    IProject loaded = new CollageProject("untitled", 1, 1);
+    ProjectJournal.load(file.getPath(), loaded, true);
+    assertEquals(project.returnAllLayers().size(), loaded.returnAllLayers().size());
+    ILayer expected = project.compressToImage("final");
+    ILayer actual = loaded.compressToImage("final");
+    assertEquals(project.formatProject(), loaded.formatProject());
+    for (int row = 0; row < 40; row++) {
+      for (int col = 0; col < 50; col++) {
+        assertEquals(expected.getPixel(row, col).getARGB(), actual.getPixel(row, col).getARGB());
+      }
+    }
+  }
+
+  /**
+   * Private helper making an image of random pixels.
+   */
+  private IRaster image(int height, int width) {
+    IRaster img = new PackedRaster(height, width);
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        img.setPixel(row, col, ArgbUtil.pack(rand.nextInt(256), rand.nextInt(256),
+                rand.nextInt(256), rand.nextInt(256)));
+      }
+    }
+    return img;
+  }
+}
@@ -0,0 +1,113 @@
+import org.junit.Test;
+
+import model.ArgbUtil;
+import model.CollageProject;
+import model.IProject;
+import model.IRaster;
+import model.SolidRaster;
+import model.TiledRaster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the SolidRaster class, which stores a raster of one color as just the color.
+ */
+public class SolidRasterTest {
+
+  /**
+   * Test that a solid raster reads as its color everywhere, and stays solid until a pixel is
+   * set to another color.
+   */
+  @Test
+  public void testSolid() {
+    SolidRaster raster = new SolidRaster(100000, 100000, 8);
+    assertEquals(8, raster.getPixel(99999, 0));
+    assertTrue(raster.isEmpty(5, 0, 100000));
+    int[] row = new int[4];
+    raster.readRow(7, 50, row, 1, 3);
+    assertEquals(0, row[0]);
+    assertEquals(8, row[3]);
+
+    raster.setPixel(3, 3, 8);
+    raster.writeRow(4, 10, new int[]{8, 8}, 0, 2);
+    assertTrue(raster.isSolid());
+
+    raster.setPixel(3, 3, 9);
+    assertFalse(raster.isSolid());
+    assertEquals(9, raster.getPixel(3, 3));
+    assertEquals(8, raster.getPixel(3, 4));
+    assertFalse(raster.isEmpty(3, 0, 10));
+    assertTrue(raster.isEmpty(3, 1000, 10));
+
+    raster.fill(2);
+    assertTrue(raster.isSolid());
+    assertEquals(2, raster.getPixel(3, 3));
+    assertEquals(2, raster.getFillValue());
+  }
+
+  /**
+   * Test that copies of a solid raster are solid, and copies made after it was written to
+   * keep their own pixels.
+   */
+  @Test
+  public void testCopy() {
+    SolidRaster raster = new SolidRaster(10, 10, 1);
+    IRaster solidCopy = raster.copy();
+    assertTrue(((SolidRaster) solidCopy).isSolid());
+    raster.setPixel(0, 0, 5);
+    assertEquals(1, solidCopy.getPixel(0, 0));
+
+    IRaster storedCopy = raster.copy();
+    assertTrue(storedCopy instanceof TiledRaster);
+    raster.setPixel(0, 0, 6);
+    assertEquals(5, storedCopy.getPixel(0, 0));
+  }
+
+  /**
+   * Test that a project's background, and a layer with no image yet, store no pixels.
+   */
+  @Test
+  public void testProjectLayers() {
+    IProject project = new CollageProject("solid", 60000, 60000);
+    project.addLayer("empty");
+    assertTrue(((SolidRaster) project.returnAllLayers().get(0).getRasterCopy()).isSolid());
+    assertTrue(((SolidRaster) project.returnAllLayers().get(1).getRasterCopy()).isSolid());
+    assertEquals(ArgbUtil.pack(255, 255, 255, 1),
+            project.returnAllLayers().get(0).getPixel(59999, 59999).getARGB());
+  }
+
+  /**
+   * Test for the exceptions thrown when making or using a solid raster wrongly.
+   */
+  @Test
+  public void testInvalid() {
+    try {
+      new SolidRaster(0, 4, 0);
+      fail("Made a solid raster with no rows.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+    SolidRaster raster = new SolidRaster(4, 4, 0);
+    try {
+      raster.getPixel(0, 4);
+      fail("Read a pixel out of bounds.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+    try {
+      raster.setPixel(-1, 0, 0);
+      fail("Set a pixel out of bounds to the same color.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+    try {
+      raster.readRow(0, 2, new int[4], 0, 3);
+      fail("Read past the end of a row.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+  }
+}
@@ -0,0 +1,326 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import model.ArgbUtil;
+import model.CollageProject;
+import model.FilterExecutor;
+import model.FilterKernels;
+import model.FilterOption;
+import model.ILayer;
+import model.IProject;
+import model.IRaster;
+import model.LayerCompositor;
+import model.PackedRaster;
+import model.RasterLayer;
+import model.TiledRaster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the TiledRaster class, which keeps its pixels in tiles shared between copies.
+ */
+public class TiledRasterTest {
+
+  /**
+   * Test that a raster with small tiles, which does not split evenly into them, reads and
+   * writes the same pixels as a packed raster.
+   */
+  @Test
+  public void testMatchesPackedRaster() {
+    Random rand = new Random(18);
+    TiledRaster tiled = new TiledRaster(21, 37, 5, 8);
+    IRaster packed = new PackedRaster(21, 37, 5);
+    assertEquals(15, tiled.getTileCount());
+    for (int i = 0; i < 200; i++) {
+      int row = rand.nextInt(21);
+      int col = rand.nextInt(37);
+      int length = rand.nextInt(37 - col + 1);
+      int[] values = new int[length + 3];
+      for (int k = 0; k < values.length; k++) {
+        values[k] = rand.nextInt();
+      }
+      if (i % 3 == 0) {
+        tiled.setPixel(row, col, values[0]);
+        packed.setPixel(row, col, values[0]);
+      } else {
+        tiled.writeRow(row, col, values, 3, length);
+        packed.writeRow(row, col, values, 3, length);
+      }
+    }
+
+    int[] expected = new int[40];
+    int[] actual = new int[40];
+    for (int row = 0; row < 21; row++) {
+      packed.readRow(row, expected, 2);
+      tiled.readRow(row, actual, 2);
+      assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+      packed.readRow(row, 6, expected, 0, 20);
+      tiled.readRow(row, 6, actual, 0, 20);
+      assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+      for (int col = 0; col < 37; col++) {
+        assertEquals(packed.getPixel(row, col), tiled.getPixel(row, col));
+      }
+    }
+  }
+
+  /**
+   * Test that copies share their tiles until they are written to, and that writing to one
+   * never changes the other.
+   */
+  @Test
+  public void testCopyOnWrite() {
+    TiledRaster original = new TiledRaster(16, 16, 1, 4);
+    for (int row = 0; row < 16; row++) {
+      original.writeRow(row, new int[]{3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3}, 0);
+    }
+    original.setPixel(0, 0, 2);
+    assertEquals(16, original.getStoredTileCount());
+    assertEquals(0, original.getSharedTileCount());
+
+    TiledRaster copy = (TiledRaster) original.copy();
+    assertEquals(16, original.getSharedTileCount());
+    assertEquals(16, copy.getSharedTileCount());
+
+    // writing a span within one row of tiles only clones the tiles it covers
+    copy.writeRow(5, 2, new int[]{7, 7, 7, 7}, 0, 4);
+    assertEquals(14, copy.getSharedTileCount());
+    assertEquals(16, original.getSharedTileCount());
+    assertEquals(7, copy.getPixel(5, 3));
+    assertEquals(3, original.getPixel(5, 3));
+
+    original.setPixel(15, 15, 9);
+    assertEquals(15, original.getSharedTileCount());
+    assertEquals(3, copy.getPixel(15, 15));
+    assertEquals(2, copy.getPixel(0, 0));
+
+    // a copy of a copy still leaves the first raster alone
+    IRaster third = copy.copy();
+    third.fill(4);
+    assertEquals(7, copy.getPixel(5, 3));
+    assertEquals(2, original.getPixel(0, 0));
+    assertEquals(4, third.getPixel(5, 3));
+  }
+
+  /**
+   * Test that filtering into a copy on several threads gives the same pixels as filtering
+   * into a packed raster, leaving the raster copied from as it was.
+   */
+  @Test
+  public void testParallelWritesToCopy() {
+    TiledRaster source = new TiledRaster(300, 500, 0, 64);
+    IRaster before = new PackedRaster(300, 500);
+    Random rand = new Random(99);
+    int[] row = new int[500];
+    for (int i = 0; i < 300; i++) {
+      for (int k = 0; k < 500; k++) {
+        row[k] = rand.nextInt();
+      }
+      source.writeRow(i, row, 0);
+      before.writeRow(i, row, 0);
+    }
+    TiledRaster copy = (TiledRaster) source.copy();
+    IRaster expected = new PackedRaster(300, 500);
+    new FilterExecutor(new ForkJoinPool(4), 1000).filter(source, copy, FilterKernels.luma(1));
+    FilterExecutor.sequential().filter(source, expected, FilterKernels.luma(1));
+    assertEquals(0, copy.getSharedTileCount());
+    for (int i = 0; i < 300; i++) {
+      for (int k = 0; k < 500; k++) {
+        assertEquals(expected.getPixel(i, k), copy.getPixel(i, k));
+        assertEquals(before.getPixel(i, k), source.getPixel(i, k));
+      }
+    }
+  }
+
+  /**
+   * Test that snapshots of a project's layers share their tiles with the layers, and that
+   * the project is not changed by changing them.
+   */
+  @Test
+  public void testLayerSnapshots() {
+    IProject project = new CollageProject("tiles", 600, 300);
+    project.addLayer("top");
+    project.addLayerRaster("top", new PackedRaster(2, 2, ArgbUtil.pack(10, 20, 30, 255)),
+            0, 0);
+    ILayer snapshot = project.returnAllLayers().get(1);
+    TiledRaster pixels = (TiledRaster) snapshot.getRasterCopy();
+    assertEquals(6, pixels.getTileCount());
+    assertEquals(1, pixels.getStoredTileCount());
+    assertEquals(1, pixels.getSharedTileCount());
+
+    project.addLayerRaster("top", new PackedRaster(2, 2, ArgbUtil.pack(40, 50, 60, 255)),
+            0, 0);
+    assertEquals(ArgbUtil.pack(10, 20, 30, 255), snapshot.getPixel(1, 1).getARGB());
+    assertEquals(ArgbUtil.pack(40, 50, 60, 255),
+            project.returnAllLayers().get(1).getPixel(1, 1).getARGB());
+  }
+
+  /**
+   * Test that tiles are only stored once a pixel in them stops having the fill value, and
+   * that filling drops every tile.
+   */
+  @Test
+  public void testSparseTiles() {
+    TiledRaster raster = new TiledRaster(20, 20, 6, 8);
+    assertEquals(9, raster.getTileCount());
+    assertEquals(0, raster.getStoredTileCount());
+    assertEquals(6, raster.getPixel(19, 19));
+    assertTrue(raster.isEmpty(3, 0, 20));
+
+    // writing the fill value stores nothing
+    raster.writeRow(3, new int[]{6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6, 6}, 0);
+    raster.setPixel(12, 12, 6);
+    assertEquals(0, raster.getStoredTileCount());
+
+    raster.setPixel(10, 9, 1);
+    assertEquals(1, raster.getStoredTileCount());
+    assertFalse(raster.isEmpty(10, 0, 20));
+    assertTrue(raster.isEmpty(10, 0, 8));
+    assertTrue(raster.isEmpty(10, 16, 4));
+    assertFalse(raster.isEmpty(15, 8, 1));
+    assertEquals(6, raster.getPixel(15, 8));
+    int[] row = new int[20];
+    raster.readRow(10, row, 0);
+    assertEquals(6, row[8]);
+    assertEquals(1, row[9]);
+    assertEquals(6, row[19]);
+
+    raster.fill(4);
+    assertEquals(0, raster.getStoredTileCount());
+    assertEquals(4, raster.getPixel(10, 9));
+    assertEquals(4, raster.getFillValue());
+  }
+
+  /**
+   * Test that tiles know when all of their pixels are opaque or transparent, and forget it when
+   * they are written.
+   */
+  @Test
+  public void testCoverage() {
+    TiledRaster raster = new TiledRaster(8, 12, ArgbUtil.pack(5, 5, 5, 255), 4);
+    assertTrue(raster.isOpaque(0, 0, 12));
+    assertFalse(raster.isClear(0, 0, 12));
+
+    raster.setPixel(5, 6, ArgbUtil.pack(5, 5, 5, 254));
+    assertFalse(raster.isOpaque(5, 0, 12));
+    assertTrue(raster.isOpaque(5, 0, 4));
+    assertTrue(raster.isOpaque(7, 8, 4));
+    assertFalse(raster.isOpaque(4, 5, 1));
+
+    raster.writeRow(5, 4, new int[]{-1, -1, -1, -1}, 0, 4);
+    assertTrue(raster.isOpaque(5, 0, 12));
+
+    // a copy keeps what is known, but the raster written to forgets it
+    TiledRaster copy = (TiledRaster) raster.copy();
+    for (int row = 4; row < 8; row++) {
+      copy.writeRow(row, 4, new int[]{0, 0, 0, 0}, 0, 4);
+    }
+    assertTrue(copy.isClear(6, 4, 4));
+    assertFalse(copy.isOpaque(6, 4, 4));
+    assertTrue(raster.isOpaque(6, 4, 4));
+    assertFalse(copy.isClear(6, 3, 4));
+
+    copy.fill(0);
+    assertTrue(copy.isClear(0, 0, 12));
+    assertFalse(copy.isOpaque(0, 0, 12));
+  }
+
+  /**
+   * Test that a project of many layers each holding a small image only stores the tiles under
+   * the images, even once the layers are filtered and composited, and composites to the same
+   * image as layers which store every pixel.
+   */
+  @Test
+  public void testStickerProject() {
+    IProject project = new CollageProject("stickers", 1024, 1024);
+    List<ILayer> packed = new ArrayList<>();
+    packed.add(new RasterLayer("background", new PackedRaster(1024, 1024,
+            ArgbUtil.pack(255, 255, 255, 1)), FilterOption.NORM));
+    Random rand = new Random(19);
+    for (int i = 0; i < 50; i++) {
+      IRaster sticker = new PackedRaster(20, 30);
+      for (int row = 0; row < 20; row++) {
+        for (int col = 0; col < 30; col++) {
+          sticker.setPixel(row, col, ArgbUtil.pack(rand.nextInt(256), rand.nextInt(256),
+                  rand.nextInt(256), rand.nextInt(256)));
+        }
+      }
+      int x = (i * 37) % 200;
+      int y = (i * 101) % 700;
+      project.addLayer("sticker" + i);
+      project.addLayerRaster("sticker" + i, sticker, x, y);
+      IRaster full = new PackedRaster(1024, 1024, ArgbUtil.pack(255, 255, 255, 0));
+      for (int row = 0; row < 20; row++) {
+        for (int col = 0; col < 30; col++) {
+          full.setPixel(row + x, col + y, ArgbUtil.merge(sticker.getPixel(row, col),
+                  ArgbUtil.pack(255, 255, 255, 0)));
+        }
+      }
+      packed.add(new RasterLayer("sticker" + i, full, FilterOption.NORM));
+      if (i % 5 == 0) {
+        project.setFilterToCertainLayers(FilterOption.BRIGHTV, "sticker" + i);
+        packed.get(i + 1).setFilter(FilterOption.BRIGHTV);
+      }
+    }
+
+    ILayer image = project.compressToImage("final");
+    int stored = 0;
+    for (ILayer layer : project.returnAllLayers()) {
+      IRaster pixels = layer.getRasterCopy();
+      if (pixels instanceof TiledRaster) {
+        stored += ((TiledRaster) pixels).getStoredTileCount();
+      }
+    }
+    // each sticker crosses at most four tiles
+    assertTrue(stored <= 200);
+
+    int[] expected = new int[1024 * 1024];
+    for (ILayer layer : packed) {
+      layer.applyFilter(layer.getFilter());
+    }
+    new LayerCompositor().composite(packed, 1, 1024, 1024, expected);
+    int[] row = new int[1024];
+    for (int i = 0; i < 1024; i++) {
+      image.readRow(i, row, 0);
+      for (int k = 0; k < 1024; k++) {
+        assertEquals(expected[i * 1024 + k], row[k]);
+      }
+    }
+  }
+
+  /**
+   * Test for the exceptions thrown when making or using a tiled raster wrongly.
+   */
+  @Test
+  public void testInvalid() {
+    int[][] sizes = {{0, 5, 4}, {5, -1, 4}, {5, 5, 0}, {5, 5, 6}};
+    for (int[] size : sizes) {
+      try {
+        new TiledRaster(size[0], size[1], 0, size[2]);
+        fail("Made a tiled raster with an invalid size.");
+      } catch (IllegalArgumentException e) {
+        // the exception is thrown
+      }
+    }
+    TiledRaster raster = new TiledRaster(10, 10, 0, 4);
+    try {
+      raster.getPixel(10, 0);
+      fail("Read a pixel out of bounds.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+    try {
+      raster.writeRow(3, 8, new int[5], 0, 5);
+      fail("Wrote past the end of a row.");
+    } catch (IllegalArgumentException e) {
+      // the exception is thrown
+    }
+  }
+}